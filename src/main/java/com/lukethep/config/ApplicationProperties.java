@@ -1,5 +1,6 @@
 package com.lukethep.config;
 
+import com.hazelcast.config.EvictionPolicy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,9 +11,573 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Pagination pagination = new Pagination();
+
+    private final Export export = new Export();
+
+    private final Bulk bulk = new Bulk();
+
+    private final ProductSummaries productSummaries = new ProductSummaries();
+
+    private final OwnerStats ownerStats = new OwnerStats();
+
+    private final PriceStats priceStats = new PriceStats();
+
+    private final NearCache nearCache = new NearCache();
+
+    private final LocalCache localCache = new LocalCache();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final ChangeStreams changeStreams = new ChangeStreams();
+
+    private final ProductEvents productEvents = new ProductEvents();
+
+    private final ProductChanges productChanges = new ProductChanges();
+
+    private final Reactive reactive = new Reactive();
+
     // jhipster-needle-application-properties-property
 
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public ProductSummaries getProductSummaries() {
+        return productSummaries;
+    }
+
+    public OwnerStats getOwnerStats() {
+        return ownerStats;
+    }
+
+    public PriceStats getPriceStats() {
+        return priceStats;
+    }
+
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    public LocalCache getLocalCache() {
+        return localCache;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public ChangeStreams getChangeStreams() {
+        return changeStreams;
+    }
+
+    public ProductEvents getProductEvents() {
+        return productEvents;
+    }
+
+    public ProductChanges getProductChanges() {
+        return productChanges;
+    }
+
+    public Reactive getReactive() {
+        return reactive;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
+    public static class Pagination {
+
+        /**
+         * Page size used when the client does not send a {@code limit}.
+         */
+        private int defaultLimit = 20;
+
+        /**
+         * Hard cap on the page size, whatever the client asks for.
+         */
+        private int maxLimit = 1000;
+
+        public int getDefaultLimit() {
+            return defaultLimit;
+        }
+
+        public void setDefaultLimit(int defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    public static class Export {
+
+        /**
+         * Number of documents fetched per Mongo cursor batch, and written between two flushes of the response.
+         */
+        private int batchSize = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Bulk {
+
+        /**
+         * Number of documents sent to Mongo in a single unordered bulk write.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Maximum number of items accepted in a single bulk request.
+         */
+        private int maxItems = 10000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+    }
+
+    public static class ProductSummaries {
+
+        /**
+         * Maximum number of product summaries embedded in a user document; the most recently added ones are kept.
+         */
+        private int maxSize = 50;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class OwnerStats {
+
+        /**
+         * Cron expression of the job recomputing the per-owner aggregates from the products, to correct any drift.
+         */
+        private String rebuildCron = "0 30 3 * * *";
+
+        public String getRebuildCron() {
+            return rebuildCron;
+        }
+
+        public void setRebuildCron(String rebuildCron) {
+            this.rebuildCron = rebuildCron;
+        }
+    }
+
+    public static class PriceStats {
+
+        /**
+         * Number of seconds the price statistics are cached for.
+         */
+        private int timeToLiveSeconds = 10;
+
+        /**
+         * Maximum number of buckets of the price histogram.
+         */
+        private int maxBuckets = 100;
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getMaxBuckets() {
+            return maxBuckets;
+        }
+
+        public void setMaxBuckets(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+    }
+
+    public static class NearCache {
+
+        /**
+         * Whether each member keeps the entries of the domain caches it reads in a near cache, in front of the cluster.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Eviction policy of the near cache, {@code LFU} or {@code LRU}.
+         */
+        private EvictionPolicy evictionPolicy = EvictionPolicy.LFU;
+
+        /**
+         * Maximum number of entries of the near cache of each domain cache.
+         */
+        private int maxSize = 10000;
+
+        /**
+         * Number of seconds an entry stays in the near cache, 0 to keep it until it is evicted or invalidated.
+         */
+        private int timeToLiveSeconds = 60;
+
+        /**
+         * Whether an entry is invalidated from the near caches of all the members when it changes in the cluster.
+         */
+        private boolean invalidateOnChange = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public EvictionPolicy getEvictionPolicy() {
+            return evictionPolicy;
+        }
+
+        public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public boolean isInvalidateOnChange() {
+            return invalidateOnChange;
+        }
+
+        public void setInvalidateOnChange(boolean invalidateOnChange) {
+            this.invalidateOnChange = invalidateOnChange;
+        }
+    }
+
+    public static class LocalCache {
+
+        /**
+         * Whether the domain caches are layered with an in-process cache, in front of Hazelcast.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of entries of the in-process cache of each domain cache.
+         */
+        private long maxSize = 1000;
+
+        /**
+         * Number of seconds an entry stays in the in-process cache after being loaded.
+         */
+        private int timeToLiveSeconds = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    public static class WriteBehind {
+
+        /**
+         * Whether product updates are written to a Hazelcast map first, and to Mongo later on.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of seconds an update waits in the map before being written to Mongo. Updates of the same product in the
+         * meantime are coalesced into a single write.
+         */
+        private int writeDelaySeconds = 5;
+
+        /**
+         * Maximum number of products written to Mongo in one batch.
+         */
+        private int writeBatchSize = 500;
+
+        /**
+         * Number of seconds a product stays in the map once it is no longer read nor updated.
+         */
+        private int maxIdleSeconds = 600;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWriteDelaySeconds() {
+            return writeDelaySeconds;
+        }
+
+        public void setWriteDelaySeconds(int writeDelaySeconds) {
+            this.writeDelaySeconds = writeDelaySeconds;
+        }
+
+        public int getWriteBatchSize() {
+            return writeBatchSize;
+        }
+
+        public void setWriteBatchSize(int writeBatchSize) {
+            this.writeBatchSize = writeBatchSize;
+        }
+
+        public int getMaxIdleSeconds() {
+            return maxIdleSeconds;
+        }
+
+        public void setMaxIdleSeconds(int maxIdleSeconds) {
+            this.maxIdleSeconds = maxIdleSeconds;
+        }
+    }
+
+    public static class ChangeStreams {
+
+        /**
+         * Whether the caches follow the changes made to products and users by any application, through Mongo change
+         * streams. Change streams require a replica set or a sharded cluster.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Minimum number of seconds between two saves of the position reached in a change stream.
+         */
+        private int checkpointIntervalSeconds = 5;
+
+        /**
+         * Number of seconds to wait before watching a change stream again after an error.
+         */
+        private int retryDelaySeconds = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCheckpointIntervalSeconds() {
+            return checkpointIntervalSeconds;
+        }
+
+        public void setCheckpointIntervalSeconds(int checkpointIntervalSeconds) {
+            this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+        }
+
+        public int getRetryDelaySeconds() {
+            return retryDelaySeconds;
+        }
+
+        public void setRetryDelaySeconds(int retryDelaySeconds) {
+            this.retryDelaySeconds = retryDelaySeconds;
+        }
+    }
+
+    public static class ProductEvents {
+
+        /**
+         * Number of events queued for a subscriber of the product events before it is dropped as too slow.
+         */
+        private int bufferSize = 256;
+
+        /**
+         * Number of recent events kept to replay to the subscribers resuming with a {@code Last-Event-ID}.
+         */
+        private int replaySize = 10000;
+
+        /**
+         * Number of seconds between two heartbeats sent to idle subscribers.
+         */
+        private int heartbeatSeconds = 15;
+
+        /**
+         * Number of seconds after which a subscription is closed, for the client to resume it.
+         */
+        private int timeoutSeconds = 1800;
+
+        /**
+         * Number of threads writing the events to the subscribers.
+         */
+        private int senderThreads = 4;
+
+        /**
+         * Number of seconds a write to a subscriber may take before the subscriber is dropped as stalled.
+         */
+        private int sendTimeoutSeconds = 10;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getReplaySize() {
+            return replaySize;
+        }
+
+        public void setReplaySize(int replaySize) {
+            this.replaySize = replaySize;
+        }
+
+        public int getHeartbeatSeconds() {
+            return heartbeatSeconds;
+        }
+
+        public void setHeartbeatSeconds(int heartbeatSeconds) {
+            this.heartbeatSeconds = heartbeatSeconds;
+        }
+
+        public int getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+
+        public int getSendTimeoutSeconds() {
+            return sendTimeoutSeconds;
+        }
+
+        public void setSendTimeoutSeconds(int sendTimeoutSeconds) {
+            this.sendTimeoutSeconds = sendTimeoutSeconds;
+        }
+    }
+
+    public static class ProductChanges {
+
+        /**
+         * Number of seconds a change must be old to be synced, so that writes still in flight, stamped before they are
+         * visible, are not skipped. Written-behind updates further wait for the write delay.
+         */
+        private int settleSeconds = 5;
+
+        /**
+         * Number of days the tombstones of deleted products are kept; a sync token older than that can no longer be
+         * resumed from. A change only applies to the tombstones written afterwards.
+         */
+        private int tombstoneRetentionDays = 30;
+
+        public int getSettleSeconds() {
+            return settleSeconds;
+        }
+
+        public void setSettleSeconds(int settleSeconds) {
+            this.settleSeconds = settleSeconds;
+        }
+
+        public int getTombstoneRetentionDays() {
+            return tombstoneRetentionDays;
+        }
+
+        public void setTombstoneRetentionDays(int tombstoneRetentionDays) {
+            this.tombstoneRetentionDays = tombstoneRetentionDays;
+        }
+    }
+
+    public static class Reactive {
+
+        /**
+         * Whether the read-only product and user APIs are also served under {@code /api/reactive}, through the reactive
+         * Mongo driver.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of documents mapped together when streaming, whose references are read with one query per collection.
+         */
+        private int batchSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -3,9 +3,17 @@ package com.lukethep.config;
 import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.MapStoreFactory;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.lukethep.domain.Product;
+import com.lukethep.service.ProductMapStore;
+import com.lukethep.service.ProductStatsService;
+import com.lukethep.service.ProductWriteBehindService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
@@ -28,6 +36,10 @@ public class CacheConfiguration {
 
     private static final Logger LOG = LoggerFactory.getLogger(CacheConfiguration.class);
 
+    private static final String DOMAIN_CACHE_PREFIX = "com.lukethep.domain.";
+
+    private static final String LOCAL_CACHE_INVALIDATION_TOPIC = "localCacheInvalidations";
+
     private final Environment env;
 
     public CacheConfiguration(Environment env) {
@@ -41,13 +53,33 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public CacheManager cacheManager(HazelcastInstance hazelcastInstance) {
+    public CacheManager cacheManager(
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         LOG.debug("Starting HazelcastCacheManager");
-        return new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+        CacheManager hazelcastCacheManager = new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+        if (!applicationProperties.getLocalCache().isEnabled()) {
+            return hazelcastCacheManager;
+        }
+        // The hottest entities are also kept in the memory of each member, serialized like in the cluster
+        return new TwoTierCacheManager(
+            hazelcastCacheManager,
+            name -> name.startsWith(DOMAIN_CACHE_PREFIX),
+            applicationProperties.getLocalCache(),
+            hazelcastInstance.getTopic(LOCAL_CACHE_INVALIDATION_TOPIC),
+            ((SerializationServiceSupport) hazelcastInstance).getSerializationService(),
+            meterRegistry
+        );
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<ProductMapStore> productMapStore
+    ) {
         LOG.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("jhipsterMongoMs");
         if (hazelCastInstance != null) {
@@ -68,7 +100,14 @@ public class CacheConfiguration {
             config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
         }
         config.setManagementCenterConfig(new ManagementCenterConfig());
+        // Domain entities are cached with Compact serialization, much smaller and faster than Java serialization
+        config.getSerializationConfig().getCompactSerializationConfig().setSerializers(HazelcastCompactSerializers.all());
         config.addMapConfig(initializeDefaultMapConfig(jHipsterProperties));
+        config.addMapConfig(initializeDomainMapConfig(jHipsterProperties, applicationProperties));
+        config.addMapConfig(initializePriceStatsMapConfig(applicationProperties));
+        if (applicationProperties.getWriteBehind().isEnabled()) {
+            config.addMapConfig(initializeProductWriteBehindMapConfig(applicationProperties.getWriteBehind(), productMapStore));
+        }
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -102,9 +141,63 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
-    private MapConfig initializeDomainMapConfig(JHipsterProperties jHipsterProperties) {
-        MapConfig mapConfig = new MapConfig("com.lukethep.domain.*");
+    private MapConfig initializeDomainMapConfig(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        MapConfig mapConfig = new MapConfig(DOMAIN_CACHE_PREFIX + "*");
         mapConfig.setTimeToLiveSeconds(jHipsterProperties.getCache().getHazelcast().getTimeToLiveSeconds());
+        ApplicationProperties.NearCache nearCache = applicationProperties.getNearCache();
+        if (nearCache.isEnabled()) {
+            mapConfig.setNearCacheConfig(initializeNearCacheConfig(nearCache));
+        }
+        return mapConfig;
+    }
+
+    private NearCacheConfig initializeNearCacheConfig(ApplicationProperties.NearCache nearCache) {
+        NearCacheConfig nearCacheConfig = new NearCacheConfig(DOMAIN_CACHE_PREFIX + "*");
+        /*
+        A hit on the near cache is served from the memory of the member,
+        instead of a network hop to the owner of the partition.
+        Entries are kept serialized, so that callers never share an instance.
+        */
+        nearCacheConfig.setInMemoryFormat(InMemoryFormat.BINARY);
+        nearCacheConfig.setInvalidateOnChange(nearCache.isInvalidateOnChange());
+        nearCacheConfig.setTimeToLiveSeconds(nearCache.getTimeToLiveSeconds());
+        nearCacheConfig
+            .getEvictionConfig()
+            .setEvictionPolicy(nearCache.getEvictionPolicy())
+            .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+            .setSize(nearCache.getMaxSize());
+        return nearCacheConfig;
+    }
+
+    private MapConfig initializePriceStatsMapConfig(ApplicationProperties applicationProperties) {
+        MapConfig mapConfig = new MapConfig(ProductStatsService.PRICE_STATS_CACHE);
+        // Statistics go stale with every product write, they are only kept for dashboards refreshing often
+        mapConfig.setTimeToLiveSeconds(applicationProperties.getPriceStats().getTimeToLiveSeconds());
+        return mapConfig;
+    }
+
+    private MapConfig initializeProductWriteBehindMapConfig(
+        ApplicationProperties.WriteBehind writeBehind,
+        ObjectProvider<ProductMapStore> productMapStore
+    ) {
+        MapConfig mapConfig = new MapConfig(ProductWriteBehindService.MAP_NAME);
+        // Products no longer read nor updated are dropped from the map, never before their updates are written
+        mapConfig.setMaxIdleSeconds(writeBehind.getMaxIdleSeconds());
+        /*
+        A write delay above 0 makes the map store write behind.
+        Coalescing only writes the latest update of a product
+        among those waiting to be written.
+        The map store is looked up when the map is first used,
+        as its services depend on the cache manager, hence on this instance.
+        */
+        MapStoreConfig mapStoreConfig = new MapStoreConfig()
+            .setEnabled(true)
+            .setFactoryImplementation((MapStoreFactory<String, Product>) (mapName, properties) -> productMapStore.getObject())
+            .setInitialLoadMode(MapStoreConfig.InitialLoadMode.LAZY)
+            .setWriteDelaySeconds(writeBehind.getWriteDelaySeconds())
+            .setWriteBatchSize(writeBehind.getWriteBatchSize())
+            .setWriteCoalescing(true);
+        mapConfig.setMapStoreConfig(mapStoreConfig);
         return mapConfig;
     }
 
@@ -1,5 +1,8 @@
 package com.lukethep.config;
 
+import com.lukethep.config.Decimal128Converters.BigDecimalToDecimal128Converter;
+import com.lukethep.config.Decimal128Converters.Decimal128ToBigDecimalConverter;
+import com.lukethep.repository.BatchingDbRefResolver;
 import io.mongock.runner.springboot.EnableMongock;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,8 +12,12 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.core.mapping.event.ValidatingMongoEventListener;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
@@ -41,6 +48,35 @@ public class DatabaseConfiguration {
         List<Converter<?, ?>> converters = new ArrayList<>();
         converters.add(DateToZonedDateTimeConverter.INSTANCE);
         converters.add(ZonedDateTimeToDateConverter.INSTANCE);
+        converters.add(BigDecimalToDecimal128Converter.INSTANCE);
+        converters.add(Decimal128ToBigDecimalConverter.INSTANCE);
         return new MongoCustomConversions(converters);
     }
+
+    /**
+     * Lets the writes of a product and of the data derived from it commit together; Mongo must run as a replica set.
+     */
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new MongoTransactionManager(mongoDatabaseFactory);
+    }
+
+    @Bean
+    public BatchingDbRefResolver batchingDbRefResolver(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new BatchingDbRefResolver(mongoDatabaseFactory);
+    }
+
+    /**
+     * Replaces the converter of Spring Boot, to resolve references through the {@link BatchingDbRefResolver}.
+     */
+    @Bean
+    public MappingMongoConverter mappingMongoConverter(
+        BatchingDbRefResolver batchingDbRefResolver,
+        MongoMappingContext mongoMappingContext,
+        MongoCustomConversions customConversions
+    ) {
+        MappingMongoConverter converter = new MappingMongoConverter(batchingDbRefResolver, mongoMappingContext);
+        converter.setCustomConversions(customConversions);
+        return converter;
+    }
 }
@@ -0,0 +1,38 @@
+package com.lukethep.config;
+
+import java.math.BigDecimal;
+import org.bson.types.Decimal128;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+/**
+ * Converters storing {@link BigDecimal} values as BSON {@link Decimal128}, instead of the strings Spring Data uses by
+ * default, so that they compare, sort and are indexed as numbers.
+ * <p>
+ * Values written as strings before are still read, through the default string conversion.
+ */
+public final class Decimal128Converters {
+
+    private Decimal128Converters() {}
+
+    @WritingConverter
+    public enum BigDecimalToDecimal128Converter implements Converter<BigDecimal, Decimal128> {
+        INSTANCE;
+
+        @Override
+        public Decimal128 convert(BigDecimal source) {
+            return new Decimal128(source);
+        }
+    }
+
+    @ReadingConverter
+    public enum Decimal128ToBigDecimalConverter implements Converter<Decimal128, BigDecimal> {
+        INSTANCE;
+
+        @Override
+        public BigDecimal convert(Decimal128 source) {
+            return source.bigDecimalValue();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.lukethep.config;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import com.lukethep.domain.AbstractAuditingEntity;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Hazelcast Compact serializers for the entities held in the domain caches, instead of the Java serialization their
+ * {@link java.io.Serializable} classes would get by default.
+ * <p>
+ * Compact serialization writes the schema of a type once per cluster, and then only the field values of each entry. The
+ * references between products and users are written by id only: a product holds the id of its owner, and a user the ids
+ * of its products, which are read back as entities holding nothing but their id. The services resolve them on read from
+ * the caches of the entities referenced, so that an entry never holds a stale copy of another entity, and the cycle
+ * between a user and its products does not drag the whole graph into each entry.
+ */
+public final class HazelcastCompactSerializers {
+
+    private HazelcastCompactSerializers() {}
+
+    /**
+     * @return the serializers to register in the compact serialization configuration.
+     */
+    public static CompactSerializer<?>[] all() {
+        return new CompactSerializer<?>[] {
+            new ProductSerializer(),
+            new UserSerializer(),
+            new ProductSummarySerializer(),
+        };
+    }
+
+    public static class ProductSerializer implements CompactSerializer<Product> {
+
+        @Override
+        public Product read(CompactReader reader) {
+            Product product = readProductFields(reader);
+            String ownerId = reader.readString("ownerId");
+            product.setOwner(ownerId == null ? null : new User().id(ownerId));
+            return product;
+        }
+
+        @Override
+        public void write(CompactWriter writer, Product product) {
+            writeProductFields(writer, product);
+            writer.writeString("ownerId", product.getOwner() == null ? null : product.getOwner().getId());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "product";
+        }
+
+        @Override
+        public Class<Product> getCompactClass() {
+            return Product.class;
+        }
+    }
+
+    public static class UserSerializer implements CompactSerializer<User> {
+
+        @Override
+        public User read(CompactReader reader) {
+            User user = readUserFields(reader);
+            String[] productIds = reader.readArrayOfString("productIds");
+            if (productIds != null) {
+                // Also sets the user back as the owner of its products
+                user.setProducts(new HashSet<>(Arrays.stream(productIds).map(id -> new Product().id(id)).toList()));
+            } else {
+                user.setProducts(null);
+            }
+            ProductSummary[] productSummaries = reader.readArrayOfCompact("productSummaries", ProductSummary.class);
+            user.setProductSummaries(productSummaries == null ? null : Arrays.asList(productSummaries));
+            return user;
+        }
+
+        @Override
+        public void write(CompactWriter writer, User user) {
+            writeUserFields(writer, user);
+            writer.writeArrayOfString(
+                "productIds",
+                user.getProducts() == null ? null : user.getProducts().stream().map(Product::getId).toArray(String[]::new)
+            );
+            List<ProductSummary> productSummaries = user.getProductSummaries();
+            writer.writeArrayOfCompact(
+                "productSummaries",
+                productSummaries == null ? null : productSummaries.toArray(ProductSummary[]::new)
+            );
+        }
+
+        @Override
+        public String getTypeName() {
+            return "user";
+        }
+
+        @Override
+        public Class<User> getCompactClass() {
+            return User.class;
+        }
+    }
+
+    public static class ProductSummarySerializer implements CompactSerializer<ProductSummary> {
+
+        @Override
+        public ProductSummary read(CompactReader reader) {
+            return new ProductSummary().id(reader.readString("id")).name(reader.readString("name")).price(reader.readDecimal("price"));
+        }
+
+        @Override
+        public void write(CompactWriter writer, ProductSummary summary) {
+            writer.writeString("id", summary.getId());
+            writer.writeString("name", summary.getName());
+            writer.writeDecimal("price", summary.getPrice());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "productSummary";
+        }
+
+        @Override
+        public Class<ProductSummary> getCompactClass() {
+            return ProductSummary.class;
+        }
+    }
+
+    private static Product readProductFields(CompactReader reader) {
+        Product product = new Product()
+            .id(reader.readString("id"))
+            .version(reader.readNullableInt64("version"))
+            .name(reader.readString("name"))
+            .price(reader.readDecimal("price"));
+        readAuditingFields(reader, product);
+        return product;
+    }
+
+    private static void writeProductFields(CompactWriter writer, Product product) {
+        writer.writeString("id", product.getId());
+        writer.writeNullableInt64("version", product.getVersion());
+        writer.writeString("name", product.getName());
+        writer.writeDecimal("price", product.getPrice());
+        writeAuditingFields(writer, product);
+    }
+
+    private static User readUserFields(CompactReader reader) {
+        User user = new User()
+            .id(reader.readString("id"))
+            .version(reader.readNullableInt64("version"))
+            .name(reader.readString("name"))
+            .email(reader.readString("email"));
+        readAuditingFields(reader, user);
+        return user;
+    }
+
+    private static void writeUserFields(CompactWriter writer, User user) {
+        writer.writeString("id", user.getId());
+        writer.writeNullableInt64("version", user.getVersion());
+        writer.writeString("name", user.getName());
+        writer.writeString("email", user.getEmail());
+        writeAuditingFields(writer, user);
+    }
+
+    private static void readAuditingFields(CompactReader reader, AbstractAuditingEntity<?> entity) {
+        entity.setCreatedBy(reader.readString("createdBy"));
+        entity.setCreatedDate(toInstant(reader.readTimestampWithTimezone("createdDate")));
+        entity.setLastModifiedBy(reader.readString("lastModifiedBy"));
+        entity.setLastModifiedDate(toInstant(reader.readTimestampWithTimezone("lastModifiedDate")));
+    }
+
+    private static void writeAuditingFields(CompactWriter writer, AbstractAuditingEntity<?> entity) {
+        writer.writeString("createdBy", entity.getCreatedBy());
+        writer.writeTimestampWithTimezone("createdDate", toOffsetDateTime(entity.getCreatedDate()));
+        writer.writeString("lastModifiedBy", entity.getLastModifiedBy());
+        writer.writeTimestampWithTimezone("lastModifiedDate", toOffsetDateTime(entity.getLastModifiedDate()));
+    }
+
+    private static Instant toInstant(OffsetDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toInstant();
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,82 @@
+package com.lukethep.config;
+
+import com.lukethep.repository.ReactiveBatchingDbRefResolver;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.ReactiveMongoClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+import tech.jhipster.config.JHipsterConstants;
+
+/**
+ * Configuration of the reactive Mongo driver, serving the read-only APIs under {@code /api/reactive} when
+ * {@code application.reactive.enabled} is set.
+ * <p>
+ * Spring Boot's reactive Mongo auto-configuration is excluded, so that no reactive client is created otherwise. The
+ * reactive client shares the settings of the synchronous one, and the reactive template its mapping context and
+ * conversions, with a converter of its own resolving references through the {@link ReactiveBatchingDbRefResolver}.
+ */
+@Configuration
+@EnableReactiveMongoRepositories("com.lukethep.repository")
+@Profile("!" + JHipsterConstants.SPRING_PROFILE_CLOUD)
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+public class ReactiveConfiguration {
+
+    @Bean
+    public MongoClient reactiveStreamsMongoClient(
+        MongoClientSettings settings,
+        ObjectProvider<MongoClientSettingsBuilderCustomizer> builderCustomizers
+    ) {
+        return new ReactiveMongoClientFactory(builderCustomizers.orderedStream().toList()).createMongoClient(settings);
+    }
+
+    @Bean
+    public ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory(
+        MongoClient reactiveStreamsMongoClient,
+        MongoDatabaseFactory mongoDatabaseFactory
+    ) {
+        return new SimpleReactiveMongoDatabaseFactory(reactiveStreamsMongoClient, mongoDatabaseFactory.getMongoDatabase().getName());
+    }
+
+    @Bean
+    public ReactiveBatchingDbRefResolver reactiveBatchingDbRefResolver(
+        MongoDatabaseFactory mongoDatabaseFactory,
+        ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+        ApplicationProperties applicationProperties
+    ) {
+        return new ReactiveBatchingDbRefResolver(
+            mongoDatabaseFactory,
+            reactiveMongoDatabaseFactory,
+            applicationProperties.getReactive().getBatchSize()
+        );
+    }
+
+    /**
+     * The converter is not a bean of its own, as the synchronous template expects a single one.
+     */
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(
+        ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+        ReactiveBatchingDbRefResolver reactiveBatchingDbRefResolver,
+        MongoMappingContext mongoMappingContext,
+        MongoCustomConversions customConversions
+    ) {
+        MappingMongoConverter converter = new MappingMongoConverter(reactiveBatchingDbRefResolver, mongoMappingContext);
+        converter.setCustomConversions(customConversions);
+        converter.setCodecRegistryProvider(reactiveMongoDatabaseFactory);
+        converter.afterPropertiesSet();
+        return new ReactiveMongoTemplate(reactiveMongoDatabaseFactory, converter);
+    }
+}
@@ -0,0 +1,198 @@
+package com.lukethep.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A {@link org.springframework.cache.Cache} reading through an in-process L1 cache in front of a shared L2 cache.
+ * <p>
+ * The L1 cache holds the values serialized, and hands every reader a copy of its own, so that a reader modifying what it
+ * read never changes what the other readers get. It saves the network hop to the member owning the entry, not the
+ * deserialization.
+ * <p>
+ * Every write goes to the L2 cache first, then invalidates the entry in the L1 cache of this process, and is announced
+ * to the other processes so that they invalidate it too. Filling a missing entry, through
+ * {@link #get(Object, Callable)} or {@link #putIfAbsent(Object, Object)}, is not a write and is not announced: the
+ * entry was missing from the L2 cache, so no other process can hold a later value of it. A read racing with a write may
+ * still put the former value back in the L1 cache, where it stays for its short time to live at most.
+ * <p>
+ * Lookups are counted in the {@value #GETS_METER_NAME} counter, tagged by cache, tier and result.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    static final String GETS_METER_NAME = "cache.tier.gets";
+    static final String SIZE_METER_NAME = "cache.tier.size";
+    static final String EVICTIONS_METER_NAME = "cache.tier.evictions";
+
+    private final org.springframework.cache.Cache l2;
+
+    private final Cache<Object, Data> l1;
+
+    private final SerializationService serializationService;
+
+    private final Consumer<Object> invalidationPublisher;
+
+    private final Counter l1Hits;
+
+    private final Counter l1Misses;
+
+    private final Counter l2Hits;
+
+    private final Counter l2Misses;
+
+    /**
+     * @param l2 the shared cache.
+     * @param l1 the in-process cache, recording its stats.
+     * @param serializationService serializes the values held by the in-process cache.
+     * @param invalidationPublisher announces the invalidation of a key to the other processes, {@code null} for all keys.
+     * @param meterRegistry the registry to publish the metrics of the cache to.
+     */
+    public TwoTierCache(
+        org.springframework.cache.Cache l2,
+        Cache<Object, Data> l1,
+        SerializationService serializationService,
+        Consumer<Object> invalidationPublisher,
+        MeterRegistry meterRegistry
+    ) {
+        super(false);
+        this.l2 = l2;
+        this.l1 = l1;
+        this.serializationService = serializationService;
+        this.invalidationPublisher = invalidationPublisher;
+        this.l1Hits = lookupCounter("l1", "hit", meterRegistry);
+        this.l1Misses = lookupCounter("l1", "miss", meterRegistry);
+        this.l2Hits = lookupCounter("l2", "hit", meterRegistry);
+        this.l2Misses = lookupCounter("l2", "miss", meterRegistry);
+        Gauge.builder(SIZE_METER_NAME, l1, Cache::estimatedSize)
+            .description("Number of entries of the in-process tier of a cache")
+            .tag("cache", getName())
+            .tag("tier", "l1")
+            .register(meterRegistry);
+        FunctionCounter.builder(EVICTIONS_METER_NAME, l1, cache -> cache.stats().evictionCount())
+            .description("Entries evicted from the in-process tier of a cache for its size or time to live")
+            .tag("cache", getName())
+            .tag("tier", "l1")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Data data = l1.getIfPresent(key);
+        if (data != null) {
+            l1Hits.increment();
+            return serializationService.toObject(data);
+        }
+        l1Misses.increment();
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        fillLocally(key, wrapper.get());
+        return wrapper.get();
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) wrapper.get();
+            return value;
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            putIfAbsent(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        l2.put(key, value);
+        invalidate(key);
+        fillLocally(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing == null) {
+            fillLocally(key, value);
+            return null;
+        }
+        return new SimpleValueWrapper(existing.get());
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        invalidate(null);
+    }
+
+    /**
+     * Invalidate an entry of the L1 cache on the announce of another process.
+     *
+     * @param key the key of the entry, {@code null} for all the entries.
+     */
+    void invalidateLocally(Object key) {
+        if (key == null) {
+            l1.invalidateAll();
+        } else {
+            l1.invalidate(key);
+        }
+    }
+
+    private void fillLocally(Object key, Object value) {
+        l1.put(key, serializationService.toData(value));
+    }
+
+    private void invalidate(Object key) {
+        invalidateLocally(key);
+        invalidationPublisher.accept(key);
+    }
+
+    private Counter lookupCounter(String tier, String result, MeterRegistry meterRegistry) {
+        return Counter.builder(GETS_METER_NAME)
+            .description("Lookups of a tier of a cache")
+            .tag("cache", getName())
+            .tag("tier", tier)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
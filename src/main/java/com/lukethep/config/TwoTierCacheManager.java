@@ -0,0 +1,115 @@
+package com.lukethep.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.topic.ITopic;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * A {@link CacheManager} layering an in-process {@link TwoTierCache L1 cache} on top of the caches of another manager.
+ * <p>
+ * Only the caches accepted by the given filter get an L1 cache, the others are served by the L2 manager alone. The L1
+ * caches are bounded Caffeine caches, evicting with W-TinyLFU, whose entries expire shortly after being written. The
+ * invalidations of their entries are broadcast to the other members of the cluster on a Hazelcast topic.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager l2CacheManager;
+
+    private final Predicate<String> l1Filter;
+
+    private final ApplicationProperties.LocalCache localCache;
+
+    private final ITopic<Invalidation> invalidationTopic;
+
+    private final SerializationService serializationService;
+
+    private final MeterRegistry meterRegistry;
+
+    // Tells the invalidations published by this manager, which it has already applied
+    private final UUID origin = UUID.randomUUID();
+
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param l2CacheManager the manager of the shared caches.
+     * @param l1Filter accepts the names of the caches getting an L1 cache.
+     * @param localCache the configuration of the L1 caches.
+     * @param invalidationTopic the topic the invalidations of the L1 entries are broadcast on.
+     * @param serializationService serializes the values held by the L1 caches, e.g. the one of the Hazelcast member.
+     * @param meterRegistry the registry to publish the metrics of the caches to.
+     */
+    public TwoTierCacheManager(
+        CacheManager l2CacheManager,
+        Predicate<String> l1Filter,
+        ApplicationProperties.LocalCache localCache,
+        ITopic<Invalidation> invalidationTopic,
+        SerializationService serializationService,
+        MeterRegistry meterRegistry
+    ) {
+        this.l2CacheManager = l2CacheManager;
+        this.l1Filter = l1Filter;
+        this.localCache = localCache;
+        this.invalidationTopic = invalidationTopic;
+        this.serializationService = serializationService;
+        this.meterRegistry = meterRegistry;
+        invalidationTopic.addMessageListener(message -> receive(message.getMessageObject()));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!l1Filter.test(name)) {
+            return l2CacheManager.getCache(name);
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2CacheManager.getCacheNames();
+    }
+
+    void receive(Invalidation invalidation) {
+        if (origin.equals(invalidation.origin())) {
+            return;
+        }
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        // A cache never read in this process has nothing to invalidate
+        if (cache != null) {
+            cache.invalidateLocally(invalidation.key());
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache l2 = l2CacheManager.getCache(name);
+        return new TwoTierCache(
+            l2,
+            Caffeine.newBuilder()
+                .maximumSize(localCache.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(localCache.getTimeToLiveSeconds()))
+                .recordStats()
+                .build(),
+            serializationService,
+            key -> invalidationTopic.publish(new Invalidation(origin, name, key)),
+            meterRegistry
+        );
+    }
+
+    /**
+     * The invalidation of an entry of an L1 cache, broadcast to the other members of the cluster.
+     *
+     * @param origin the manager which published the invalidation.
+     * @param cacheName the name of the cache.
+     * @param key the key of the entry, {@code null} for all the entries.
+     */
+    public record Invalidation(UUID origin, String cacheName, Object key) implements Serializable {}
+}
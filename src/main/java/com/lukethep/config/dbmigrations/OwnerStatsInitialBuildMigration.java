@@ -0,0 +1,32 @@
+package com.lukethep.config.dbmigrations;
+
+import com.lukethep.domain.OwnerStats;
+import com.lukethep.repository.OwnerStatsRepositoryCustomImpl;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Builds the {@link OwnerStats per-owner aggregates} of the existing products, which are then maintained on every product
+ * write.
+ */
+@ChangeUnit(id = "owner-stats-initial-build", order = "004", transactional = false)
+public class OwnerStatsInitialBuildMigration {
+
+    private final MongoTemplate template;
+
+    public OwnerStatsInitialBuildMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void build() {
+        new OwnerStatsRepositoryCustomImpl(template).rebuild();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        template.dropCollection(OwnerStats.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.lukethep.config.dbmigrations;
+
+import com.lukethep.domain.Product;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Records the pre-images of the changes of the products, so that the change streams tell the owner a product had
+ * before it was deleted, or given to another owner.
+ * <p>
+ * The pre-images are kept as long as the oplog entries of their changes.
+ */
+@ChangeUnit(id = "product-change-stream-pre-images", order = "006", transactional = false)
+public class ProductChangeStreamPreImagesMigration {
+
+    private final MongoTemplate template;
+
+    public ProductChangeStreamPreImagesMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void enablePreImages() {
+        String collectionName = template.getCollectionName(Product.class);
+        if (!template.collectionExists(collectionName)) {
+            template.createCollection(collectionName);
+        }
+        setPreImages(collectionName, true);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        String collectionName = template.getCollectionName(Product.class);
+        if (template.collectionExists(collectionName)) {
+            setPreImages(collectionName, false);
+        }
+    }
+
+    private void setPreImages(String collectionName, boolean enabled) {
+        template.executeCommand(
+            new Document("collMod", collectionName).append("changeStreamPreAndPostImages", new Document("enabled", enabled))
+        );
+    }
+}
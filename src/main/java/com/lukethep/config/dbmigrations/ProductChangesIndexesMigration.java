@@ -0,0 +1,81 @@
+package com.lukethep.config.dbmigrations;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductTombstone;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import java.time.Duration;
+import java.util.Date;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Creates the indexes behind the sync of the product changes: products and tombstones by modification date then
+ * {@code _id}, so that a sync is a range scan over what changed, and the TTL index expiring the tombstones.
+ * <p>
+ * Products written before auditing have no modification date, which would keep them out of the sync; they get the
+ * current date.
+ */
+@ChangeUnit(id = "product-changes-indexes", order = "005", transactional = false)
+public class ProductChangesIndexesMigration {
+
+    static final String LAST_MODIFIED_INDEX = "last_modified_date_id";
+
+    static final String DELETED_INDEX = "deleted_date_id";
+
+    static final String EXPIRE_INDEX = "expire_date";
+
+    private final MongoTemplate template;
+
+    public ProductChangesIndexesMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void createIndexes() {
+        template.updateMulti(
+            Query.query(Criteria.where("last_modified_date").exists(false)),
+            new Update().set("last_modified_date", new Date()),
+            template.getCollectionName(Product.class)
+        );
+        productIndexOperations()
+            .ensureIndex(
+                new Index().on("last_modified_date", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(LAST_MODIFIED_INDEX)
+            );
+        IndexOperations tombstoneIndexOperations = tombstoneIndexOperations();
+        tombstoneIndexOperations.ensureIndex(
+            new Index().on("deleted_date", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(DELETED_INDEX)
+        );
+        tombstoneIndexOperations.ensureIndex(
+            new Index().on("expire_date", Sort.Direction.ASC).expire(Duration.ZERO).named(EXPIRE_INDEX)
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        dropIndex(productIndexOperations(), LAST_MODIFIED_INDEX);
+        dropIndex(tombstoneIndexOperations(), DELETED_INDEX);
+        dropIndex(tombstoneIndexOperations(), EXPIRE_INDEX);
+    }
+
+    private static void dropIndex(IndexOperations indexOperations, String index) {
+        if (indexOperations.getIndexInfo().stream().map(IndexInfo::getName).anyMatch(index::equals)) {
+            indexOperations.dropIndex(index);
+        }
+    }
+
+    private IndexOperations productIndexOperations() {
+        return template.indexOps(template.getCollectionName(Product.class));
+    }
+
+    private IndexOperations tombstoneIndexOperations() {
+        return template.indexOps(template.getCollectionName(ProductTombstone.class));
+    }
+}
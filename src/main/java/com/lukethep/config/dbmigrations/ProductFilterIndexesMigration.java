@@ -0,0 +1,69 @@
+package com.lukethep.config.dbmigrations;
+
+import com.lukethep.domain.Product;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Creates the indexes behind the product filters and sorts.
+ * <p>
+ * Each index ends with {@code _id}, which breaks ties in the keyset pagination, so a filtered and sorted page is a
+ * single index range scan. Owners are stored as DBRefs, hence the {@code owner.$id} keys.
+ */
+@ChangeUnit(id = "product-filter-indexes", order = "001", transactional = false)
+public class ProductFilterIndexesMigration {
+
+    static final String PRICE_INDEX = "price_id";
+
+    static final String NAME_INDEX = "name_id";
+
+    static final String OWNER_INDEX = "owner_id";
+
+    static final String OWNER_PRICE_INDEX = "owner_price_id";
+
+    private final MongoTemplate template;
+
+    public ProductFilterIndexesMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void createIndexes() {
+        IndexOperations indexOperations = indexOperations();
+        indexOperations.ensureIndex(new Index().on("price", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(PRICE_INDEX));
+        indexOperations.ensureIndex(new Index().on("name", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(NAME_INDEX));
+        indexOperations.ensureIndex(new Index().on("owner.$id", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(OWNER_INDEX));
+        indexOperations.ensureIndex(
+            new Index()
+                .on("owner.$id", Sort.Direction.ASC)
+                .on("price", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named(OWNER_PRICE_INDEX)
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        IndexOperations indexOperations = indexOperations();
+        Set<String> existingIndexes = indexOperations.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+        for (String index : List.of(PRICE_INDEX, NAME_INDEX, OWNER_INDEX, OWNER_PRICE_INDEX)) {
+            if (existingIndexes.contains(index)) {
+                indexOperations.dropIndex(index);
+            }
+        }
+    }
+
+    // Raw field names, so that the DBRef path is not mapped
+    private IndexOperations indexOperations() {
+        return template.indexOps(template.getCollectionName(Product.class));
+    }
+}
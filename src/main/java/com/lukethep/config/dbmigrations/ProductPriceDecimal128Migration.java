@@ -0,0 +1,89 @@
+package com.lukethep.config.dbmigrations;
+
+import com.lukethep.domain.Product;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Rewrites the product prices stored as strings as {@link Decimal128}, so that price filters and sorts are numeric and
+ * run on the {@code price_id} index.
+ * <p>
+ * Documents are converted in batches, each one only if its price is still the string that was read. The migration
+ * selects the remaining string prices on every batch, so it can be interrupted and run again at any point: documents
+ * already converted are not touched again.
+ * <p>
+ * A price which cannot be read as a number is left as is, and its document is marked with a {@value #UNREADABLE_PRICE}
+ * field, for the batches to skip it and for the operators to find it.
+ */
+@ChangeUnit(id = "product-price-decimal128", order = "002", transactional = false)
+public class ProductPriceDecimal128Migration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductPriceDecimal128Migration.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final String PRICE = "price";
+
+    static final String UNREADABLE_PRICE = "unreadable_price";
+
+    private final MongoTemplate template;
+
+    public ProductPriceDecimal128Migration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void convertPrices() {
+        MongoCollection<Document> collection = template.getCollection(template.getCollectionName(Product.class));
+        Bson filter = Filters.and(Filters.type(PRICE, BsonType.STRING), Filters.exists(UNREADABLE_PRICE, false));
+        long converted = 0;
+        long unreadable = 0;
+        while (true) {
+            List<Document> batch = collection.find(filter).projection(Projections.include(PRICE)).limit(BATCH_SIZE).into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<WriteModel<Document>> updates = new ArrayList<>(batch.size());
+            for (Document document : batch) {
+                String price = document.getString(PRICE);
+                Bson unchanged = Filters.and(Filters.eq("_id", document.get("_id")), Filters.eq(PRICE, price));
+                try {
+                    updates.add(new UpdateOneModel<>(unchanged, Updates.set(PRICE, new Decimal128(new BigDecimal(price)))));
+                    converted++;
+                } catch (NumberFormatException e) {
+                    LOG.warn("Leaving product {} with unreadable price '{}' as is", document.get("_id"), price);
+                    updates.add(new UpdateOneModel<>(unchanged, Updates.set(UNREADABLE_PRICE, true)));
+                    unreadable++;
+                }
+            }
+            // A document whose price changed since it was read is selected again, unless no longer a string
+            collection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        }
+        LOG.info("Converted {} product prices to Decimal128, {} unreadable", converted, unreadable);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        // Every document is converted on its own, and prices are read back from both representations: only the marks go
+        MongoCollection<Document> collection = template.getCollection(template.getCollectionName(Product.class));
+        collection.updateMany(Filters.exists(UNREADABLE_PRICE), Updates.unset(UNREADABLE_PRICE));
+    }
+}
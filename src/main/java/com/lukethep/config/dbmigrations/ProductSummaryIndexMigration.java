@@ -0,0 +1,44 @@
+package com.lukethep.config.dbmigrations;
+
+import com.lukethep.domain.User;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Creates the index finding the owner of an embedded product summary, so that a product update or deletion does not scan
+ * the whole user collection. The index is sparse: users without summaries are left out of it.
+ */
+@ChangeUnit(id = "product-summary-index", order = "003", transactional = false)
+public class ProductSummaryIndexMigration {
+
+    static final String PRODUCT_SUMMARY_INDEX = "product_summaries_id";
+
+    private final MongoTemplate template;
+
+    public ProductSummaryIndexMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void createIndex() {
+        indexOperations().ensureIndex(new Index().on("product_summaries.id", Sort.Direction.ASC).named(PRODUCT_SUMMARY_INDEX).sparse());
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        IndexOperations indexOperations = indexOperations();
+        if (indexOperations.getIndexInfo().stream().map(IndexInfo::getName).anyMatch(PRODUCT_SUMMARY_INDEX::equals)) {
+            indexOperations.dropIndex(PRODUCT_SUMMARY_INDEX);
+        }
+    }
+
+    private IndexOperations indexOperations() {
+        return template.indexOps(template.getCollectionName(User.class));
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Mongock database migrations.
+ */
+package com.lukethep.config.dbmigrations;
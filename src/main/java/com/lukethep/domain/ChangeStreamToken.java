@@ -0,0 +1,75 @@
+package com.lukethep.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * The position reached in the change stream of a collection, to resume the stream from after a restart.
+ */
+@Document(collection = "change_stream_token")
+public class ChangeStreamToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // The name of the watched collection
+    @Id
+    private String id;
+
+    @Field("resume_token")
+    private org.bson.Document resumeToken;
+
+    @Field("saved_date")
+    private Instant savedDate;
+
+    public String getId() {
+        return this.id;
+    }
+
+    public ChangeStreamToken id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public org.bson.Document getResumeToken() {
+        return this.resumeToken;
+    }
+
+    public ChangeStreamToken resumeToken(org.bson.Document resumeToken) {
+        this.setResumeToken(resumeToken);
+        return this;
+    }
+
+    public void setResumeToken(org.bson.Document resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    public Instant getSavedDate() {
+        return this.savedDate;
+    }
+
+    public ChangeStreamToken savedDate(Instant savedDate) {
+        this.setSavedDate(savedDate);
+        return this;
+    }
+
+    public void setSavedDate(Instant savedDate) {
+        this.savedDate = savedDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ChangeStreamToken{" +
+            "id='" + getId() + "'" +
+            ", resumeToken=" + getResumeToken() +
+            ", savedDate=" + getSavedDate() +
+            "}";
+    }
+}
@@ -0,0 +1,140 @@
+package com.lukethep.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Aggregates over the products of an owner, maintained on every product write.
+ */
+@Document(collection = "owner_stats")
+public class OwnerStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // The id of the owner
+    @Id
+    private String id;
+
+    @Field("product_count")
+    private long productCount;
+
+    @Field("total_price")
+    private BigDecimal totalPrice;
+
+    @Field("min_price")
+    private BigDecimal minPrice;
+
+    @Field("max_price")
+    private BigDecimal maxPrice;
+
+    /**
+     * @param ownerId the id of an owner without products.
+     * @return the aggregates of an owner without products.
+     */
+    public static OwnerStats empty(String ownerId) {
+        return new OwnerStats().id(ownerId).productCount(0).totalPrice(BigDecimal.ZERO);
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public OwnerStats id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getProductCount() {
+        return this.productCount;
+    }
+
+    public OwnerStats productCount(long productCount) {
+        this.setProductCount(productCount);
+        return this;
+    }
+
+    public void setProductCount(long productCount) {
+        this.productCount = productCount;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return this.totalPrice;
+    }
+
+    public OwnerStats totalPrice(BigDecimal totalPrice) {
+        this.setTotalPrice(totalPrice);
+        return this;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public BigDecimal getMinPrice() {
+        return this.minPrice;
+    }
+
+    public OwnerStats minPrice(BigDecimal minPrice) {
+        this.setMinPrice(minPrice);
+        return this;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return this.maxPrice;
+    }
+
+    public OwnerStats maxPrice(BigDecimal maxPrice) {
+        this.setMaxPrice(maxPrice);
+        return this;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OwnerStats that)) {
+            return false;
+        }
+        return (
+            productCount == that.productCount &&
+            Objects.equals(id, that.id) &&
+            Objects.equals(totalPrice, that.totalPrice) &&
+            Objects.equals(minPrice, that.minPrice) &&
+            Objects.equals(maxPrice, that.maxPrice)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, productCount, totalPrice, minPrice, maxPrice);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "OwnerStats{" +
+            "id=" + getId() +
+            ", productCount=" + getProductCount() +
+            ", totalPrice=" + getTotalPrice() +
+            ", minPrice=" + getMinPrice() +
+            ", maxPrice=" + getMaxPrice() +
+            "}";
+    }
+}
@@ -1,10 +1,12 @@
 package com.lukethep.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -14,13 +16,18 @@ import org.springframework.data.mongodb.core.mapping.Field;
  */
 @Document(collection = "product")
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class Product implements Serializable {
+public class Product extends AbstractAuditingEntity<String> implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
     private String id;
 
+    @Version
+    @Field("version")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotNull
     @Field("name")
     private String name;
@@ -36,6 +43,7 @@ public class Product implements Serializable {
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
+    @Override
     public String getId() {
         return this.id;
     }
@@ -49,6 +57,19 @@ public class Product implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Product version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -103,8 +124,10 @@ public class Product implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // Transient instances share the class hash, persisted ones spread over their id so that large relationship sets
+        // stay O(1). The id must therefore not change while the entity is held in a hash-based collection.
+        String id = getId();
+        return id == null ? getClass().hashCode() : id.hashCode();
     }
 
     // prettier-ignore
@@ -112,6 +135,7 @@ public class Product implements Serializable {
     public String toString() {
         return "Product{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", price=" + getPrice() +
             "}";
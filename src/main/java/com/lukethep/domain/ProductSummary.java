@@ -0,0 +1,93 @@
+package com.lukethep.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * A copy of the main fields of a {@link Product}, embedded in the document of its owner.
+ */
+public class ProductSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Explicitly named, so that it is stored as "id" and not mapped to "_id"
+    @Field("id")
+    private String id;
+
+    @Field("name")
+    private String name;
+
+    @Field("price")
+    private BigDecimal price;
+
+    public static ProductSummary of(Product product) {
+        return new ProductSummary().id(product.getId()).name(product.getName()).price(product.getPrice());
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public ProductSummary id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public ProductSummary name(String name) {
+        this.setName(name);
+        return this;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return this.price;
+    }
+
+    public ProductSummary price(BigDecimal price) {
+        this.setPrice(price);
+        return this;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductSummary that)) {
+            return false;
+        }
+        return Objects.equals(id, that.id) && Objects.equals(name, that.name) && Objects.equals(price, that.price);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, price);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductSummary{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", price=" + getPrice() +
+            "}";
+    }
+}
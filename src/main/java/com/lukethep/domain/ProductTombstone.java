@@ -0,0 +1,77 @@
+package com.lukethep.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * The trace of a deleted {@link Product}, kept for the clients syncing the changes of the catalog to learn about the
+ * deletion, until it expires.
+ */
+@Document(collection = "product_tombstone")
+public class ProductTombstone implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // The id of the deleted product
+    @Id
+    private String id;
+
+    @Field("deleted_date")
+    private Instant deletedDate;
+
+    // Removed by a TTL index from then on
+    @Field("expire_date")
+    private Instant expireDate;
+
+    public String getId() {
+        return this.id;
+    }
+
+    public ProductTombstone id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getDeletedDate() {
+        return this.deletedDate;
+    }
+
+    public ProductTombstone deletedDate(Instant deletedDate) {
+        this.setDeletedDate(deletedDate);
+        return this;
+    }
+
+    public void setDeletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+
+    public Instant getExpireDate() {
+        return this.expireDate;
+    }
+
+    public ProductTombstone expireDate(Instant expireDate) {
+        this.setExpireDate(expireDate);
+        return this;
+    }
+
+    public void setExpireDate(Instant expireDate) {
+        this.expireDate = expireDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductTombstone{" +
+            "id='" + getId() + "'" +
+            ", deletedDate=" + getDeletedDate() +
+            ", expireDate=" + getExpireDate() +
+            "}";
+    }
+}
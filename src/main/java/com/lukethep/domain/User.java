@@ -1,11 +1,15 @@
 package com.lukethep.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -15,13 +19,18 @@ import org.springframework.data.mongodb.core.mapping.Field;
  */
 @Document(collection = "user")
 @SuppressWarnings("common-java:DuplicatedBlocks")
-public class User implements Serializable {
+public class User extends AbstractAuditingEntity<String> implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
     private String id;
 
+    @Version
+    @Field("version")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotNull
     @Field("name")
     private String name;
@@ -35,8 +44,14 @@ public class User implements Serializable {
     @JsonIgnoreProperties(value = { "owner" }, allowSetters = true)
     private Set<Product> products = new HashSet<>();
 
+    // Maintained on product writes, and only served by the summary view
+    @Field("product_summaries")
+    @JsonIgnore
+    private List<ProductSummary> productSummaries;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
+    @Override
     public String getId() {
         return this.id;
     }
@@ -50,6 +65,19 @@ public class User implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public User version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -107,6 +135,19 @@ public class User implements Serializable {
         return this;
     }
 
+    public List<ProductSummary> getProductSummaries() {
+        return this.productSummaries;
+    }
+
+    public User productSummaries(List<ProductSummary> productSummaries) {
+        this.setProductSummaries(productSummaries);
+        return this;
+    }
+
+    public void setProductSummaries(List<ProductSummary> productSummaries) {
+        this.productSummaries = productSummaries;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -122,8 +163,10 @@ public class User implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // Transient instances share the class hash, persisted ones spread over their id so that large relationship sets
+        // stay O(1). The id must therefore not change while the entity is held in a hash-based collection.
+        String id = getId();
+        return id == null ? getClass().hashCode() : id.hashCode();
     }
 
     // prettier-ignore
@@ -131,6 +174,7 @@ public class User implements Serializable {
     public String toString() {
         return "User{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", email='" + getEmail() + "'" +
             "}";
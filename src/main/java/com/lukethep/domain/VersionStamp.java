@@ -0,0 +1,12 @@
+package com.lukethep.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The validators of a stored document, read without loading the document itself.
+ *
+ * @param version the version of the document, {@code null} if it has never been versioned.
+ * @param lastModifiedDate the last modification date of the document, {@code null} if it has never been audited.
+ */
+public record VersionStamp(Long version, Instant lastModifiedDate) implements Serializable {}
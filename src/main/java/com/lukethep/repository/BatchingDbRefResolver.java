@@ -0,0 +1,238 @@
+package com.lukethep.repository;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * A {@link org.springframework.data.mongodb.core.convert.DbRefResolver} reading referenced documents through an
+ * identity map, so that a document referenced many times is only read once.
+ * <p>
+ * The identity map lives as long as the current HTTP request. Outside of a request, it only lives for the duration of a
+ * {@link #findAll(MongoOperations, Query, Class)} call, and the other reads go straight to the database.
+ * <p>
+ * {@link #findAll(MongoOperations, Query, Class)} reads a whole page before mapping it, and loads every document it
+ * references with one {@code $in} query per collection, then the documents these reference, and so on. Mapping the page
+ * then resolves all its references from the identity map, instead of issuing one query per reference.
+ * <p>
+ * Documents written during a request are not evicted from its identity map: a request reading back a document it has
+ * just modified through a reference sees the document as it was first read.
+ */
+public class BatchingDbRefResolver extends DefaultDbRefResolver {
+
+    private static final String IDENTITY_MAP_ATTRIBUTE = BatchingDbRefResolver.class.getName() + ".IDENTITY_MAP";
+
+    private static final ThreadLocal<Map<ReferenceKey, Document>> SCOPED_IDENTITY_MAP = new ThreadLocal<>();
+
+    public BatchingDbRefResolver(MongoDatabaseFactory mongoDbFactory) {
+        super(mongoDbFactory);
+    }
+
+    /**
+     * Read the entities matching the query, loading the documents they reference in batches.
+     *
+     * @param mongoOperations the operations to read the entities with.
+     * @param query the query, mapped against the entity class.
+     * @param entityClass the class of the entities.
+     * @param <T> the type of the entities.
+     * @return the matching entities.
+     */
+    public <T> List<T> findAll(MongoOperations mongoOperations, Query query, Class<T> entityClass) {
+        return withIdentityMap(() -> {
+            List<Document> documents = mongoOperations.query(entityClass).as(Document.class).matching(query).all();
+            // Whole documents can stand for the references to them, e.g. from a product back to its owner
+            prefetch(query.getFieldsObject().isEmpty() ? mongoOperations.getCollectionName(entityClass) : null, documents);
+            List<T> entities = new ArrayList<>(documents.size());
+            for (Document document : documents) {
+                entities.add(mongoOperations.getConverter().read(entityClass, document));
+            }
+            return entities;
+        });
+    }
+
+    @Override
+    public Document fetch(DBRef dbRef) {
+        Map<ReferenceKey, Document> identityMap = currentIdentityMap();
+        if (identityMap == null) {
+            return super.fetch(dbRef);
+        }
+        ReferenceKey key = ReferenceKey.of(dbRef);
+        if (!identityMap.containsKey(key)) {
+            identityMap.put(key, super.fetch(dbRef));
+        }
+        return identityMap.get(key);
+    }
+
+    @Override
+    public List<Document> bulkFetch(List<DBRef> dbRefs) {
+        Map<ReferenceKey, Document> identityMap = currentIdentityMap();
+        if (identityMap == null) {
+            return super.bulkFetch(dbRefs);
+        }
+        load(dbRefs, identityMap);
+        // Like the default resolver, leave out the references to missing documents
+        return dbRefs.stream().map(dbRef -> identityMap.get(ReferenceKey.of(dbRef))).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Load the documents referenced by the given documents into the current identity map, then the documents these
+     * reference, until every reachable reference is loaded.
+     *
+     * @param collectionName the collection of the given documents, to add them to the identity map; {@code null} if they
+     * are partial and must not be.
+     * @param documents the documents about to be mapped.
+     */
+    void prefetch(String collectionName, Collection<Document> documents) {
+        Map<ReferenceKey, Document> identityMap = currentIdentityMap();
+        if (identityMap == null) {
+            return;
+        }
+        if (collectionName != null) {
+            for (Document document : documents) {
+                identityMap.putIfAbsent(new ReferenceKey(null, collectionName, document.get("_id")), document);
+            }
+        }
+        Collection<Document> level = documents;
+        while (!level.isEmpty()) {
+            List<DBRef> references = new ArrayList<>();
+            level.forEach(document -> collectReferences(document.values(), references));
+            level = load(references, identityMap);
+        }
+    }
+
+    /**
+     * Run the given read with an identity map: the one of the current request, or else one discarded afterwards.
+     */
+    <T> T withIdentityMap(Supplier<T> read) {
+        if (currentIdentityMap() != null) {
+            return read.get();
+        }
+        return withScopedIdentityMap(new HashMap<>(), read);
+    }
+
+    /**
+     * Read the references missing from the identity map with one query per collection.
+     *
+     * @return the documents read.
+     */
+    private List<Document> load(Collection<DBRef> dbRefs, Map<ReferenceKey, Document> identityMap) {
+        Map<ReferenceKey, List<DBRef>> missing = missingByCollection(dbRefs, identityMap);
+        List<Document> loaded = new ArrayList<>();
+        missing.forEach((collection, references) -> {
+            List<Object> ids = references.stream().map(DBRef::getId).toList();
+            List<Document> documents = getCollection(references.get(0)).find(Filters.in("_id", ids)).into(new ArrayList<>());
+            for (Document document : documents) {
+                identityMap.put(collection.withId(document.get("_id")), document);
+            }
+            loaded.addAll(documents);
+        });
+        rememberMissing(missing, identityMap);
+        return loaded;
+    }
+
+    /**
+     * @return the references missing from the identity map, without duplicates, grouped by the key of their collection.
+     */
+    static Map<ReferenceKey, List<DBRef>> missingByCollection(Collection<DBRef> dbRefs, Map<ReferenceKey, Document> identityMap) {
+        Map<ReferenceKey, DBRef> missing = new LinkedHashMap<>();
+        for (DBRef dbRef : dbRefs) {
+            ReferenceKey key = ReferenceKey.of(dbRef);
+            if (!identityMap.containsKey(key)) {
+                missing.putIfAbsent(key, dbRef);
+            }
+        }
+        Map<ReferenceKey, List<DBRef>> byCollection = new LinkedHashMap<>();
+        missing.forEach((key, dbRef) -> byCollection.computeIfAbsent(key.collection(), k -> new ArrayList<>()).add(dbRef));
+        return byCollection;
+    }
+
+    /**
+     * Remember the references which have not been found once loaded, so that they are not looked for again.
+     */
+    static void rememberMissing(Map<ReferenceKey, List<DBRef>> loaded, Map<ReferenceKey, Document> identityMap) {
+        loaded.values().forEach(references -> references.forEach(dbRef -> identityMap.putIfAbsent(ReferenceKey.of(dbRef), null)));
+    }
+
+    /**
+     * Run the given read with the given identity map, whatever the current request.
+     */
+    static <T> T withScopedIdentityMap(Map<ReferenceKey, Document> identityMap, Supplier<T> read) {
+        Map<ReferenceKey, Document> previous = SCOPED_IDENTITY_MAP.get();
+        SCOPED_IDENTITY_MAP.set(identityMap);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                SCOPED_IDENTITY_MAP.remove();
+            } else {
+                SCOPED_IDENTITY_MAP.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the identity map of the current {@link #withScopedIdentityMap(Map, Supplier)} call, if any.
+     */
+    static Map<ReferenceKey, Document> scopedIdentityMap() {
+        return SCOPED_IDENTITY_MAP.get();
+    }
+
+    static void collectReferences(Collection<?> values, List<DBRef> references) {
+        for (Object value : values) {
+            if (value instanceof DBRef dbRef) {
+                references.add(dbRef);
+            } else if (value instanceof Collection<?> collection) {
+                collectReferences(collection, references);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<ReferenceKey, Document> currentIdentityMap() {
+        Map<ReferenceKey, Document> identityMap = SCOPED_IDENTITY_MAP.get();
+        if (identityMap != null) {
+            return identityMap;
+        }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        identityMap = (Map<ReferenceKey, Document>) requestAttributes.getAttribute(IDENTITY_MAP_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (identityMap == null) {
+            identityMap = new HashMap<>();
+            requestAttributes.setAttribute(IDENTITY_MAP_ATTRIBUTE, identityMap, RequestAttributes.SCOPE_REQUEST);
+        }
+        return identityMap;
+    }
+
+    /**
+     * The key of a referenced document; without an id, the key of a whole collection.
+     */
+    record ReferenceKey(String databaseName, String collectionName, Object id) {
+        static ReferenceKey of(DBRef dbRef) {
+            return new ReferenceKey(dbRef.getDatabaseName(), dbRef.getCollectionName(), dbRef.getId());
+        }
+
+        ReferenceKey collection() {
+            return new ReferenceKey(databaseName, collectionName, null);
+        }
+
+        ReferenceKey withId(Object id) {
+            return new ReferenceKey(databaseName, collectionName, id);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.OwnerStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB repository for the OwnerStats entity.
+ */
+@Repository
+public interface OwnerStatsRepository extends MongoRepository<OwnerStats, String>, OwnerStatsRepositoryCustom {}
@@ -0,0 +1,34 @@
+package com.lukethep.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Custom operations of {@link OwnerStatsRepository}, written against the {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ */
+public interface OwnerStatsRepositoryCustom {
+    /**
+     * Atomically fold new products of an owner into its aggregates, creating them if needed.
+     *
+     * @param ownerId the id of the owner.
+     * @param count the number of products.
+     * @param totalPrice the sum of their prices.
+     * @param minPrice the lowest of their prices.
+     * @param maxPrice the highest of their prices.
+     */
+    void addProducts(String ownerId, long count, BigDecimal totalPrice, BigDecimal minPrice, BigDecimal maxPrice);
+
+    /**
+     * Atomically take a product out of the aggregates of its former owner, then read the lowest and highest prices of its
+     * remaining products back from the product collection.
+     *
+     * @param ownerId the id of the former owner.
+     * @param price the price the product had.
+     */
+    void removeProduct(String ownerId, BigDecimal price);
+
+    /**
+     * Recompute the aggregates of all the existing owners from the product collection, and replace the stored ones but
+     * those written since shortly before the rebuild started.
+     */
+    void rebuild();
+}
@@ -0,0 +1,143 @@
+package com.lukethep.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.OwnerStats;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Implementation of {@link OwnerStatsRepositoryCustom}.
+ * <p>
+ * Adding products is a single upsert with {@code $inc}, {@code $min} and {@code $max}. Removing one cannot be expressed
+ * that way for the lowest and highest prices, which are read back from the products of the owner instead: two
+ * single-entry scans of the {@code owner_price_id} index. A write interleaved between this read and the update can
+ * leave them stale; {@link #rebuild()} corrects such drift.
+ * <p>
+ * Each write stamps the aggregates of the owner with the time of the write. The rebuild merges the recomputed
+ * aggregates owner by owner, and leaves alone those written within {@link #CONCURRENT_WRITES_MARGIN} of its start: the
+ * writes in flight while the products were read would otherwise be lost, or counted twice. Their drift is corrected by
+ * the next rebuild.
+ * <p>
+ * Only the numeric prices are read back or rebuilt from: the legacy prices left as strings by the migration to
+ * {@code Decimal128} sort above all the numbers.
+ */
+public class OwnerStatsRepositoryCustomImpl implements OwnerStatsRepositoryCustom {
+
+    /**
+     * How long a transaction writing products may run: Mongo aborts the transactions older than a minute by default.
+     */
+    static final Duration CONCURRENT_WRITES_MARGIN = Duration.ofMinutes(1);
+
+    private static final String LAST_MODIFIED_DATE = "last_modified_date";
+
+    private static final String REBUILT_DATE = "rebuilt_date";
+
+    private final MongoTemplate mongoTemplate;
+
+    public OwnerStatsRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void addProducts(String ownerId, long count, BigDecimal totalPrice, BigDecimal minPrice, BigDecimal maxPrice) {
+        Update update = new Update()
+            .inc("productCount", count)
+            .inc("totalPrice", totalPrice)
+            .min("minPrice", minPrice)
+            .max("maxPrice", maxPrice)
+            .set(LAST_MODIFIED_DATE, Instant.now());
+        mongoTemplate.upsert(Query.query(where("id").is(ownerId)), update, OwnerStats.class);
+    }
+
+    @Override
+    public void removeProduct(String ownerId, BigDecimal price) {
+        Query query = Query.query(where("id").is(ownerId));
+        Update update = new Update().inc("productCount", -1).inc("totalPrice", price.negate()).set(LAST_MODIFIED_DATE, Instant.now());
+        mongoTemplate.updateFirst(query, update, OwnerStats.class);
+        Object minPrice = ownerPrice(ownerId, Sort.Direction.ASC);
+        if (minPrice == null) {
+            // The owner has no product left
+            mongoTemplate.remove(Query.query(where("id").is(ownerId).and("productCount").lte(0)), OwnerStats.class);
+            return;
+        }
+        Object maxPrice = ownerPrice(ownerId, Sort.Direction.DESC);
+        mongoTemplate.updateFirst(query, new Update().set("minPrice", minPrice).set("maxPrice", maxPrice), OwnerStats.class);
+    }
+
+    @Override
+    public void rebuild() {
+        Date started = Date.from(Instant.now());
+        Date recent = Date.from(started.toInstant().minus(CONCURRENT_WRITES_MARGIN));
+        String collectionName = mongoTemplate.getCollectionName(OwnerStats.class);
+        // Owners are DBRefs, whose "$id" field can only be read with $getField
+        Document ownerId = new Document("$getField", new Document("field", new Document("$literal", "$id")).append("input", "$owner"));
+        Document keepRecent = new Document(
+            "$cond",
+            List.of(
+                new Document("$gte", List.of("$" + LAST_MODIFIED_DATE, recent)),
+                new Document("$mergeObjects", List.of("$$ROOT", new Document(REBUILT_DATE, started))),
+                "$$new"
+            )
+        );
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("owner", new Document("$type", "object")).append("price", new Document("$type", "number"))),
+            new Document(
+                "$group",
+                new Document("_id", ownerId)
+                    .append("product_count", new Document("$sum", 1L))
+                    .append("total_price", new Document("$sum", "$price"))
+                    .append("min_price", new Document("$min", "$price"))
+                    .append("max_price", new Document("$max", "$price"))
+            ),
+            // Skips the owners which no longer exist
+            new Document(
+                "$lookup",
+                new Document("from", mongoTemplate.getCollectionName(User.class))
+                    .append("localField", "_id")
+                    .append("foreignField", "_id")
+                    .append("pipeline", List.of(new Document("$project", new Document("_id", 1))))
+                    .append("as", "owner")
+            ),
+            new Document("$match", new Document("owner", new Document("$ne", List.of()))),
+            new Document("$unset", "owner"),
+            new Document("$set", new Document(REBUILT_DATE, started)),
+            new Document(
+                "$merge",
+                new Document("into", collectionName)
+                    .append("whenMatched", List.of(new Document("$replaceWith", keepRecent)))
+                    .append("whenNotMatched", "insert")
+            )
+        );
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).aggregate(pipeline).toCollection();
+        // The aggregates of the owners left without products or deleted, unless written since
+        Query stale = Query.query(where(REBUILT_DATE).ne(started).and(LAST_MODIFIED_DATE).not().gte(recent));
+        mongoTemplate.remove(stale, collectionName);
+    }
+
+    /**
+     * @return the lowest or highest numeric price of the products of an owner, as stored, or {@code null} if it has none.
+     */
+    private Object ownerPrice(String ownerId, Sort.Direction direction) {
+        // Owners are DBRefs, whose ids are stored as ObjectIds and not mapped by the query mapper
+        Object id = ObjectId.isValid(ownerId) ? new ObjectId(ownerId) : ownerId;
+        Query query = Query.query(where("owner.$id").is(id).and("price").type(JsonSchemaObject.Type.NUMBER))
+            .with(Sort.by(direction, "price"))
+            .limit(1);
+        query.fields().include("price").exclude("id");
+        Document product = mongoTemplate.query(Product.class).as(Document.class).matching(query).firstValue();
+        return product == null ? null : product.get("price");
+    }
+}
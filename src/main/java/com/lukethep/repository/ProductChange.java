@@ -0,0 +1,28 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.Product;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * The outcome of a write on a product: the product as stored afterwards, and the owner and price it had before.
+ *
+ * @param product the product after the write, or {@code null} if it has been deleted.
+ * @param previousOwnerId the id of the owner before the write, or {@code null} if the product had none.
+ * @param previousPrice the price before the write.
+ */
+public record ProductChange(Product product, String previousOwnerId, BigDecimal previousPrice) implements Serializable {
+    /**
+     * @return the id of the owner after the write, or {@code null} if the product has none or has been deleted.
+     */
+    public String ownerId() {
+        return product == null || product.getOwner() == null ? null : product.getOwner().getId();
+    }
+
+    /**
+     * @return the price after the write, or {@code null} if the product has been deleted.
+     */
+    public BigDecimal price() {
+        return product == null ? null : product.getPrice();
+    }
+}
@@ -8,4 +8,4 @@ import org.springframework.stereotype.Repository;
  * Spring Data MongoDB repository for the Product entity.
  */
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {}
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {}
@@ -0,0 +1,101 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.VersionStamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Custom operations of {@link ProductRepository}, written against the {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ */
+public interface ProductRepositoryCustom {
+    /**
+     * Read all the products, resolving their references in batches.
+     *
+     * @return the products.
+     * @see BatchingDbRefResolver
+     */
+    List<Product> findAll();
+
+    /**
+     * Read the products matching the query, resolving their references in batches.
+     *
+     * @param query the query, on the properties of {@link Product}.
+     * @return the products.
+     * @see BatchingDbRefResolver
+     */
+    List<Product> findAll(Query query);
+
+    /**
+     * Read a page of the products of an owner, ordered by id, through the {@code (owner, _id)} index.
+     * <p>
+     * The owner itself is not read: it is the user the caller asked for, and resolving it would also resolve all of its
+     * products.
+     *
+     * @param ownerId the id of the owner.
+     * @param afterId the id of the last product of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of products to read.
+     * @return the products, without their owner.
+     */
+    List<Product> findPageByOwner(String ownerId, String afterId, int limit);
+
+    /**
+     * Read a product with only the given fields.
+     *
+     * @param id the id of the product.
+     * @param fields the properties to read; references among them are resolved, the other properties are left unset.
+     * @return the product, or empty if no product has this id.
+     */
+    Optional<Product> findProjectedById(String id, Collection<String> fields);
+
+    /**
+     * Read the version and last modification date of a product, without loading nor mapping the product itself.
+     *
+     * @param id the id of the product.
+     * @return the stamp of the product, or empty if no product has this id.
+     */
+    Optional<VersionStamp> findVersionStampById(String id);
+
+    /**
+     * Atomically replace the fields of the stored document with those of the given product, and bump its version.
+     *
+     * @param product the product holding the id of the document to update and its new fields.
+     * @param expectedVersion the version the document must be at, or {@code null} to update it whatever its version.
+     * @return the updated product with its previous owner and price, or empty if no product has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the document is not at the expected version.
+     */
+    Optional<ProductChange> update(Product product, Long expectedVersion);
+
+    /**
+     * Atomically set the non-null fields of the given product on the stored document, in a single round trip.
+     *
+     * @param product the product holding the id of the document to update and the fields to set.
+     * @param expectedVersion the version the document must be at, or {@code null} to update it whatever its version.
+     * @return the updated product with its previous owner and price, or empty if no product has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the document is not at the expected version.
+     */
+    Optional<ProductChange> partialUpdate(Product product, Long expectedVersion);
+
+    /**
+     * Atomically delete a product, reading its owner and price in the same operation.
+     *
+     * @param id the id of the product.
+     * @return the owner and price of the deleted product, or empty if no product has this id.
+     */
+    Optional<ProductChange> findAndDeleteById(String id);
+
+    /**
+     * Replace the documents of existing products with one bulk write, reading their former owners and prices with one
+     * query beforehand.
+     * <p>
+     * The products are written as they are, version and auditing fields included. Products without a document, e.g.
+     * deleted since, are skipped rather than written again, and so are the products whose document is already at their
+     * version or later, or changes between the read and the write: they have been written by someone else meanwhile.
+     *
+     * @param products the products to write.
+     * @return the changes of the products which have been written.
+     */
+    List<ProductChange> replaceAll(Collection<Product> products);
+}
@@ -0,0 +1,268 @@
+package com.lukethep.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.domain.VersionStamp;
+import com.mongodb.DBRef;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Implementation of {@link ProductRepositoryCustom}.
+ * <p>
+ * Each update is a single conditional {@code findAndModify}: the existence check, the version check and the write
+ * happen in one operation on the server, which also returns the owner and price the product had before. The updated
+ * product is returned with its owner as a reference holding only its id, which is not resolved: the owner of a product
+ * is read from the user cache.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final AuditorAware<String> auditorAware;
+
+    private final BatchingDbRefResolver batchingDbRefResolver;
+
+    public ProductRepositoryCustomImpl(
+        MongoTemplate mongoTemplate,
+        AuditorAware<String> auditorAware,
+        BatchingDbRefResolver batchingDbRefResolver
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.auditorAware = auditorAware;
+        this.batchingDbRefResolver = batchingDbRefResolver;
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return findAll(new Query());
+    }
+
+    @Override
+    public List<Product> findAll(Query query) {
+        return batchingDbRefResolver.findAll(mongoTemplate, query, Product.class);
+    }
+
+    @Override
+    public List<Product> findPageByOwner(String ownerId, String afterId, int limit) {
+        // Owners are DBRefs, whose ids are stored as ObjectIds and not mapped by the query mapper
+        Criteria criteria = where("owner.$id").is(ObjectId.isValid(ownerId) ? new ObjectId(ownerId) : ownerId);
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(afterId);
+        }
+        Query query = Query.query(criteria).with(Sort.by("id")).limit(limit);
+        query.fields().exclude("owner");
+        return findAll(query);
+    }
+
+    @Override
+    public Optional<Product> findProjectedById(String id, Collection<String> fields) {
+        Query query = Query.query(where("id").is(id));
+        query.fields().include(fields.toArray(String[]::new));
+        return Optional.ofNullable(mongoTemplate.findOne(query, Product.class));
+    }
+
+    @Override
+    public Optional<VersionStamp> findVersionStampById(String id) {
+        Query query = Query.query(where("id").is(id));
+        query.fields().include("version", "lastModifiedDate");
+        // Read as a raw document, so that fields missing from older documents stay null
+        Document document = mongoTemplate.query(Product.class).as(Document.class).matching(query).oneValue();
+        if (document == null) {
+            return Optional.empty();
+        }
+        Number version = document.get("version", Number.class);
+        Date lastModifiedDate = document.getDate("last_modified_date");
+        return Optional.of(
+            new VersionStamp(version == null ? null : version.longValue(), lastModifiedDate == null ? null : lastModifiedDate.toInstant())
+        );
+    }
+
+    @Override
+    public Optional<ProductChange> update(Product product, Long expectedVersion) {
+        Update update = new Update().set("name", product.getName()).set("price", product.getPrice());
+        if (product.getOwner() != null) {
+            update.set("owner", product.getOwner());
+        } else {
+            update.unset("owner");
+        }
+        return findAndModify(product.getId(), expectedVersion, update);
+    }
+
+    @Override
+    public Optional<ProductChange> partialUpdate(Product product, Long expectedVersion) {
+        Update update = new Update();
+        if (product.getName() != null) {
+            update.set("name", product.getName());
+        }
+        if (product.getPrice() != null) {
+            update.set("price", product.getPrice());
+        }
+        return findAndModify(product.getId(), expectedVersion, update);
+    }
+
+    @Override
+    public Optional<ProductChange> findAndDeleteById(String id) {
+        Query query = Query.query(where("id").is(id));
+        query.fields().include("owner", "price");
+        Document deleted = mongoTemplate.findAndRemove(query, Document.class, mongoTemplate.getCollectionName(Product.class));
+        return Optional.ofNullable(deleted).map(document -> new ProductChange(null, ownerId(document), price(document)));
+    }
+
+    @Override
+    public List<ProductChange> replaceAll(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        String collectionName = mongoTemplate.getCollectionName(Product.class);
+        Query query = Query.query(where("id").in(products.stream().map(Product::getId).toList()));
+        query.fields().include("owner", "price", "version");
+        Map<String, Document> before = mongoTemplate
+            .find(query, Document.class, collectionName)
+            .stream()
+            .collect(Collectors.toMap(document -> String.valueOf(document.get("_id")), Function.identity()));
+
+        // Written as raw documents, so that the auditing callbacks keep the fields of the products
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, collectionName);
+        List<ProductChange> changes = new ArrayList<>(before.size());
+        for (Product product : products) {
+            Document previous = before.get(product.getId());
+            if (previous == null || !isOlder(previous, product)) {
+                continue;
+            }
+            Document document = new Document();
+            mongoTemplate.getConverter().write(product, document);
+            // Only replaces the document as it has just been read
+            operations.replaceOne(Query.query(where("_id").is(document.get("_id")).and("version").is(previous.get("version"))), document);
+            changes.add(new ProductChange(product, ownerId(previous), price(previous)));
+        }
+        if (changes.isEmpty() || operations.execute().getMatchedCount() == changes.size()) {
+            return changes;
+        }
+        // Tell the products written from those changed in between, which are rare
+        Query written = Query.query(where("id").in(changes.stream().map(change -> change.product().getId()).toList()));
+        written.fields().include("version");
+        Map<String, Object> versions = new HashMap<>();
+        mongoTemplate
+            .find(written, Document.class, collectionName)
+            .forEach(document -> versions.put(String.valueOf(document.get("_id")), document.get("version")));
+        return changes.stream().filter(change -> isAtVersion(versions.get(change.product().getId()), change.product())).toList();
+    }
+
+    private static boolean isOlder(Document document, Product product) {
+        return (
+            !(document.get("version") instanceof Number version) || product.getVersion() == null || version.longValue() < product.getVersion()
+        );
+    }
+
+    private static boolean isAtVersion(Object version, Product product) {
+        if (version instanceof Number number) {
+            return Long.valueOf(number.longValue()).equals(product.getVersion());
+        }
+        return product.getVersion() == null;
+    }
+
+    private Optional<ProductChange> findAndModify(String id, Long expectedVersion, Update update) {
+        Criteria criteria = where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        Query query = Query.query(criteria);
+        ProductChange result;
+        if (update.getUpdateObject().isEmpty()) {
+            Document document = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(Product.class));
+            result = document == null ? null : new ProductChange(read(document), ownerId(document), price(document));
+        } else {
+            // Template updates bypass the auditing callbacks
+            update
+                .inc("version", 1)
+                .set("lastModifiedDate", Instant.now())
+                .set("lastModifiedBy", auditorAware.getCurrentAuditor().orElse(null));
+            result = findAndModify(query, update);
+        }
+        // Only a miss needs a second look, to tell a stale version from a missing document
+        if (result == null && expectedVersion != null && mongoTemplate.exists(Query.query(where("id").is(id)), Product.class)) {
+            throw new OptimisticLockingFailureException("Product " + id + " is not at version " + expectedVersion);
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Apply the update and return the document both before and after it, in a single operation.
+     * <p>
+     * The server returns the document as it was before the update, and the update is replayed on it here. This only
+     * supports the top-level {@code $set}, {@code $unset} and {@code $inc} the updates above are made of.
+     */
+    private ProductChange findAndModify(Query query, Update update) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(Product.class);
+        Document mappedQuery = new QueryMapper(converter).getMappedObject(query.getQueryObject(), entity);
+        Document mappedUpdate = new UpdateMapper(converter).getMappedObject(update.getUpdateObject(), entity);
+        Document before = mongoTemplate.execute(Product.class, collection -> collection.findOneAndUpdate(mappedQuery, mappedUpdate));
+        if (before == null) {
+            return null;
+        }
+        Document after = new Document(before);
+        mappedUpdate.get("$set", Document.class).forEach(after::put);
+        Document unset = mappedUpdate.get("$unset", Document.class);
+        if (unset != null) {
+            unset.keySet().forEach(after::remove);
+        }
+        mappedUpdate
+            .get("$inc", Document.class)
+            .forEach((key, increment) ->
+                after.put(key, ((Number) after.getOrDefault(key, 0L)).longValue() + ((Number) increment).longValue())
+            );
+        return new ProductChange(read(after), ownerId(before), price(before));
+    }
+
+    /**
+     * Map a product document, with its owner as a reference holding only its id: resolving the reference would also read
+     * all the products of the owner.
+     */
+    private Product read(Document document) {
+        Document withoutOwner = new Document(document);
+        withoutOwner.remove("owner");
+        String ownerId = ownerId(document);
+        return mongoTemplate.getConverter().read(Product.class, withoutOwner).owner(ownerId == null ? null : new User().id(ownerId));
+    }
+
+    private static String ownerId(Document document) {
+        return document.get("owner") instanceof DBRef owner ? String.valueOf(owner.getId()) : null;
+    }
+
+    private static BigDecimal price(Document document) {
+        Object price = document.get("price");
+        if (price instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return price == null ? null : new BigDecimal(price.toString());
+    }
+}
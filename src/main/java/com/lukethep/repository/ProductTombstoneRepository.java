@@ -0,0 +1,11 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.ProductTombstone;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB repository for the ProductTombstone entity.
+ */
+@Repository
+public interface ProductTombstoneRepository extends MongoRepository<ProductTombstone, String> {}
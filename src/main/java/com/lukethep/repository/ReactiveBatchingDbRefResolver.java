@@ -0,0 +1,164 @@
+package com.lukethep.repository;
+
+import com.lukethep.repository.BatchingDbRefResolver.ReferenceKey;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link org.springframework.data.mongodb.core.convert.DbRefResolver} for the reactive Mongo driver, resolving
+ * references the way {@link BatchingDbRefResolver} does, without blocking.
+ * <p>
+ * The converter resolves references synchronously, so they cannot be read while mapping.
+ * {@link #findAll(ReactiveMongoOperations, Query, Class)} instead reads the documents in batches, then reads the documents
+ * each batch references, reactively, with one {@code $in} query per collection and level, and only then maps the batch
+ * from an identity map of its own. An identity map only lives for one batch, so that streaming a whole collection does
+ * not keep it in memory.
+ * <p>
+ * References are only resolved within these reads: mapping an entity with references anywhere else fails, like with the
+ * default reactive converter, rather than blocking a thread of the driver.
+ */
+public class ReactiveBatchingDbRefResolver extends DefaultDbRefResolver {
+
+    private final ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory;
+
+    private final int batchSize;
+
+    /**
+     * @param mongoDbFactory the factory of the synchronous driver, which is never queried.
+     * @param reactiveMongoDatabaseFactory the factory the references are read with.
+     * @param batchSize the number of documents mapped together.
+     */
+    public ReactiveBatchingDbRefResolver(
+        MongoDatabaseFactory mongoDbFactory,
+        ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+        int batchSize
+    ) {
+        super(mongoDbFactory);
+        this.reactiveMongoDatabaseFactory = reactiveMongoDatabaseFactory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Read the entities matching the query, loading the documents they reference in batches.
+     * <p>
+     * Only one batch is read ahead of the demand of the subscriber.
+     *
+     * @param reactiveMongoOperations the operations to read the entities with.
+     * @param query the query, mapped against the entity class.
+     * @param entityClass the class of the entities.
+     * @param <T> the type of the entities.
+     * @return the matching entities.
+     */
+    public <T> Flux<T> findAll(ReactiveMongoOperations reactiveMongoOperations, Query query, Class<T> entityClass) {
+        // Whole documents can stand for the references to them, e.g. from a product back to its owner
+        String collectionName = query.getFieldsObject().isEmpty() ? reactiveMongoOperations.getCollectionName(entityClass) : null;
+        MongoConverter converter = reactiveMongoOperations.getConverter();
+        return reactiveMongoOperations
+            .query(entityClass)
+            .as(Document.class)
+            .matching(query)
+            .all()
+            .buffer(batchSize)
+            .concatMap(
+                documents -> {
+                    Map<ReferenceKey, Document> identityMap = new HashMap<>();
+                    if (collectionName != null) {
+                        for (Document document : documents) {
+                            identityMap.putIfAbsent(new ReferenceKey(null, collectionName, document.get("_id")), document);
+                        }
+                    }
+                    return prefetch(documents, identityMap).thenMany(
+                        Flux.defer(() ->
+                            Flux.fromIterable(
+                                BatchingDbRefResolver.withScopedIdentityMap(identityMap, () -> read(converter, entityClass, documents))
+                            )
+                        )
+                    );
+                },
+                1
+            );
+    }
+
+    @Override
+    public Document fetch(DBRef dbRef) {
+        return requireScopedIdentityMap().get(ReferenceKey.of(dbRef));
+    }
+
+    @Override
+    public List<Document> bulkFetch(List<DBRef> dbRefs) {
+        Map<ReferenceKey, Document> identityMap = requireScopedIdentityMap();
+        // Like the default resolver, leave out the references to missing documents
+        return dbRefs.stream().map(dbRef -> identityMap.get(ReferenceKey.of(dbRef))).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Load the documents referenced by the given documents into the identity map, then the documents these reference,
+     * until every reachable reference is loaded.
+     */
+    private Mono<Void> prefetch(Collection<Document> level, Map<ReferenceKey, Document> identityMap) {
+        List<DBRef> references = new ArrayList<>();
+        level.forEach(document -> BatchingDbRefResolver.collectReferences(document.values(), references));
+        Map<ReferenceKey, List<DBRef>> missing = BatchingDbRefResolver.missingByCollection(references, identityMap);
+        if (missing.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(missing.entrySet())
+            .concatMap(entry ->
+                find(entry.getValue().get(0), entry.getValue().stream().map(DBRef::getId).toList()).doOnNext(document ->
+                    identityMap.put(entry.getKey().withId(document.get("_id")), document)
+                )
+            )
+            .collectList()
+            .flatMap(loaded -> {
+                BatchingDbRefResolver.rememberMissing(missing, identityMap);
+                return prefetch(loaded, identityMap);
+            });
+    }
+
+    /**
+     * Read the documents with the given ids from the collection of a reference.
+     *
+     * @param dbRef a reference to the collection to read from.
+     * @param ids the ids of the documents.
+     * @return the documents found.
+     */
+    protected Flux<Document> find(DBRef dbRef, List<Object> ids) {
+        Mono<MongoDatabase> database = StringUtils.hasText(dbRef.getDatabaseName())
+            ? reactiveMongoDatabaseFactory.getMongoDatabase(dbRef.getDatabaseName())
+            : reactiveMongoDatabaseFactory.getMongoDatabase();
+        return database.flatMapMany(mongoDatabase -> mongoDatabase.getCollection(dbRef.getCollectionName()).find(Filters.in("_id", ids)));
+    }
+
+    private static <T> List<T> read(MongoConverter converter, Class<T> entityClass, List<Document> documents) {
+        List<T> entities = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            entities.add(converter.read(entityClass, document));
+        }
+        return entities;
+    }
+
+    private static Map<ReferenceKey, Document> requireScopedIdentityMap() {
+        Map<ReferenceKey, Document> identityMap = BatchingDbRefResolver.scopedIdentityMap();
+        if (identityMap == null) {
+            throw new UnsupportedOperationException("References are only resolved by ReactiveBatchingDbRefResolver.findAll");
+        }
+        return identityMap;
+    }
+}
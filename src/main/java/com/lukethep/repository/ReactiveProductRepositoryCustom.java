@@ -0,0 +1,39 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom operations of {@link ReactiveProductRepository}, written against the
+ * {@link org.springframework.data.mongodb.core.ReactiveMongoTemplate}.
+ * <p>
+ * These are the only operations of the repository, so that references are always resolved without blocking.
+ */
+public interface ReactiveProductRepositoryCustom {
+    /**
+     * Read all the products, resolving their references in batches.
+     *
+     * @return the products.
+     * @see ReactiveBatchingDbRefResolver
+     */
+    Flux<Product> findAll();
+
+    /**
+     * Read a product, resolving its references.
+     *
+     * @param id the id of the product.
+     * @return the product, or empty if no product has this id.
+     */
+    Mono<Product> findById(String id);
+
+    /**
+     * Read a page of products ordered by id, resolving their references in batches.
+     *
+     * @param afterId the id of the last product of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of products to read.
+     * @return the products.
+     * @see ReactiveBatchingDbRefResolver
+     */
+    Flux<Product> findPage(String afterId, int limit);
+}
@@ -0,0 +1,44 @@
+package com.lukethep.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of {@link ReactiveProductRepositoryCustom}.
+ */
+public class ReactiveProductRepositoryCustomImpl implements ReactiveProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ReactiveBatchingDbRefResolver reactiveBatchingDbRefResolver;
+
+    public ReactiveProductRepositoryCustomImpl(
+        ReactiveMongoTemplate reactiveMongoTemplate,
+        ReactiveBatchingDbRefResolver reactiveBatchingDbRefResolver
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.reactiveBatchingDbRefResolver = reactiveBatchingDbRefResolver;
+    }
+
+    @Override
+    public Flux<Product> findAll() {
+        return reactiveBatchingDbRefResolver.findAll(reactiveMongoTemplate, new Query().with(Sort.by("id")), Product.class);
+    }
+
+    @Override
+    public Mono<Product> findById(String id) {
+        return reactiveBatchingDbRefResolver.findAll(reactiveMongoTemplate, Query.query(where("id").is(id)), Product.class).next();
+    }
+
+    @Override
+    public Flux<Product> findPage(String afterId, int limit) {
+        Query query = afterId == null ? new Query() : Query.query(where("id").gt(afterId));
+        return reactiveBatchingDbRefResolver.findAll(reactiveMongoTemplate, query.with(Sort.by("id")).limit(limit), Product.class);
+    }
+}
@@ -0,0 +1,14 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.User;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB reactive repository for the User entity, only enabled with {@code application.reactive.enabled}.
+ * <p>
+ * It only has the reads of {@link ReactiveUserRepositoryCustom}: the operations a {@code ReactiveMongoRepository} would
+ * inherit map entities without resolving their references, which fails outside of these reads.
+ */
+@Repository
+public interface ReactiveUserRepository
+    extends org.springframework.data.repository.Repository<User, String>, ReactiveUserRepositoryCustom {}
@@ -0,0 +1,39 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom operations of {@link ReactiveUserRepository}, written against the
+ * {@link org.springframework.data.mongodb.core.ReactiveMongoTemplate}.
+ * <p>
+ * These are the only operations of the repository, so that references are always resolved without blocking.
+ */
+public interface ReactiveUserRepositoryCustom {
+    /**
+     * Read all the users, resolving their references in batches.
+     *
+     * @return the users.
+     * @see ReactiveBatchingDbRefResolver
+     */
+    Flux<User> findAll();
+
+    /**
+     * Read a user, resolving its references.
+     *
+     * @param id the id of the user.
+     * @return the user, or empty if no user has this id.
+     */
+    Mono<User> findById(String id);
+
+    /**
+     * Read a page of users ordered by id, resolving their references in batches.
+     *
+     * @param afterId the id of the last user of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of users to read.
+     * @return the users.
+     * @see ReactiveBatchingDbRefResolver
+     */
+    Flux<User> findPage(String afterId, int limit);
+}
@@ -0,0 +1,44 @@
+package com.lukethep.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of {@link ReactiveUserRepositoryCustom}.
+ */
+public class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ReactiveBatchingDbRefResolver reactiveBatchingDbRefResolver;
+
+    public ReactiveUserRepositoryCustomImpl(
+        ReactiveMongoTemplate reactiveMongoTemplate,
+        ReactiveBatchingDbRefResolver reactiveBatchingDbRefResolver
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.reactiveBatchingDbRefResolver = reactiveBatchingDbRefResolver;
+    }
+
+    @Override
+    public Flux<User> findAll() {
+        return reactiveBatchingDbRefResolver.findAll(reactiveMongoTemplate, new Query().with(Sort.by("id")), User.class);
+    }
+
+    @Override
+    public Mono<User> findById(String id) {
+        return reactiveBatchingDbRefResolver.findAll(reactiveMongoTemplate, Query.query(where("id").is(id)), User.class).next();
+    }
+
+    @Override
+    public Flux<User> findPage(String afterId, int limit) {
+        Query query = afterId == null ? new Query() : Query.query(where("id").gt(afterId));
+        return reactiveBatchingDbRefResolver.findAll(reactiveMongoTemplate, query.with(Sort.by("id")).limit(limit), User.class);
+    }
+}
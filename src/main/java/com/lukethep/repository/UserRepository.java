@@ -8,4 +8,4 @@ import org.springframework.stereotype.Repository;
  * Spring Data MongoDB repository for the User entity.
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {}
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {}
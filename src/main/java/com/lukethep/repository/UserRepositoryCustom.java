@@ -0,0 +1,112 @@
+package com.lukethep.repository;
+
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import com.lukethep.domain.VersionStamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom operations of {@link UserRepository}, written against the {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ */
+public interface UserRepositoryCustom {
+    /**
+     * Read all the users, resolving their references in batches.
+     *
+     * @return the users.
+     * @see BatchingDbRefResolver
+     */
+    List<User> findAll();
+
+    /**
+     * Read a page of users ordered by id, resolving their references in batches.
+     *
+     * @param afterId the id of the last user of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of users to read.
+     * @return the users.
+     * @see BatchingDbRefResolver
+     */
+    List<User> findPage(String afterId, int limit);
+
+    /**
+     * Read a page of users ordered by id, with only the given fields.
+     *
+     * @param afterId the id of the last user of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of users to read.
+     * @param fields the properties to read; references among them are resolved, the other properties are left unset.
+     * @return the users.
+     */
+    List<User> findProjectedPage(String afterId, int limit, Collection<String> fields);
+
+    /**
+     * Read a user with only the given fields.
+     *
+     * @param id the id of the user.
+     * @param fields the properties to read; references among them are resolved, the other properties are left unset.
+     * @return the user, or empty if no user has this id.
+     */
+    Optional<User> findProjectedById(String id, Collection<String> fields);
+
+    /**
+     * Read a user with its products as references holding only their id, which are not resolved.
+     *
+     * @param id the id of the user.
+     * @return the user, or empty if no user has this id.
+     */
+    Optional<User> findWithProductIdsById(String id);
+
+    /**
+     * Read the version and last modification date of a user, without loading nor mapping the user itself.
+     *
+     * @param id the id of the user.
+     * @return the stamp of the user, or empty if no user has this id.
+     */
+    Optional<VersionStamp> findVersionStampById(String id);
+
+    /**
+     * Atomically replace the fields of the stored document with those of the given user, and bump its version.
+     *
+     * @param user the user holding the id of the document to update and its new fields.
+     * @param expectedVersion the version the document must be at, or {@code null} to update it whatever its version.
+     * @return the updated user, or empty if no user has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the document is not at the expected version.
+     */
+    Optional<User> update(User user, Long expectedVersion);
+
+    /**
+     * Atomically set the non-null fields of the given user on the stored document, in a single round trip.
+     *
+     * @param user the user holding the id of the document to update and the fields to set.
+     * @param expectedVersion the version the document must be at, or {@code null} to update it whatever its version.
+     * @return the updated user, or empty if no user has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the document is not at the expected version.
+     */
+    Optional<User> partialUpdate(User user, Long expectedVersion);
+
+    /**
+     * Atomically append the summaries of new products to those embedded in a user, keeping only the last ones.
+     *
+     * @param userId the id of the owner of the products.
+     * @param summaries the summaries to append.
+     * @param maxSize the maximum number of summaries to keep.
+     */
+    void pushProductSummaries(String userId, List<ProductSummary> summaries, int maxSize);
+
+    /**
+     * Atomically replace the summary of a product embedded in its owner, or append it if the owner does not hold it yet.
+     *
+     * @param userId the id of the owner of the product.
+     * @param summary the new summary of the product.
+     * @param maxSize the maximum number of summaries to keep.
+     */
+    void saveProductSummary(String userId, ProductSummary summary, int maxSize);
+
+    /**
+     * Remove the summary of a product from the users holding it.
+     *
+     * @param productId the id of the product.
+     * @param exceptUserId the id of a user to leave untouched, e.g. the current owner of the product; may be {@code null}.
+     */
+    void removeProductSummary(String productId, String exceptUserId);
+}
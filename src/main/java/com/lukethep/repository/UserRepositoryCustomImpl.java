@@ -0,0 +1,199 @@
+package com.lukethep.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import com.lukethep.domain.VersionStamp;
+import com.mongodb.DBRef;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Implementation of {@link UserRepositoryCustom}.
+ * <p>
+ * Each update is a single conditional {@code findAndModify}: the existence check, the version check and the write
+ * happen in one operation on the server.
+ * <p>
+ * The embedded product summaries are derived from the products: they are maintained with single-document updates which
+ * leave the version of the user alone.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String PRODUCT_SUMMARIES = "productSummaries";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final AuditorAware<String> auditorAware;
+
+    private final BatchingDbRefResolver batchingDbRefResolver;
+
+    public UserRepositoryCustomImpl(
+        MongoTemplate mongoTemplate,
+        AuditorAware<String> auditorAware,
+        BatchingDbRefResolver batchingDbRefResolver
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.auditorAware = auditorAware;
+        this.batchingDbRefResolver = batchingDbRefResolver;
+    }
+
+    @Override
+    public List<User> findAll() {
+        return batchingDbRefResolver.findAll(mongoTemplate, new Query(), User.class);
+    }
+
+    @Override
+    public List<User> findPage(String afterId, int limit) {
+        return batchingDbRefResolver.findAll(mongoTemplate, pageQuery(afterId, limit), User.class);
+    }
+
+    @Override
+    public List<User> findProjectedPage(String afterId, int limit, Collection<String> fields) {
+        Query query = pageQuery(afterId, limit);
+        query.fields().include(fields.toArray(String[]::new));
+        return batchingDbRefResolver.findAll(mongoTemplate, query, User.class);
+    }
+
+    @Override
+    public Optional<User> findProjectedById(String id, Collection<String> fields) {
+        Query query = Query.query(where("id").is(id));
+        query.fields().include(fields.toArray(String[]::new));
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+    }
+
+    @Override
+    public Optional<User> findWithProductIdsById(String id) {
+        Document document = mongoTemplate.query(User.class).as(Document.class).matching(Query.query(where("id").is(id))).oneValue();
+        if (document == null) {
+            return Optional.empty();
+        }
+        // Mapped without its products, whose references would otherwise all be resolved
+        Document withoutProducts = new Document(document);
+        withoutProducts.remove("products");
+        User user = mongoTemplate.getConverter().read(User.class, withoutProducts);
+        List<?> products = document.getList("products", Object.class);
+        if (products != null) {
+            user.setProducts(
+                products
+                    .stream()
+                    .filter(DBRef.class::isInstance)
+                    .map(product -> new Product().id(String.valueOf(((DBRef) product).getId())))
+                    .collect(Collectors.toSet())
+            );
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public Optional<VersionStamp> findVersionStampById(String id) {
+        Query query = Query.query(where("id").is(id));
+        query.fields().include("version", "lastModifiedDate");
+        // Read as a raw document, so that fields missing from older documents stay null
+        Document document = mongoTemplate.query(User.class).as(Document.class).matching(query).oneValue();
+        if (document == null) {
+            return Optional.empty();
+        }
+        Number version = document.get("version", Number.class);
+        Date lastModifiedDate = document.getDate("last_modified_date");
+        return Optional.of(
+            new VersionStamp(version == null ? null : version.longValue(), lastModifiedDate == null ? null : lastModifiedDate.toInstant())
+        );
+    }
+
+    @Override
+    public Optional<User> update(User user, Long expectedVersion) {
+        Update update = new Update().set("name", user.getName()).set("email", user.getEmail()).set("products", user.getProducts());
+        return findAndModify(user.getId(), expectedVersion, update);
+    }
+
+    @Override
+    public Optional<User> partialUpdate(User user, Long expectedVersion) {
+        Update update = new Update();
+        if (user.getName() != null) {
+            update.set("name", user.getName());
+        }
+        if (user.getEmail() != null) {
+            update.set("email", user.getEmail());
+        }
+        return findAndModify(user.getId(), expectedVersion, update);
+    }
+
+    @Override
+    public void pushProductSummaries(String userId, List<ProductSummary> summaries, int maxSize) {
+        Update update = new Update().push(PRODUCT_SUMMARIES).slice(-maxSize).each(summaries.toArray());
+        mongoTemplate.updateFirst(Query.query(where("id").is(userId)), update, User.class);
+    }
+
+    @Override
+    public void saveProductSummary(String userId, ProductSummary summary, int maxSize) {
+        if (replaceProductSummary(userId, summary)) {
+            return;
+        }
+        // Only push when the summary is still missing, so that concurrent saves do not append it twice
+        Query query = Query.query(where("id").is(userId).and(PRODUCT_SUMMARIES + ".id").ne(summary.getId()));
+        Update update = new Update().push(PRODUCT_SUMMARIES).slice(-maxSize).each(summary);
+        if (mongoTemplate.updateFirst(query, update, User.class).getMatchedCount() == 0) {
+            // Either a concurrent save has just appended it, or the user is gone
+            replaceProductSummary(userId, summary);
+        }
+    }
+
+    @Override
+    public void removeProductSummary(String productId, String exceptUserId) {
+        Criteria criteria = where(PRODUCT_SUMMARIES + ".id").is(productId);
+        if (exceptUserId != null) {
+            criteria = criteria.and("id").ne(exceptUserId);
+        }
+        Update update = new Update().pull(PRODUCT_SUMMARIES, Query.query(where("id").is(productId)));
+        mongoTemplate.updateMulti(Query.query(criteria), update, User.class);
+    }
+
+    private boolean replaceProductSummary(String userId, ProductSummary summary) {
+        Query query = Query.query(where("id").is(userId).and(PRODUCT_SUMMARIES + ".id").is(summary.getId()));
+        return mongoTemplate.updateFirst(query, new Update().set(PRODUCT_SUMMARIES + ".$", summary), User.class).getMatchedCount() > 0;
+    }
+
+    private static Query pageQuery(String afterId, int limit) {
+        Query query = afterId == null ? new Query() : Query.query(where("id").gt(afterId));
+        return query.with(Sort.by("id")).limit(limit);
+    }
+
+    private Optional<User> findAndModify(String id, Long expectedVersion, Update update) {
+        Criteria criteria = where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        Query query = Query.query(criteria);
+        User result;
+        if (update.getUpdateObject().isEmpty()) {
+            result = mongoTemplate.findOne(query, User.class);
+        } else {
+            // Template updates bypass the auditing callbacks
+            update
+                .inc("version", 1)
+                .set("lastModifiedDate", Instant.now())
+                .set("lastModifiedBy", auditorAware.getCurrentAuditor().orElse(null));
+            result = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), User.class);
+        }
+        // Only a miss needs a second look, to tell a stale version from a missing document
+        if (result == null && expectedVersion != null && mongoTemplate.exists(Query.query(where("id").is(id)), User.class)) {
+            throw new OptimisticLockingFailureException("User " + id + " is not at version " + expectedVersion);
+        }
+        return Optional.ofNullable(result);
+    }
+}
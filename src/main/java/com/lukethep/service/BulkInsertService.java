@@ -0,0 +1,219 @@
+package com.lukethep.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.service.dto.BulkItemResultDTO;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mapping.MappingException;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for creating many entities in a single request.
+ * <p>
+ * Every item is bound and validated on its own, so one bad item only fails itself. Valid items get their id assigned
+ * here and are written in chunks of {@code application.bulk.chunk-size} documents through unordered
+ * {@link BulkOperations}, so a chunk costs a single round trip to Mongo.
+ */
+@Service
+public class BulkInsertService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkInsertService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BulkInsertService(
+        MongoTemplate mongoTemplate,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Read the items of a bulk request, sent either as a JSON array or as newline-delimited JSON.
+     * <p>
+     * The whole body is parsed before anything is written, so a malformed body never leaves a partial write behind.
+     *
+     * @param body the request body.
+     * @return the items, not yet bound to an entity.
+     * @throws JsonProcessingException if the body is not valid JSON.
+     * @throws IllegalArgumentException if the body holds more than {@code application.bulk.max-items} items.
+     * @throws IOException if reading the body fails.
+     */
+    public List<JsonNode> readItems(InputStream body) throws IOException {
+        int maxItems = applicationProperties.getBulk().getMaxItems();
+        List<JsonNode> items = new ArrayList<>();
+        try (MappingIterator<JsonNode> iterator = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (items.size() == maxItems) {
+                    throw new IllegalArgumentException("A bulk request cannot hold more than " + maxItems + " items");
+                }
+                items.add(iterator.nextValue());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Bind, validate and insert the given items.
+     *
+     * @param items the items read by {@link #readItems(InputStream)}.
+     * @param entityClass the class of the entities to create.
+     * @param <T> the type of the entities to create.
+     * @return one result per item, in the order of the request.
+     */
+    public <T> List<BulkItemResultDTO> insertAll(List<JsonNode> items, Class<T> entityClass) {
+        return insertAll(items, entityClass, inserted -> {});
+    }
+
+    /**
+     * Bind, validate and insert the given items, reporting the inserted entities chunk by chunk.
+     *
+     * @param items the items read by {@link #readItems(InputStream)}.
+     * @param entityClass the class of the entities to create.
+     * @param onInserted called after each chunk with the entities it has inserted, e.g. to maintain derived data.
+     * @param <T> the type of the entities to create.
+     * @return one result per item, in the order of the request.
+     */
+    public <T> List<BulkItemResultDTO> insertAll(List<JsonNode> items, Class<T> entityClass, Consumer<List<T>> onInserted) {
+        LOG.debug("Request to bulk insert {} {}", items.size(), entityClass.getSimpleName());
+        MongoPersistentEntity<?> persistentEntity = mongoTemplate
+            .getConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(entityClass);
+        int chunkSize = applicationProperties.getBulk().getChunkSize();
+        List<BulkItemResultDTO> results = new ArrayList<>(items.size());
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<BulkItemResultDTO> chunkResults = new ArrayList<>(chunkSize);
+
+        for (int index = 0; index < items.size(); index++) {
+            T entity;
+            try {
+                entity = objectMapper.treeToValue(items.get(index), entityClass);
+            } catch (JsonProcessingException e) {
+                results.add(failure(index, HttpStatus.BAD_REQUEST, "Unable to read item: " + e.getOriginalMessage()));
+                continue;
+            }
+            PersistentPropertyAccessor<T> accessor = persistentEntity.getPropertyAccessor(entity);
+            if (accessor.getProperty(persistentEntity.getRequiredIdProperty()) != null) {
+                results.add(failure(index, HttpStatus.BAD_REQUEST, "A new entity cannot already have an ID"));
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(entity);
+            if (!violations.isEmpty()) {
+                results.add(failure(index, HttpStatus.BAD_REQUEST, describe(violations)));
+                continue;
+            }
+            String id = new ObjectId().toHexString();
+            accessor.setProperty(persistentEntity.getRequiredIdProperty(), id);
+            if (persistentEntity.hasVersionProperty()) {
+                // Bulk inserts bypass the template's version initialization
+                accessor.setProperty(persistentEntity.getRequiredVersionProperty(), 0L);
+            }
+            BulkItemResultDTO result = new BulkItemResultDTO(index, id, HttpStatus.CREATED.value(), null);
+            results.add(result);
+            chunk.add(entity);
+            chunkResults.add(result);
+            if (chunk.size() == chunkSize) {
+                write(chunk, chunkResults, entityClass, onInserted);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, chunkResults, entityClass, onInserted);
+        }
+        return results;
+    }
+
+    private <T> void write(List<T> chunk, List<BulkItemResultDTO> chunkResults, Class<T> entityClass, Consumer<List<T>> onInserted) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, entityClass);
+        List<T> queued = new ArrayList<>(chunk.size());
+        List<BulkItemResultDTO> queuedResults = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                operations.insert(chunk.get(i));
+                queued.add(chunk.get(i));
+                queuedResults.add(chunkResults.get(i));
+            } catch (MappingException e) {
+                // e.g. a reference to an entity which has no id
+                reject(chunkResults.get(i), HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+        if (!queued.isEmpty()) {
+            Set<Integer> failed = new HashSet<>();
+            try {
+                operations.execute();
+            } catch (BulkOperationException e) {
+                // Unordered writes go on after an error, only the reported items have failed
+                for (BulkWriteError error : e.getErrors()) {
+                    HttpStatus status = ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                        ? HttpStatus.CONFLICT
+                        : HttpStatus.INTERNAL_SERVER_ERROR;
+                    reject(queuedResults.get(error.getIndex()), status, error.getMessage());
+                    failed.add(error.getIndex());
+                }
+            }
+            List<T> inserted = new ArrayList<>(queued.size() - failed.size());
+            for (int i = 0; i < queued.size(); i++) {
+                if (!failed.contains(i)) {
+                    inserted.add(queued.get(i));
+                }
+            }
+            onInserted.accept(inserted);
+        }
+        chunk.clear();
+        chunkResults.clear();
+    }
+
+    private static void reject(BulkItemResultDTO result, HttpStatus status, String error) {
+        result.setId(null);
+        result.setStatus(status.value());
+        result.setError(error);
+    }
+
+    private static <T> String describe(Set<ConstraintViolation<T>> violations) {
+        return violations
+            .stream()
+            .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .collect(Collectors.joining(", "));
+    }
+
+    private static BulkItemResultDTO failure(int index, HttpStatus status, String error) {
+        return new BulkItemResultDTO(index, null, status.value(), error);
+    }
+}
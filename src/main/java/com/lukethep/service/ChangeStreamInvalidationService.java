@@ -0,0 +1,246 @@
+package com.lukethep.service;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.ChangeStreamToken;
+import com.lukethep.repository.ChangeStreamTokenRepository;
+import com.mongodb.DBRef;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service evicting products and users from the caches when they change in Mongo, whoever changes them, enabled by
+ * {@code application.change-streams.enabled}.
+ * <p>
+ * Each member follows the change streams of the {@value #PRODUCT_COLLECTION} and {@value #USER_COLLECTION} collections
+ * on a thread of its own, and evicts the changed entities, which evicts them from the whole cluster. Products are also
+ * evicted from the write-behind map when it is enabled, so that it does not keep serving a product another writer has
+ * changed. Cached users reference their products, so a changed product also evicts its current owner, read from the
+ * looked up document, and its former owner, read from the pre-image of the change: the owner of a deleted product, or
+ * the one a product has been moved away from. Cached products only hold the id of their owner, so a changed user is the
+ * only entity it evicts. Evictions are idempotent: that every member follows the streams, and that the writes of this
+ * application are evicted twice, only costs extra cache misses.
+ * <p>
+ * The position reached in each stream is saved every {@code application.change-streams.checkpoint-interval-seconds}, and
+ * the streams resume from there after a restart. If the stream no longer goes that far back, the whole cache is evicted
+ * instead, since the changes in between are unknown.
+ */
+@Service
+public class ChangeStreamInvalidationService implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeStreamInvalidationService.class);
+
+    static final String PRODUCT_COLLECTION = "product";
+    static final String USER_COLLECTION = "user";
+
+    // The resume token is older than the oldest entry of the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ChangeStreamTokenRepository changeStreamTokenRepository;
+
+    private final ProductService productService;
+
+    private final UserService userService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final List<Thread> watchers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public ChangeStreamInvalidationService(
+        MongoTemplate mongoTemplate,
+        ChangeStreamTokenRepository changeStreamTokenRepository,
+        ProductService productService,
+        UserService userService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.changeStreamTokenRepository = changeStreamTokenRepository;
+        this.productService = productService;
+        this.userService = userService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Override
+    public void start() {
+        if (!applicationProperties.getChangeStreams().isEnabled()) {
+            return;
+        }
+        running = true;
+        for (String collectionName : List.of(PRODUCT_COLLECTION, USER_COLLECTION)) {
+            Thread watcher = new Thread(() -> watch(collectionName), "change-stream-" + collectionName);
+            watcher.setDaemon(true);
+            watcher.start();
+            watchers.add(watcher);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread watcher : watchers) {
+            try {
+                // The watchers wake up at least every second to check whether they must stop
+                watcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        watchers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Evict the entities affected by a change.
+     *
+     * @param collectionName the collection the change happened in.
+     * @param change the change.
+     */
+    void invalidate(String collectionName, ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE, DELETE -> {
+                String id = id(change.getDocumentKey());
+                if (PRODUCT_COLLECTION.equals(collectionName)) {
+                    productService.evict(id);
+                    evictOwner(change.getFullDocument());
+                    evictOwner(change.getFullDocumentBeforeChange());
+                } else {
+                    userService.evict(id);
+                }
+            }
+            // The collection as a whole has changed, e.g. it has been dropped
+            default -> invalidateAll(collectionName);
+        }
+    }
+
+    private void watch(String collectionName) {
+        boolean historyLost = false;
+        while (running) {
+            try {
+                if (historyLost) {
+                    LOG.warn("The change stream of {} cannot be resumed, evicting the whole cache", collectionName);
+                    invalidateAll(collectionName);
+                    changeStreamTokenRepository.deleteById(collectionName);
+                    historyLost = false;
+                }
+                follow(collectionName);
+            } catch (MongoCommandException e) {
+                historyLost = e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST;
+                if (!historyLost) {
+                    retryLater(collectionName, e);
+                }
+            } catch (RuntimeException e) {
+                retryLater(collectionName, e);
+            }
+        }
+    }
+
+    private void follow(String collectionName) {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collectionName).watch().maxAwaitTime(1, TimeUnit.SECONDS);
+        if (PRODUCT_COLLECTION.equals(collectionName)) {
+            // Updates only carry the changed fields, the owner has to be looked up, and the former one read from the pre-image
+            stream = stream.fullDocument(FullDocument.UPDATE_LOOKUP).fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        BsonDocument savedToken = changeStreamTokenRepository
+            .findById(collectionName)
+            .map(token -> token.getResumeToken().toBsonDocument())
+            .orElse(null);
+        if (savedToken != null) {
+            stream = stream.startAfter(savedToken);
+        }
+        LOG.info("Following the change stream of {}", collectionName);
+        Duration checkpointInterval = Duration.ofSeconds(applicationProperties.getChangeStreams().getCheckpointIntervalSeconds());
+        Instant checkpointed = Instant.now();
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    invalidate(collectionName, change);
+                }
+                if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                    // The stream is closed, and is watched again after the invalidation
+                    checkpoint(collectionName, change.getResumeToken(), savedToken);
+                    return;
+                }
+                if (Instant.now().isAfter(checkpointed.plus(checkpointInterval))) {
+                    savedToken = checkpoint(collectionName, cursor.getResumeToken(), savedToken);
+                    checkpointed = Instant.now();
+                }
+            }
+            checkpoint(collectionName, cursor.getResumeToken(), savedToken);
+        }
+    }
+
+    private BsonDocument checkpoint(String collectionName, BsonDocument resumeToken, BsonDocument savedToken) {
+        // The token moves on while the stream is idle, but there is nothing new to save then
+        if (resumeToken == null || resumeToken.equals(savedToken)) {
+            return savedToken;
+        }
+        changeStreamTokenRepository.save(
+            new ChangeStreamToken().id(collectionName).resumeToken(new Document(resumeToken)).savedDate(Instant.now())
+        );
+        return resumeToken;
+    }
+
+    private void invalidateAll(String collectionName) {
+        if (PRODUCT_COLLECTION.equals(collectionName)) {
+            productService.evictAll();
+            // Cached users reference their products
+            userService.evictAll();
+        } else {
+            userService.evictAll();
+        }
+    }
+
+    private void evictOwner(Document product) {
+        if (product != null && product.get("owner") instanceof DBRef owner) {
+            userService.evict(String.valueOf(owner.getId()));
+        }
+    }
+
+    private void retryLater(String collectionName, RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        int retryDelaySeconds = applicationProperties.getChangeStreams().getRetryDelaySeconds();
+        LOG.warn("Following the change stream of {} failed, retrying in {} s: {}", collectionName, retryDelaySeconds, e.getMessage());
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(retryDelaySeconds));
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package com.lukethep.service;
+
+import com.hazelcast.map.IMap;
+import com.hazelcast.nearcache.NearCacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A cache of entities by id, read aside: lookups go to the cache first, and only load the entity on a miss.
+ * <p>
+ * Lookups are counted in the {@value #GETS_METER_NAME} counter, tagged by cache and {@code hit} or {@code miss}
+ * result, and their hit ratio is published as the {@value #HIT_RATIO_METER_NAME} gauge. For a Hazelcast map with a near
+ * cache, the {@value #NEAR_CACHE_GETS_METER_NAME} counter further tells the hits served from the near cache of this member
+ * from the misses, which are read from the member owning the entry.
+ * <p>
+ * Concurrent misses on the same id are coalesced: only the first one loads the entity, and the others wait for its
+ * result instead of loading it again, so that the expiry of a popular entity does not send a burst of identical queries
+ * to the database. Coalescing is per process, each member of a cluster still loads the entity once. The callers which
+ * waited instead of loading are counted in the {@value #COALESCED_METER_NAME} counter.
+ * <p>
+ * Within a transaction, an entity is evicted again once the transaction completes: a miss in between still reads the
+ * entity as it was before the transaction, and must not be left in the cache.
+ *
+ * @param <T> the type of the entities.
+ */
+class EntityCache<T> {
+
+    static final String GETS_METER_NAME = "entity.cache.gets";
+    static final String HIT_RATIO_METER_NAME = "entity.cache.hit.ratio";
+    static final String NEAR_CACHE_GETS_METER_NAME = "entity.cache.near.gets";
+    static final String COALESCED_METER_NAME = "entity.cache.coalesced";
+
+    private final Cache cache;
+
+    private final Class<T> entityClass;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter coalesced;
+
+    // The loads in progress, by id
+    private final Map<String, CompletableFuture<Optional<T>>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheManager the cache manager holding the cache, named after the entity class.
+     * @param entityClass the class of the entities.
+     * @param meterRegistry the registry to publish the metrics of the cache to.
+     */
+    EntityCache(CacheManager cacheManager, Class<T> entityClass, MeterRegistry meterRegistry) {
+        this.cache = cacheManager.getCache(entityClass.getName());
+        this.entityClass = entityClass;
+        this.hits = lookupCounter("hit", meterRegistry);
+        this.misses = lookupCounter("miss", meterRegistry);
+        this.coalesced = Counter.builder(COALESCED_METER_NAME)
+            .description("Misses of an entity cache which waited for the load of another caller instead of loading the entity")
+            .tag("cache", cache.getName())
+            .register(meterRegistry);
+        Gauge.builder(HIT_RATIO_METER_NAME, this, EntityCache::hitRatio)
+            .description("Share of the lookups of an entity cache served from the cache")
+            .tag("cache", cache.getName())
+            .register(meterRegistry);
+        if (cache.getNativeCache() instanceof IMap<?, ?> map) {
+            nearCacheCounter("hit", map, NearCacheStats::getHits, meterRegistry);
+            nearCacheCounter("miss", map, NearCacheStats::getMisses, meterRegistry);
+        }
+    }
+
+    /**
+     * Get an entity from the cache, or else load it and cache it.
+     * <p>
+     * If the entity is already being loaded by another caller, wait for that load instead of starting another one.
+     *
+     * @param id the id of the entity.
+     * @param loader loads the entity on a miss; a missing entity is not cached.
+     * @return the entity, or empty if there is none with this id.
+     */
+    Optional<T> get(String id, Function<String, Optional<T>> loader) {
+        T cached = cache.get(id, entityClass);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        CompletableFuture<Optional<T>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<T>> inProgress = loads.putIfAbsent(id, load);
+        if (inProgress != null) {
+            coalesced.increment();
+            return await(inProgress);
+        }
+        try {
+            Optional<T> loaded = loader.apply(id);
+            // A fill, not a write: an entity cached meanwhile is more recent
+            loaded.ifPresent(entity -> cache.putIfAbsent(id, entity));
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            // The waiting callers fail the same way
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Later misses find the entity in the cache, or load it again if it is missing
+            loads.remove(id, load);
+        }
+    }
+
+    /**
+     * Get an entity from the cache, without loading it nor counting the lookup.
+     *
+     * @param id the id of the entity.
+     * @return the cached entity, or empty if it is not cached.
+     */
+    Optional<T> peek(String id) {
+        return Optional.ofNullable(cache.get(id, entityClass));
+    }
+
+    /**
+     * Evict an entity from the cache, e.g. after it has been written, and again when the current transaction completes.
+     *
+     * @param id the id of the entity; ignored if {@code null}.
+     */
+    void evict(String id) {
+        if (id != null) {
+            cache.evict(id);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            cache.evict(id);
+                        }
+                    }
+                );
+            }
+        }
+    }
+
+    /**
+     * Evict all the entities from the cache, e.g. when the changes made to them are unknown.
+     */
+    void clear() {
+        cache.clear();
+    }
+
+    private static <T> T await(CompletableFuture<T> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    private void nearCacheCounter(String result, IMap<?, ?> map, ToLongFunction<NearCacheStats> count, MeterRegistry meterRegistry) {
+        FunctionCounter.builder(NEAR_CACHE_GETS_METER_NAME, map, near -> {
+            // Null when the map has no near cache
+            NearCacheStats stats = near.getLocalMapStats().getNearCacheStats();
+            return stats == null ? 0 : count.applyAsLong(stats);
+        })
+            .description("Lookups of an entity cache served from the near cache of this member, or from the cluster")
+            .tag("cache", cache.getName())
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private Counter lookupCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder(GETS_METER_NAME)
+            .description("Lookups of an entity cache")
+            .tag("cache", cache.getName())
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,176 @@
+package com.lukethep.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.cp.IAtomicLong;
+import com.hazelcast.cp.lock.FencedLock;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.OwnerStats;
+import com.lukethep.domain.Product;
+import com.lukethep.repository.OwnerStatsRepository;
+import com.lukethep.repository.ProductChange;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service maintaining the {@link OwnerStats aggregates} of the products of each owner.
+ * <p>
+ * Each change is applied incrementally, after the product itself has been written, in the transaction of the product
+ * write. Bulk inserts are not transactional as a whole: a failure there leaves the aggregates behind the products until
+ * the next {@link #rebuild() rebuild}, scheduled by {@code application.owner-stats.rebuild-cron}.
+ * <p>
+ * The rebuild is scheduled on every member, but only run by one of them: the first member to fire takes the
+ * {@value #REBUILD_LOCK_NAME} lock of the Hazelcast cluster and records when it started, and the members firing later
+ * for the same schedule, with clocks slightly behind, skip it.
+ */
+@Service
+public class OwnerStatsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OwnerStatsService.class);
+
+    static final String REBUILD_LOCK_NAME = "owner-stats-rebuild";
+
+    private final OwnerStatsRepository ownerStatsRepository;
+
+    private final HazelcastInstance hazelcastInstance;
+
+    private final ApplicationProperties applicationProperties;
+
+    public OwnerStatsService(
+        OwnerStatsRepository ownerStatsRepository,
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties
+    ) {
+        this.ownerStatsRepository = ownerStatsRepository;
+        this.hazelcastInstance = hazelcastInstance;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Get the aggregates of the products of an owner.
+     *
+     * @param ownerId the id of the owner.
+     * @return the aggregates, or empty if the owner has never had a product.
+     */
+    public Optional<OwnerStats> findByOwner(String ownerId) {
+        LOG.debug("Request to get the stats of User : {}", ownerId);
+        return ownerStatsRepository.findById(ownerId);
+    }
+
+    /**
+     * Fold a new product into the aggregates of its owner.
+     *
+     * @param product the created product.
+     */
+    public void productCreated(Product product) {
+        productsCreated(List.of(product));
+    }
+
+    /**
+     * Fold new products into the aggregates of their owners, with one update per owner.
+     *
+     * @param products the created products.
+     */
+    public void productsCreated(Collection<Product> products) {
+        Map<String, List<BigDecimal>> pricesByOwner = products
+            .stream()
+            .filter(product -> product.getOwner() != null)
+            .collect(
+                Collectors.groupingBy(
+                    product -> product.getOwner().getId(),
+                    LinkedHashMap::new,
+                    Collectors.mapping(Product::getPrice, Collectors.toList())
+                )
+            );
+        LOG.debug("Request to add {} products to the stats of {} owners", products.size(), pricesByOwner.size());
+        pricesByOwner.forEach((ownerId, prices) ->
+            ownerStatsRepository.addProducts(
+                ownerId,
+                prices.size(),
+                prices.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                prices.stream().min(BigDecimal::compareTo).orElseThrow(),
+                prices.stream().max(BigDecimal::compareTo).orElseThrow()
+            )
+        );
+    }
+
+    /**
+     * Move an updated or deleted product from the aggregates of its former owner to those of its current one.
+     *
+     * @param change the change, as returned by the product repository.
+     */
+    public void productChanged(ProductChange change) {
+        String ownerId = change.ownerId();
+        BigDecimal price = change.price();
+        if (Objects.equals(ownerId, change.previousOwnerId()) && samePrice(price, change.previousPrice())) {
+            return;
+        }
+        LOG.debug("Request to move a product from the stats of User {} to those of User {}", change.previousOwnerId(), ownerId);
+        if (change.previousOwnerId() != null) {
+            ownerStatsRepository.removeProduct(change.previousOwnerId(), change.previousPrice());
+        }
+        if (ownerId != null) {
+            ownerStatsRepository.addProducts(ownerId, 1, price, price, price);
+        }
+    }
+
+    /**
+     * Forget the aggregates of a deleted owner.
+     *
+     * @param ownerId the id of the owner.
+     */
+    public void ownerDeleted(String ownerId) {
+        LOG.debug("Request to delete the stats of User : {}", ownerId);
+        ownerStatsRepository.deleteById(ownerId);
+    }
+
+    /**
+     * Recompute the aggregates of all the owners from the products, unless another member of the cluster is rebuilding
+     * them or has rebuilt them for the current schedule.
+     */
+    @Scheduled(cron = "${application.owner-stats.rebuild-cron}")
+    public void rebuild() {
+        FencedLock lock = hazelcastInstance.getCPSubsystem().getLock(REBUILD_LOCK_NAME);
+        if (!lock.tryLock()) {
+            LOG.debug("The owner stats are being rebuilt by another member");
+            return;
+        }
+        try {
+            IAtomicLong lastStart = hazelcastInstance.getCPSubsystem().getAtomicLong(REBUILD_LOCK_NAME);
+            Instant now = Instant.now();
+            if (lastStart.get() != 0 && nextRebuild(Instant.ofEpochMilli(lastStart.get())).isAfter(now)) {
+                LOG.debug("The owner stats have already been rebuilt by another member");
+                return;
+            }
+            lastStart.set(now.toEpochMilli());
+            LOG.info("Rebuilding the owner stats");
+            ownerStatsRepository.rebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Instant nextRebuild(Instant after) {
+        CronExpression cron = CronExpression.parse(applicationProperties.getOwnerStats().getRebuildCron());
+        ZonedDateTime next = cron.next(after.atZone(ZoneId.systemDefault()));
+        return next == null ? Instant.MAX : next.toInstant();
+    }
+
+    private static boolean samePrice(BigDecimal price, BigDecimal other) {
+        // Decimal128 keeps the scale, 10 and 10.00 are the same price
+        return price == null || other == null ? price == other : price.compareTo(other) == 0;
+    }
+}
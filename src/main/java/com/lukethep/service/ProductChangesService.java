@@ -0,0 +1,199 @@
+package com.lukethep.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductTombstone;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.ProductTombstoneRepository;
+import com.lukethep.service.dto.ProductChangesDTO;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for syncing the changes of the {@link Product}s since a point in time, so that a client keeping a copy of the
+ * catalog only reads what changed since its last sync.
+ * <p>
+ * Products are synced in the order of their last modification date then id, through the index on both, and deleted
+ * products through the {@link ProductTombstone tombstones} left behind, in the same order. A sync token holds the date
+ * and id of the last change synced. Changes younger than {@code application.product-changes.settle-seconds} are left
+ * for the next sync: dates are stamped before the writes commit, so a recent range may still be filling up.
+ * <p>
+ * Tombstones expire after {@code application.product-changes.tombstone-retention-days}, and a token older than that
+ * can no longer be resumed from, as deletions may have been missed: the client has to sync from scratch.
+ */
+@Service
+public class ProductChangesService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductChangesService.class);
+
+    /**
+     * The position reached by a sync: the date and id of the last change synced, or only the date when every change
+     * before it has been synced.
+     *
+     * @param date the date of the last change synced.
+     * @param id the id of the last change synced, or {@code null}.
+     */
+    public record SyncToken(Instant date, String id) {
+        private static final String SEPARATOR = ".";
+
+        /**
+         * @return the token, as sent to the client.
+         */
+        public String encode() {
+            String value = date.toEpochMilli() + SEPARATOR + (id == null ? "" : id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param token a token built by {@link #encode()}.
+         * @return the decoded token.
+         * @throws IllegalArgumentException if the token is malformed.
+         */
+        public static SyncToken parse(String token) {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed sync token");
+            }
+            Instant date = Instant.ofEpochMilli(Long.parseLong(value.substring(0, separator)));
+            String id = value.substring(separator + 1);
+            return new SyncToken(date, id.isEmpty() ? null : id);
+        }
+    }
+
+    private final ProductRepository productRepository;
+
+    private final ProductTombstoneRepository productTombstoneRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductChangesService(
+        ProductRepository productRepository,
+        ProductTombstoneRepository productTombstoneRepository,
+        MongoTemplate mongoTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Leave a tombstone for a deleted product.
+     *
+     * @param id the id of the deleted product.
+     */
+    public void productDeleted(String id) {
+        Instant now = Instant.now();
+        productTombstoneRepository.save(new ProductTombstone().id(id).deletedDate(now).expireDate(now.plus(tombstoneRetention())));
+    }
+
+    /**
+     * @param since a sync token.
+     * @return whether changes may have been forgotten since the token, which can then no longer be resumed from.
+     */
+    public boolean isExpired(SyncToken since) {
+        return since.date().isBefore(Instant.now().minus(tombstoneRetention()));
+    }
+
+    /**
+     * Get a page of the changes of the products since a token.
+     *
+     * @param since the token of the previous sync, or {@code null} to sync from scratch.
+     * @param limit the maximum number of changes to return.
+     * @return the changes, with the token to resume from.
+     */
+    public ProductChangesDTO getChanges(SyncToken since, int limit) {
+        LOG.debug("Request to get the changes of Products since : {}", since);
+        Instant until = settledUntil();
+        ProductChangesDTO changes = new ProductChangesDTO();
+        if (since != null && !since.date().isBefore(until)) {
+            // Nothing has settled since, e.g. the previous sync was made on a member whose clock is ahead
+            changes.setToken(since.encode());
+            return changes;
+        }
+
+        Query productQuery = Query.query(changedBetween("lastModifiedDate", since, until))
+            .with(Sort.by("lastModifiedDate", "id"))
+            .limit(limit + 1);
+        List<Product> products = productRepository.findAll(productQuery);
+        Query tombstoneQuery = Query.query(changedBetween("deletedDate", since, until))
+            .with(Sort.by("deletedDate", "id"))
+            .limit(limit + 1);
+        List<ProductTombstone> tombstones = mongoTemplate.find(tombstoneQuery, ProductTombstone.class);
+
+        // Merge both ordered lists, up to the limit
+        int productIndex = 0;
+        int tombstoneIndex = 0;
+        SyncToken last = null;
+        for (int count = 0; count < limit && (productIndex < products.size() || tombstoneIndex < tombstones.size()); count++) {
+            Product product = productIndex < products.size() ? products.get(productIndex) : null;
+            ProductTombstone tombstone = tombstoneIndex < tombstones.size() ? tombstones.get(tombstoneIndex) : null;
+            if (tombstone == null || (product != null && isBefore(product.getLastModifiedDate(), product.getId(), tombstone))) {
+                boolean created = since == null || !product.getCreatedDate().isBefore(since.date());
+                (created ? changes.getCreated() : changes.getUpdated()).add(product);
+                last = new SyncToken(product.getLastModifiedDate(), product.getId());
+                productIndex++;
+            } else {
+                changes.getDeleted().add(tombstone.getId());
+                last = new SyncToken(tombstone.getDeletedDate(), tombstone.getId());
+                tombstoneIndex++;
+            }
+        }
+        changes.setHasMore(productIndex < products.size() || tombstoneIndex < tombstones.size());
+        // Once caught up, the next sync starts from the settled date, which does not have to be looked at again
+        changes.setToken((changes.isHasMore() ? last : new SyncToken(until, null)).encode());
+        return changes;
+    }
+
+    private Instant settledUntil() {
+        Duration settle = Duration.ofSeconds(applicationProperties.getProductChanges().getSettleSeconds());
+        if (applicationProperties.getWriteBehind().isEnabled()) {
+            // Written-behind products reach Mongo after their modification date
+            settle = settle.plusSeconds(applicationProperties.getWriteBehind().getWriteDelaySeconds());
+        }
+        // Mongo stores dates to the millisecond
+        return Instant.now().minus(settle).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private Duration tombstoneRetention() {
+        return Duration.ofDays(applicationProperties.getProductChanges().getTombstoneRetentionDays());
+    }
+
+    private static Criteria changedBetween(String dateProperty, SyncToken since, Instant until) {
+        if (since == null) {
+            return where(dateProperty).lt(until);
+        }
+        if (since.id() == null) {
+            return where(dateProperty).gte(since.date()).lt(until);
+        }
+        return new Criteria()
+            .andOperator(
+                where(dateProperty).lt(until),
+                new Criteria()
+                    .orOperator(where(dateProperty).gt(since.date()), where(dateProperty).is(since.date()).and("id").gt(since.id()))
+            );
+    }
+
+    private static boolean isBefore(Instant date, String id, ProductTombstone tombstone) {
+        int byDate = date.compareTo(tombstone.getDeletedDate());
+        // Ids are ObjectIds, whose hexadecimal strings sort like them
+        return byDate < 0 || (byDate == 0 && id.compareTo(tombstone.getId()) < 0);
+    }
+}
@@ -0,0 +1,604 @@
+package com.lukethep.service;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.service.dto.ProductEventDTO;
+import com.mongodb.DBRef;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service fanning out the changes of the products to the subscribers of the product events, served when
+ * {@code application.change-streams.enabled} is set.
+ * <p>
+ * Each member follows the change stream of the {@value #PRODUCT_COLLECTION} collection with a single cursor, whatever
+ * its number of subscribers, and hands each event to the queue of every subscriber interested in it. The queues hold
+ * {@code application.product-events.buffer-size} events: a subscriber falling that far behind is dropped, counted in the
+ * {@value #DROPPED_METER_NAME} counter, and has to resume, so that a slow consumer never holds back the others nor
+ * grows the heap. The queues are written to the subscribers by a pool of {@code application.product-events.sender-threads}
+ * threads, each queue by one thread at a time.
+ * <p>
+ * The writes to the subscribers block. A subscriber whose write has not returned after
+ * {@code application.product-events.send-timeout-seconds} is dropped as well, and the thread stuck writing to it is
+ * interrupted and replaced in the pool until the write returns, so that stalled subscribers never hold back the others.
+ * <p>
+ * The last {@code application.product-events.replay-size} events are kept to be replayed to a subscriber resuming after
+ * a given event. A subscriber resuming from an event that is no longer kept is sent a {@link ProductEventDTO#RESET}
+ * event instead, and so are all the subscribers when the stream itself has lost changes.
+ * <p>
+ * A subscriber to the products of an owner also gets the changes taking a product away from the owner, deletions and
+ * moves to another owner, which are read from the pre-images the {@value #PRODUCT_COLLECTION} collection records.
+ */
+@Service
+public class ProductEventService implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductEventService.class);
+
+    static final String PRODUCT_COLLECTION = "product";
+
+    static final String SUBSCRIBERS_METER_NAME = "product.events.subscribers";
+    static final String DROPPED_METER_NAME = "product.events.dropped";
+
+    // The resume token is older than the oldest entry of the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    // Queued to idle subscribers, and sent as a comment
+    private static final ProductEventDTO HEARTBEAT = new ProductEventDTO();
+
+    /**
+     * Where the events of a subscription are written to.
+     */
+    public interface Sink {
+        /**
+         * Write an event.
+         *
+         * @param event the event.
+         * @throws IOException if the subscriber is gone.
+         */
+        void send(ProductEventDTO event) throws IOException;
+
+        /**
+         * Write a heartbeat, which keeps the connection open and tells whether the subscriber is gone.
+         *
+         * @throws IOException if the subscriber is gone.
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Close the subscription on the side of the subscriber.
+         */
+        void close();
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ThreadPoolExecutor senders;
+
+    // Drops the subscribers whose writes have stalled
+    private final ScheduledExecutorService watchdog;
+
+    private final Counter dropped;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    // Guards the recent events, and the registration of the subscriptions against the fan-out of the events
+    private final Object lock = new Object();
+
+    private final ArrayDeque<ProductEventDTO> recentEvents = new ArrayDeque<>();
+
+    private Thread follower;
+
+    private volatile boolean running;
+
+    // Only used by the follower thread
+    private BsonDocument resumeToken;
+
+    public ProductEventService(MongoTemplate mongoTemplate, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.applicationProperties = applicationProperties;
+        AtomicInteger threadCount = new AtomicInteger();
+        int senderThreads = applicationProperties.getProductEvents().getSenderThreads();
+        // A fixed pool, but for the replacements of the threads stuck writing to stalled subscribers
+        this.senders = new ThreadPoolExecutor(
+            senderThreads,
+            senderThreads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-events-sender-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-events-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog.scheduleWithFixedDelay(this::dropStalledSubscribers, 1, 1, TimeUnit.SECONDS);
+        this.dropped = Counter.builder(DROPPED_METER_NAME)
+            .description("Subscribers of the product events dropped for being too slow")
+            .register(meterRegistry);
+        Gauge.builder(SUBSCRIBERS_METER_NAME, subscriptions, Set::size)
+            .description("Subscribers of the product events on this member")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!applicationProperties.getChangeStreams().isEnabled()) {
+            return;
+        }
+        running = true;
+        follower = new Thread(this::watch, "product-events");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (follower != null) {
+            try {
+                // The follower wakes up at least every second to check whether it must stop
+                follower.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            follower = null;
+        }
+        // Let the subscribers resume on another member
+        List.copyOf(subscriptions).forEach(Subscription::close);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdown();
+        senders.shutdown();
+    }
+
+    /**
+     * Subscribe to the product events.
+     *
+     * @param ownerId the id of the owner whose products to follow; {@code null} to follow all the products.
+     * @param lastEventId the id of the last event received by a resuming subscriber, to replay the events after it;
+     * {@code null} to only get the events to come.
+     * @param sink where to write the events.
+     * @return the subscription, to cancel when the subscriber is gone.
+     */
+    public Subscription subscribe(String ownerId, String lastEventId, Sink sink) {
+        LOG.debug("Request to subscribe to the Product events, owner: {}, after: {}", ownerId, lastEventId);
+        int bufferSize = applicationProperties.getProductEvents().getBufferSize();
+        Subscription subscription = new Subscription(ownerId, sink, bufferSize);
+        synchronized (lock) {
+            if (lastEventId != null) {
+                List<ProductEventDTO> missed = eventsAfter(lastEventId, subscription);
+                if (missed == null || missed.size() > bufferSize) {
+                    subscription.offer(resetEvent());
+                } else {
+                    missed.forEach(subscription::offer);
+                }
+            }
+            subscriptions.add(subscription);
+        }
+        return subscription;
+    }
+
+    /**
+     * Hand an event to the subscribers interested in it.
+     *
+     * @param event the event.
+     */
+    void publish(ProductEventDTO event) {
+        synchronized (lock) {
+            recentEvents.addLast(event);
+            while (recentEvents.size() > applicationProperties.getProductEvents().getReplaySize()) {
+                recentEvents.removeFirst();
+            }
+            for (Subscription subscription : subscriptions) {
+                if (subscription.matches(event)) {
+                    subscription.offer(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tell all the subscribers that changes may have been missed, and forget the recent events, which can no longer be
+     * resumed from.
+     */
+    void publishReset() {
+        synchronized (lock) {
+            recentEvents.clear();
+            ProductEventDTO reset = resetEvent();
+            subscriptions.forEach(subscription -> subscription.offer(reset));
+        }
+    }
+
+    /**
+     * Send a heartbeat to the subscribers which have nothing else queued.
+     */
+    void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.offerHeartbeat();
+        }
+    }
+
+    /**
+     * Drop the subscribers whose current write has been running for longer than the send timeout.
+     */
+    void dropStalledSubscribers() {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(applicationProperties.getProductEvents().getSendTimeoutSeconds());
+        long now = System.nanoTime();
+        for (Subscription subscription : subscriptions) {
+            subscription.dropIfStalled(now, timeoutNanos);
+        }
+    }
+
+    /**
+     * @param change a change of a product.
+     * @return the event for the change, or {@code null} if it is not the change of a single product.
+     */
+    static ProductEventDTO toEvent(ChangeStreamDocument<Document> change) {
+        String type =
+            switch (change.getOperationType()) {
+                case INSERT -> ProductEventDTO.CREATED;
+                case UPDATE, REPLACE -> ProductEventDTO.UPDATED;
+                case DELETE -> ProductEventDTO.DELETED;
+                default -> null;
+            };
+        if (type == null) {
+            return null;
+        }
+        ProductEventDTO event = new ProductEventDTO();
+        event.setId(change.getResumeToken().getString("_data").getValue());
+        event.setType(type);
+        event.setProductId(id(change.getDocumentKey()));
+        // Missing from deletes, and from updates of a product deleted since
+        Document product = change.getFullDocument();
+        if (product != null) {
+            event.setName(product.getString("name"));
+            event.setPrice(toBigDecimal(product.get("price")));
+            event.setVersion(product.get("version") instanceof Number version ? version.longValue() : null);
+            event.setOwnerId(ownerId(product));
+        }
+        // Missing from inserts, and from the changes made before the pre-images were recorded
+        Document previous = change.getFullDocumentBeforeChange();
+        if (previous != null && ownerId(previous) != null && !ownerId(previous).equals(event.getOwnerId())) {
+            event.setPreviousOwnerId(ownerId(previous));
+        }
+        return event;
+    }
+
+    private List<ProductEventDTO> eventsAfter(String lastEventId, Subscription subscription) {
+        List<ProductEventDTO> missed = new ArrayList<>();
+        Iterator<ProductEventDTO> newestFirst = recentEvents.descendingIterator();
+        while (newestFirst.hasNext()) {
+            ProductEventDTO event = newestFirst.next();
+            if (event.getId().equals(lastEventId)) {
+                Collections.reverse(missed);
+                return missed;
+            }
+            if (subscription.matches(event)) {
+                missed.add(event);
+            }
+        }
+        return null;
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                follow();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    LOG.warn("The change stream of {} cannot be resumed, resetting the product events", PRODUCT_COLLECTION);
+                    resumeToken = null;
+                    publishReset();
+                } else {
+                    retryLater(e);
+                }
+            } catch (RuntimeException e) {
+                retryLater(e);
+            }
+        }
+    }
+
+    private void follow() {
+        ChangeStreamIterable<Document> stream = mongoTemplate
+            .getCollection(PRODUCT_COLLECTION)
+            .watch()
+            .maxAwaitTime(1, TimeUnit.SECONDS)
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        if (resumeToken != null) {
+            // Pick up where the previous cursor failed, so that no event is missed
+            stream = stream.startAfter(resumeToken);
+        }
+        LOG.info("Following the change stream of {} for the product events", PRODUCT_COLLECTION);
+        Duration heartbeatInterval = Duration.ofSeconds(applicationProperties.getProductEvents().getHeartbeatSeconds());
+        Instant lastHeartbeat = Instant.now();
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    resumeToken = change.getResumeToken();
+                    ProductEventDTO event = toEvent(change);
+                    if (event != null) {
+                        publish(event);
+                    } else {
+                        // The collection as a whole has changed, e.g. it has been dropped
+                        publishReset();
+                    }
+                    if (change.getOperationType() == OperationType.INVALIDATE) {
+                        // The stream is closed, and is watched again after the invalidation
+                        return;
+                    }
+                }
+                if (Instant.now().isAfter(lastHeartbeat.plus(heartbeatInterval))) {
+                    heartbeat();
+                    lastHeartbeat = Instant.now();
+                }
+            }
+        }
+    }
+
+    private void retryLater(RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        int retryDelaySeconds = applicationProperties.getChangeStreams().getRetryDelaySeconds();
+        LOG.warn("Following the product events failed, retrying in {} s: {}", retryDelaySeconds, e.getMessage());
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(retryDelaySeconds));
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static ProductEventDTO resetEvent() {
+        ProductEventDTO reset = new ProductEventDTO();
+        reset.setType(ProductEventDTO.RESET);
+        return reset;
+    }
+
+    /**
+     * Grow or shrink the pool of the senders, to replace the threads stuck writing to stalled subscribers.
+     */
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            // The maximum size may never be below the core size
+            if (delta > 0) {
+                senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+                senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            } else {
+                senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+                senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return value == null ? null : new BigDecimal(value.toString());
+    }
+
+    private static String ownerId(Document product) {
+        return product.get("owner") instanceof DBRef owner ? String.valueOf(owner.getId()) : null;
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    /**
+     * A subscriber of the product events, with the queue of the events not yet written to it.
+     */
+    public final class Subscription {
+
+        private final String ownerId;
+
+        private final Sink sink;
+
+        private final BlockingQueue<ProductEventDTO> queue;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // Set when the sink is to be closed, which is done by the draining thread, after the write in progress
+        private final AtomicBoolean closeRequested = new AtomicBoolean();
+
+        // Guards the write in progress against the watchdog
+        private final Object writeLock = new Object();
+
+        // The thread writing to the sink, and since when; null when no write is in progress
+        private Thread writer;
+
+        private long writeStarted;
+
+        // Whether the writer has been replaced in the pool of the senders, for being stuck
+        private boolean writerReplaced;
+
+        private Subscription(String ownerId, Sink sink, int bufferSize) {
+            this.ownerId = ownerId;
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Stop sending events, once the subscriber is gone.
+         */
+        public void cancel() {
+            if (closed.compareAndSet(false, true)) {
+                subscriptions.remove(this);
+                queue.clear();
+            }
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        boolean matches(ProductEventDTO event) {
+            return ownerId == null || ownerId.equals(event.getOwnerId()) || ownerId.equals(event.getPreviousOwnerId());
+        }
+
+        void offer(ProductEventDTO event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                LOG.debug("Dropping a subscriber of the Product events, {} events behind", queue.size());
+                dropped.increment();
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void offerHeartbeat() {
+            if (!closed.get() && queue.isEmpty() && queue.offer(HEARTBEAT)) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            cancel();
+            closeRequested.set(true);
+            scheduleDrain();
+        }
+
+        private void dropIfStalled(long now, long timeoutNanos) {
+            synchronized (writeLock) {
+                if (writer == null || writerReplaced || now - writeStarted < timeoutNanos) {
+                    return;
+                }
+                long stalledMillis = TimeUnit.NANOSECONDS.toMillis(now - writeStarted);
+                LOG.debug("Dropping a subscriber of the Product events, stalled writing for {} ms", stalledMillis);
+                dropped.increment();
+                writerReplaced = true;
+                resizeSenders(1);
+                close();
+                writer.interrupt();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                ProductEventDTO event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    write(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("A subscriber of the Product events is gone: {}", e.getMessage());
+                cancel();
+                closeRequested.set(true);
+            } finally {
+                try {
+                    if (closeRequested.getAndSet(false)) {
+                        sink.close();
+                    }
+                } finally {
+                    draining.set(false);
+                }
+            }
+            // An event may have been queued, or the subscription closed, after the queue was seen empty
+            if (!queue.isEmpty() || closeRequested.get()) {
+                scheduleDrain();
+            }
+        }
+
+        private void write(ProductEventDTO event) throws IOException {
+            synchronized (writeLock) {
+                writer = Thread.currentThread();
+                writeStarted = System.nanoTime();
+            }
+            try {
+                if (event == HEARTBEAT) {
+                    sink.heartbeat();
+                } else {
+                    sink.send(event);
+                }
+            } finally {
+                synchronized (writeLock) {
+                    writer = null;
+                    // Clears an interruption by the watchdog which came too late to stop the write
+                    Thread.interrupted();
+                    if (writerReplaced) {
+                        writerReplaced = false;
+                        resizeSenders(-1);
+                    }
+                }
+            }
+        }
+
+        private void execute(Runnable task) {
+            try {
+                senders.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                cancel();
+            }
+        }
+    }
+}
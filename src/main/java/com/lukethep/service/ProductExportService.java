@@ -0,0 +1,258 @@
+package com.lukethep.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service streaming the whole {@link Product} collection to an {@link OutputStream}.
+ * <p>
+ * Documents are read from a Mongo cursor as raw BSON, so the {@code owner} reference is exported as an id and is never
+ * resolved, and written one by one through a Jackson streaming generator. Memory stays flat whatever the size of
+ * the collection.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductExportService.class);
+
+    public static final String ROWS_METER_NAME = "export.rows";
+    public static final String BYTES_METER_NAME = "export.bytes";
+    public static final String DURATION_METER_NAME = "export.duration";
+
+    private static final String ENTITY_TAG = "product";
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+        .addColumn("id")
+        .addColumn("name")
+        .addColumn("price", CsvSchema.ColumnType.NUMBER)
+        .addColumn("owner")
+        .build()
+        .withHeader();
+
+    /**
+     * The supported export formats.
+     */
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param value the format name, case-insensitive.
+         * @return the matching format.
+         * @throws IllegalArgumentException if the format is not supported.
+         */
+        public static Format fromValue(String value) {
+            return Format.valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvFactory csvFactory = new CsvFactory();
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    public ProductExportService(
+        MongoTemplate mongoTemplate,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Write all the products to the given stream.
+     *
+     * @param format the output format.
+     * @param out the stream to write to, left open.
+     * @return the number of exported products.
+     * @throws IOException if writing to the stream fails.
+     */
+    public long exportAll(Format format, OutputStream out) throws IOException {
+        int batchSize = applicationProperties.getExport().getBatchSize();
+        Counter rows = meterCounter(ROWS_METER_NAME, format, "rows");
+        Counter bytes = meterCounter(BYTES_METER_NAME, format, "bytes");
+        CountingOutputStream countingOut = new CountingOutputStream(out);
+        Query query = new Query().cursorBatchSize(batchSize);
+        long count = 0;
+        long start = System.nanoTime();
+
+        try (
+            JsonGenerator generator = createGenerator(format, countingOut);
+            Stream<Document> documents = mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(Product.class))
+        ) {
+            var iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                writeProduct(generator, iterator.next());
+                if (format == Format.NDJSON) {
+                    // Every record ends with a newline, the last one included
+                    generator.writeRaw('\n');
+                }
+                if (++count % batchSize == 0) {
+                    generator.flush();
+                    rows.increment(batchSize);
+                    bytes.increment(countingOut.drainCount());
+                }
+            }
+            generator.flush();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            rows.increment(count % batchSize);
+            bytes.increment(countingOut.drainCount());
+            Timer.builder(DURATION_METER_NAME)
+                .description("Duration of a full export")
+                .tag("entity", ENTITY_TAG)
+                .tag("format", format.getExtension())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+            LOG.info(
+                "Exported {} products as {} in {} ms ({} rows/s, {} bytes)",
+                count,
+                format,
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                elapsed == 0 ? 0 : count * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                countingOut.getTotal()
+            );
+        }
+        return count;
+    }
+
+    private JsonGenerator createGenerator(Format format, OutputStream out) throws IOException {
+        // The generators must not close the response stream, it belongs to the servlet container
+        if (format == Format.CSV) {
+            CsvGenerator generator = csvFactory.createGenerator(out);
+            generator.setSchema(CSV_SCHEMA);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return generator;
+        }
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void writeProduct(JsonGenerator generator, Document document) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", String.valueOf(document.get("_id")));
+        generator.writeStringField("name", document.getString("name"));
+        BigDecimal price = toBigDecimal(document.get("price"));
+        if (price != null) {
+            generator.writeNumberField("price", price);
+        } else {
+            generator.writeNullField("price");
+        }
+        Object owner = document.get("owner");
+        if (owner instanceof DBRef dbRef) {
+            generator.writeStringField("owner", String.valueOf(dbRef.getId()));
+        } else {
+            generator.writeNullField("owner");
+        }
+        generator.writeEndObject();
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return value == null ? null : new BigDecimal(value.toString());
+    }
+
+    private Counter meterCounter(String name, Format format, String baseUnit) {
+        return Counter.builder(name)
+            .baseUnit(baseUnit)
+            .tag("entity", ENTITY_TAG)
+            .tag("format", format.getExtension())
+            .register(meterRegistry);
+    }
+
+    /**
+     * Counts the bytes written through it, so they can be reported without buffering the output.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private long total;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        long drainCount() {
+            long drained = count;
+            total += drained;
+            count = 0;
+            return drained;
+        }
+
+        long getTotal() {
+            return total + count;
+        }
+    }
+}
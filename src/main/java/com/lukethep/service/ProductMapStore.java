@@ -0,0 +1,118 @@
+package com.lukethep.service;
+
+import com.hazelcast.map.MapStore;
+import com.lukethep.domain.Product;
+import com.lukethep.repository.ProductChange;
+import com.lukethep.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The {@link MapStore} backing the {@link ProductWriteBehindService write-behind map} of products with Mongo.
+ * <p>
+ * Products missing from the map are read from Mongo on access. Updates are written back in batches, each one with a
+ * single bulk write, after which the data derived from the products is brought up to date in the same transaction: the
+ * summaries and aggregates of their owners, and the owners in the user cache. The flushes are timed in the
+ * {@value #FLUSH_METER_NAME} timer. The updates which are not written, the products having been deleted or written by
+ * someone else since they were loaded, are counted in the {@value #SKIPPED_METER_NAME} counter.
+ */
+@Service
+public class ProductMapStore implements MapStore<String, Product> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductMapStore.class);
+
+    static final String FLUSH_METER_NAME = "product.write-behind.flush";
+    static final String SKIPPED_METER_NAME = "product.write-behind.skipped";
+
+    private final ProductRepository productRepository;
+
+    private final UserService userService;
+
+    private final ProductSummaryService productSummaryService;
+
+    private final OwnerStatsService ownerStatsService;
+
+    private final Timer flushTimer;
+
+    private final Counter skipped;
+
+    public ProductMapStore(
+        ProductRepository productRepository,
+        UserService userService,
+        ProductSummaryService productSummaryService,
+        OwnerStatsService ownerStatsService,
+        MeterRegistry meterRegistry
+    ) {
+        this.productRepository = productRepository;
+        this.userService = userService;
+        this.productSummaryService = productSummaryService;
+        this.ownerStatsService = ownerStatsService;
+        this.flushTimer = Timer.builder(FLUSH_METER_NAME)
+            .description("Duration of the writes of a batch of updated products to Mongo")
+            .register(meterRegistry);
+        this.skipped = Counter.builder(SKIPPED_METER_NAME)
+            .description("Product updates not written behind, the products having been deleted or written by someone else meanwhile")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Product load(String id) {
+        return productRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    public Map<String, Product> loadAll(Collection<String> ids) {
+        Map<String, Product> products = new HashMap<>();
+        productRepository.findAllById(ids).forEach(product -> products.put(product.getId(), product));
+        return products;
+    }
+
+    @Override
+    public Iterable<String> loadAllKeys() {
+        // Products are loaded on access only
+        return null;
+    }
+
+    @Override
+    @Transactional
+    public void store(String id, Product product) {
+        storeAll(Map.of(id, product));
+    }
+
+    @Override
+    @Transactional
+    public void storeAll(Map<String, Product> products) {
+        LOG.debug("Request to write {} Products behind", products.size());
+        List<ProductChange> changes = flushTimer.record(() -> productRepository.replaceAll(products.values()));
+        int notWritten = products.size() - changes.size();
+        if (notWritten > 0) {
+            LOG.warn("{} of {} Product updates were not written behind, the products have changed since", notWritten, products.size());
+            skipped.increment(notWritten);
+        }
+        for (ProductChange change : changes) {
+            userService.evict(change.previousOwnerId());
+            userService.evict(change.ownerId());
+            productSummaryService.productUpdated(change.product());
+            ownerStatsService.productChanged(change);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        // Products are deleted from Mongo by the ProductService, before being removed from the map
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        // Products are deleted from Mongo by the ProductService, before being removed from the map
+    }
+}
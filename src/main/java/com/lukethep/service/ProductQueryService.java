@@ -0,0 +1,215 @@
+package com.lukethep.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.Product;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.service.criteria.ProductCriteria;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Service for executing complex queries for {@link Product} entities in the database.
+ * The main input is a {@link ProductCriteria} which gets converted to a Mongo {@link Query},
+ * in a way that all the filters must apply.
+ * <p>
+ * Pages are read with a keyset on the sort property then the id, which the compound indexes created by
+ * {@link com.lukethep.config.dbmigrations} cover, so that every page is an index range scan whatever its position.
+ * Products missing the sort property come first in ascending order, and last in descending order, as Mongo sorts them.
+ */
+@Service
+public class ProductQueryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductQueryService.class);
+
+    private static final String ID = "id";
+
+    private static final String NAME = "name";
+
+    private static final String PRICE = "price";
+
+    // Stands for a missing price in the cursors, which no price is written as
+    private static final String NO_PRICE = "";
+
+    // The id of a DBRef, which is what the owner indexes are on
+    private static final String OWNER_ID = "owner.$id";
+
+    /**
+     * The properties products can be sorted on.
+     */
+    public static final Set<String> SORTABLE_PROPERTIES = Set.of(ID, NAME, PRICE);
+
+    private final ProductRepository productRepository;
+
+    public ProductQueryService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Return a page of {@link Product} which matches the criteria from the database.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param order the sort order, on one of the {@link #SORTABLE_PROPERTIES}; ties are broken by id.
+     * @param after the values of the cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of products to return.
+     * @param fields the properties to read, or {@code null} to read whole products.
+     * @return the matching entities.
+     * @throws IllegalArgumentException if the cursor does not match the sort order.
+     */
+    public List<Product> findByCriteria(
+        ProductCriteria criteria,
+        Sort.Order order,
+        List<String> after,
+        int limit,
+        Collection<String> fields
+    ) {
+        LOG.debug("find by criteria : {}, order : {}, after : {}", criteria, order, after);
+        List<Criteria> filters = createCriteria(criteria);
+        if (after != null) {
+            filters.add(createKeysetCriteria(order, after));
+        }
+        Query query = filters.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filters));
+        query.with(ID.equals(order.getProperty()) ? Sort.by(order) : Sort.by(order, new Sort.Order(order.getDirection(), ID)));
+        query.limit(limit);
+        if (fields != null) {
+            // The sort property is needed to build the next cursor
+            query.fields().include(fields.toArray(String[]::new)).include(order.getProperty());
+        }
+        return productRepository.findAll(query);
+    }
+
+    /**
+     * Return the values of the cursor pointing after the given product.
+     *
+     * @param product the last product of a page.
+     * @param order the sort order of the page.
+     * @return the values of the cursor, to be passed back to {@link #findByCriteria}; a missing price is an empty value.
+     */
+    public List<String> getCursorValues(Product product, Sort.Order order) {
+        return switch (order.getProperty()) {
+            case ID -> List.of(product.getId());
+            case NAME -> List.of(product.getName(), product.getId());
+            case PRICE -> List.of(product.getPrice() == null ? NO_PRICE : product.getPrice().toPlainString(), product.getId());
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+        };
+    }
+
+    /**
+     * Function to convert {@link ProductCriteria} to a list of Mongo {@link Criteria}, all of which must match.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching criteria.
+     */
+    protected List<Criteria> createCriteria(ProductCriteria criteria) {
+        List<Criteria> filters = new ArrayList<>();
+        if (criteria != null) {
+            addFilter(filters, ID, criteria.getId(), Function.identity());
+            addFilter(filters, NAME, criteria.getName(), Function.identity());
+            addFilter(filters, PRICE, criteria.getPrice(), Function.identity());
+            addFilter(filters, OWNER_ID, criteria.getOwner(), ProductQueryService::toStoredId);
+        }
+        return filters;
+    }
+
+    private static Criteria createKeysetCriteria(Sort.Order order, List<String> after) {
+        String property = order.getProperty();
+        if (ID.equals(property)) {
+            checkCursorSize(after, 1);
+            return after(where(ID), order, after.get(0));
+        }
+        checkCursorSize(after, 2);
+        Object value = PRICE.equals(property) ? toPrice(after.get(0)) : after.get(0);
+        List<Criteria> keyset = new ArrayList<>(3);
+        // Missing values sort before all the others, which comparisons never match
+        if (value == null) {
+            if (order.isAscending()) {
+                keyset.add(where(property).ne(null));
+            }
+        } else {
+            keyset.add(after(where(property), order, value));
+            if (order.isDescending()) {
+                keyset.add(where(property).is(null));
+            }
+        }
+        keyset.add(new Criteria().andOperator(where(property).is(value), after(where(ID), order, after.get(1))));
+        return new Criteria().orOperator(keyset);
+    }
+
+    private static BigDecimal toPrice(String value) {
+        // A malformed price is reported as a NumberFormatException, which is an IllegalArgumentException
+        return NO_PRICE.equals(value) ? null : new BigDecimal(value);
+    }
+
+    private static Criteria after(Criteria criteria, Sort.Order order, Object value) {
+        return order.isAscending() ? criteria.gt(value) : criteria.lt(value);
+    }
+
+    private static void checkCursorSize(List<String> after, int size) {
+        if (after.size() != size) {
+            throw new IllegalArgumentException("The cursor does not match the sort order");
+        }
+    }
+
+    private static <T> void addFilter(List<Criteria> filters, String field, Filter<T> filter, Function<? super T, ?> converter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getEquals() != null) {
+            filters.add(where(field).is(converter.apply(filter.getEquals())));
+        }
+        if (filter.getNotEquals() != null) {
+            filters.add(where(field).ne(converter.apply(filter.getNotEquals())));
+        }
+        if (filter.getIn() != null) {
+            filters.add(where(field).in(filter.getIn().stream().map(converter).toList()));
+        }
+        if (filter.getNotIn() != null) {
+            filters.add(where(field).nin(filter.getNotIn().stream().map(converter).toList()));
+        }
+        if (filter.getSpecified() != null) {
+            filters.add(Boolean.TRUE.equals(filter.getSpecified()) ? where(field).ne(null) : where(field).is(null));
+        }
+        if (filter instanceof StringFilter stringFilter) {
+            if (stringFilter.getContains() != null) {
+                filters.add(where(field).regex(Pattern.quote(stringFilter.getContains()), "i"));
+            }
+            if (stringFilter.getDoesNotContain() != null) {
+                filters.add(where(field).not().regex(Pattern.quote(stringFilter.getDoesNotContain()), "i"));
+            }
+        }
+        if (filter instanceof RangeFilter<?> rangeFilter) {
+            if (rangeFilter.getGreaterThan() != null) {
+                filters.add(where(field).gt(rangeFilter.getGreaterThan()));
+            }
+            if (rangeFilter.getGreaterThanOrEqual() != null) {
+                filters.add(where(field).gte(rangeFilter.getGreaterThanOrEqual()));
+            }
+            if (rangeFilter.getLessThan() != null) {
+                filters.add(where(field).lt(rangeFilter.getLessThan()));
+            }
+            if (rangeFilter.getLessThanOrEqual() != null) {
+                filters.add(where(field).lte(rangeFilter.getLessThanOrEqual()));
+            }
+        }
+    }
+
+    // Raw DBRef paths are not mapped, so ids are converted the way the converter stores them
+    private static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,247 @@
+package com.lukethep.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.VersionStamp;
+import com.lukethep.repository.ProductChange;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.service.dto.BulkItemResultDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Service for managing {@link Product}s one by one.
+ * <p>
+ * Products are read by id through a cache, and evicted from it when they are written. The cache holds the owner of a
+ * product by id only, which is resolved on read from the user cache. The owners, which reference their products, are
+ * evicted from the user cache along with them. Writes also maintain the data derived from products: the
+ * {@link ProductSummaryService summaries} and the {@link OwnerStatsService per-owner aggregates}, and deletions leave a
+ * {@link ProductChangesService tombstone} behind. A product and its derived data are written in one transaction, run
+ * again by the {@link TransactionRunner} when it conflicts with a concurrent write on the same owner. Bulk inserts are
+ * the exception: each chunk is one unordered bulk write, whose failed items must not abort the others, and the derived
+ * data of the inserted items follow it.
+ * <p>
+ * When updates are {@link ProductWriteBehindService written behind}, products are updated and read by id in the
+ * write-behind map instead, and the derived data follow once the updates are written to Mongo.
+ */
+@Service
+public class ProductService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductService.class);
+
+    private final ProductRepository productRepository;
+
+    private final UserService userService;
+
+    private final ProductSummaryService productSummaryService;
+
+    private final OwnerStatsService ownerStatsService;
+
+    private final BulkInsertService bulkInsertService;
+
+    private final ProductWriteBehindService writeBehindService;
+
+    private final ProductChangesService productChangesService;
+
+    private final TransactionRunner transactions;
+
+    private final EntityCache<Product> cache;
+
+    public ProductService(
+        ProductRepository productRepository,
+        UserService userService,
+        ProductSummaryService productSummaryService,
+        OwnerStatsService ownerStatsService,
+        BulkInsertService bulkInsertService,
+        ProductWriteBehindService writeBehindService,
+        ProductChangesService productChangesService,
+        PlatformTransactionManager transactionManager,
+        CacheManager cacheManager,
+        MeterRegistry meterRegistry
+    ) {
+        this.productRepository = productRepository;
+        this.userService = userService;
+        this.productSummaryService = productSummaryService;
+        this.ownerStatsService = ownerStatsService;
+        this.bulkInsertService = bulkInsertService;
+        this.writeBehindService = writeBehindService;
+        this.productChangesService = productChangesService;
+        this.transactions = new TransactionRunner(transactionManager, meterRegistry);
+        this.cache = new EntityCache<>(cacheManager, Product.class, meterRegistry);
+    }
+
+    /**
+     * Create a product.
+     *
+     * @param product the product to create.
+     * @return the created product.
+     */
+    public Product create(Product product) {
+        LOG.debug("Request to save Product : {}", product);
+        String id = product.getId();
+        Long version = product.getVersion();
+        return transactions.execute(() -> {
+            // Saving sets them, so that the product would look saved to an attempt made again
+            product.setId(id);
+            product.setVersion(version);
+            Product result = productRepository.save(product);
+            userService.evict(ownerId(result));
+            productSummaryService.productCreated(result);
+            ownerStatsService.productCreated(result);
+            return result;
+        });
+    }
+
+    /**
+     * Create many products at once.
+     *
+     * @param items the items read by {@link BulkInsertService#readItems(java.io.InputStream)}.
+     * @return one result per item, in the order of the request.
+     */
+    public List<BulkItemResultDTO> createAll(List<JsonNode> items) {
+        LOG.debug("Request to bulk save {} Products", items.size());
+        return bulkInsertService.insertAll(items, Product.class, inserted -> {
+            inserted.stream().map(ProductService::ownerId).distinct().forEach(userService::evict);
+            productSummaryService.productsCreated(inserted);
+            ownerStatsService.productsCreated(inserted);
+        });
+    }
+
+    /**
+     * Replace the fields of a product.
+     *
+     * @param product the product holding the id of the product to update and its new fields.
+     * @param expectedVersion the version the product must be at, or {@code null} to update it whatever its version.
+     * @return the updated product, or empty if no product has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the product is not at the expected version.
+     */
+    public Optional<Product> update(Product product, Long expectedVersion) {
+        LOG.debug("Request to update Product : {}", product);
+        if (writeBehindService.isEnabled()) {
+            return writeBehindService.update(product, expectedVersion).map(ProductChange::product).map(this::withOwner);
+        }
+        return transactions
+            .execute(() -> productRepository.update(product, expectedVersion).map(this::productChanged))
+            .map(this::withOwner);
+    }
+
+    /**
+     * Set the non-null fields of a product.
+     *
+     * @param product the product holding the id of the product to update and the fields to set.
+     * @param expectedVersion the version the product must be at, or {@code null} to update it whatever its version.
+     * @return the updated product, or empty if no product has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the product is not at the expected version.
+     */
+    public Optional<Product> partialUpdate(Product product, Long expectedVersion) {
+        LOG.debug("Request to partially update Product : {}", product);
+        if (writeBehindService.isEnabled()) {
+            return writeBehindService.partialUpdate(product, expectedVersion).map(ProductChange::product).map(this::withOwner);
+        }
+        return transactions
+            .execute(() -> productRepository.partialUpdate(product, expectedVersion).map(this::productChanged))
+            .map(this::withOwner);
+    }
+
+    /**
+     * Get a product, from the cache if it holds it.
+     *
+     * @param id the id of the product.
+     * @return the product, or empty if no product has this id.
+     */
+    public Optional<Product> findOne(String id) {
+        LOG.debug("Request to get Product : {}", id);
+        if (writeBehindService.isEnabled()) {
+            return writeBehindService.findOne(id).map(this::withOwner);
+        }
+        return cache.get(id, productRepository::findById).map(this::withOwner);
+    }
+
+    /**
+     * Get the version stamp of a product, from the cache if it holds the product.
+     *
+     * @param id the id of the product.
+     * @return the stamp of the product, or empty if no product has this id.
+     */
+    public Optional<VersionStamp> findVersionStamp(String id) {
+        LOG.debug("Request to get the version stamp of Product : {}", id);
+        if (writeBehindService.isEnabled()) {
+            return writeBehindService.findOne(id).map(product -> new VersionStamp(product.getVersion(), product.getLastModifiedDate()));
+        }
+        return cache
+            .peek(id)
+            .map(product -> new VersionStamp(product.getVersion(), product.getLastModifiedDate()))
+            .or(() -> productRepository.findVersionStampById(id));
+    }
+
+    /**
+     * Delete a product.
+     *
+     * @param id the id of the product.
+     */
+    public void delete(String id) {
+        LOG.debug("Request to delete Product : {}", id);
+        transactions.run(() -> {
+            Optional<ProductChange> change = productRepository.findAndDeleteById(id);
+            cache.evict(id);
+            if (writeBehindService.isEnabled()) {
+                writeBehindService.remove(id);
+            }
+            change.ifPresent(deleted -> userService.evict(deleted.previousOwnerId()));
+            change.ifPresent(deleted -> productChangesService.productDeleted(id));
+            productSummaryService.productDeleted(id);
+            change.ifPresent(ownerStatsService::productChanged);
+        });
+    }
+
+    /**
+     * Evict a product from the cache, and from the write-behind map, e.g. after it has been written by another application.
+     *
+     * @param id the id of the product; ignored if {@code null}.
+     */
+    public void evict(String id) {
+        cache.evict(id);
+        if (id != null && writeBehindService.isEnabled()) {
+            writeBehindService.evict(id);
+        }
+    }
+
+    /**
+     * Evict all the products from the cache, and from the write-behind map, e.g. when the changes made to them are unknown.
+     */
+    public void evictAll() {
+        cache.clear();
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.evictAll();
+        }
+    }
+
+    private Product productChanged(ProductChange change) {
+        Product product = change.product();
+        cache.evict(product.getId());
+        userService.evict(change.previousOwnerId());
+        userService.evict(change.ownerId());
+        productSummaryService.productUpdated(product);
+        ownerStatsService.productChanged(change);
+        return product;
+    }
+
+    // An unknown owner is kept as a reference, like Mongo does
+    private Product withOwner(Product product) {
+        String ownerId = ownerId(product);
+        if (ownerId != null) {
+            userService.findOwner(ownerId).ifPresent(product::setOwner);
+        }
+        return product;
+    }
+
+    private static String ownerId(Product product) {
+        return product.getOwner() == null ? null : product.getOwner().getId();
+    }
+}
@@ -0,0 +1,176 @@
+package com.lukethep.service;
+
+import com.lukethep.domain.Product;
+import com.lukethep.service.dto.PriceBucketDTO;
+import com.lukethep.service.dto.PriceStatsDTO;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service computing price statistics over the {@link Product} catalog.
+ * <p>
+ * The statistics are computed by the database, in a single aggregation pipeline whose {@code $facet} stage runs the
+ * summary and the histogram side by side. The per-owner statistics run in a pipeline of their own, a page of owners at a
+ * time: a facet outputs a single document, which would exceed the 16MB limit with many owners. Results are cached in the
+ * {@value #PRICE_STATS_CACHE} Hazelcast map for {@code application.price-stats.time-to-live-seconds}, so that frequent
+ * refreshes do not run the pipeline again.
+ * <p>
+ * Only the numeric prices are aggregated: the legacy prices left as strings by the migration to {@code Decimal128} sort
+ * above all the numbers, and are no prices to compute statistics of.
+ */
+@Service
+public class ProductStatsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductStatsService.class);
+
+    public static final String PRICE_STATS_CACHE = "productPriceStats";
+
+    private static final List<Double> PERCENTILES = List.of(0.5, 0.9, 0.95, 0.99);
+
+    private static final Document NUMERIC_PRICE = new Document("$type", "number");
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductStatsService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Compute the price statistics of the catalog.
+     *
+     * @param buckets the number of buckets of the histogram; buckets hold about as many products each.
+     * @return the statistics, without those of the owners.
+     */
+    @Cacheable(cacheNames = PRICE_STATS_CACHE)
+    public PriceStatsDTO getPriceStats(int buckets) {
+        LOG.debug("Request to compute the price stats of Products, in {} buckets", buckets);
+        Document facets = new Document("summary", List.of(group(null))).append(
+            "histogram",
+            List.of(new Document("$bucketAuto", new Document("groupBy", "$price").append("buckets", buckets)))
+        );
+        Aggregation aggregation = Aggregation.newAggregation(
+            stage(new Document("$match", new Document("price", NUMERIC_PRICE))),
+            stage(new Document("$project", new Document("_id", 0).append("price", 1))),
+            stage(new Document("$facet", facets))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        Document result = mongoTemplate
+            .aggregate(aggregation, mongoTemplate.getCollectionName(Product.class), Document.class)
+            .getUniqueMappedResult();
+        return toPriceStats(result);
+    }
+
+    /**
+     * Compute the price statistics of the products of a page of owners, ordered by owner id.
+     *
+     * @param afterOwnerId the id of the last owner of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of owners.
+     * @return the statistics of each owner.
+     */
+    @Cacheable(cacheNames = PRICE_STATS_CACHE)
+    public List<PriceStatsDTO> getOwnerPriceStats(String afterOwnerId, int limit) {
+        LOG.debug("Request to compute the price stats of the Products of {} owners after : {}", limit, afterOwnerId);
+        Document match = new Document("owner", new Document("$type", "object")).append("price", NUMERIC_PRICE);
+        if (afterOwnerId != null) {
+            match.append("owner.$id", new Document("$gt", ObjectId.isValid(afterOwnerId) ? new ObjectId(afterOwnerId) : afterOwnerId));
+        }
+        // Owners are DBRefs, whose "$id" field can only be read with $getField
+        Document ownerId = new Document("$getField", new Document("field", new Document("$literal", "$id")).append("input", "$owner"));
+        Aggregation aggregation = Aggregation.newAggregation(
+            stage(new Document("$match", match)),
+            stage(new Document("$project", new Document("_id", 0).append("price", 1).append("owner", 1))),
+            stage(group(ownerId)),
+            stage(new Document("$sort", new Document("_id", 1))),
+            stage(new Document("$limit", limit))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<PriceStatsDTO> owners = new ArrayList<>();
+        for (Document owner : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Product.class), Document.class)) {
+            PriceStatsDTO ownerStats = toStats(owner);
+            ownerStats.setOwnerId(String.valueOf(owner.get("_id")));
+            owners.add(ownerStats);
+        }
+        return owners;
+    }
+
+    static PriceStatsDTO toPriceStats(Document result) {
+        List<Document> summary = result.getList("summary", Document.class);
+        PriceStatsDTO stats;
+        if (summary.isEmpty()) {
+            // An empty catalog has no group at all
+            stats = new PriceStatsDTO();
+            stats.setPercentiles(Map.of());
+        } else {
+            stats = toStats(summary.get(0));
+        }
+        List<PriceBucketDTO> histogram = new ArrayList<>();
+        for (Document bucket : result.getList("histogram", Document.class)) {
+            Document bounds = bucket.get("_id", Document.class);
+            histogram.add(
+                new PriceBucketDTO(toBigDecimal(bounds.get("min")), toBigDecimal(bounds.get("max")), toLong(bucket.get("count")))
+            );
+        }
+        stats.setHistogram(histogram);
+        return stats;
+    }
+
+    private static Document group(Object key) {
+        return new Document(
+            "$group",
+            new Document("_id", key)
+                .append("count", new Document("$sum", 1))
+                .append("average", new Document("$avg", "$price"))
+                .append("min", new Document("$min", "$price"))
+                .append("max", new Document("$max", "$price"))
+                .append(
+                    "percentiles",
+                    new Document("$percentile", new Document("input", "$price").append("p", PERCENTILES).append("method", "approximate"))
+                )
+        );
+    }
+
+    private static PriceStatsDTO toStats(Document group) {
+        PriceStatsDTO stats = new PriceStatsDTO();
+        stats.setCount(toLong(group.get("count")));
+        stats.setAverage(toBigDecimal(group.get("average")));
+        stats.setMin(toBigDecimal(group.get("min")));
+        stats.setMax(toBigDecimal(group.get("max")));
+        List<?> values = group.getList("percentiles", Object.class);
+        Map<String, BigDecimal> percentiles = new LinkedHashMap<>();
+        for (int i = 0; i < PERCENTILES.size(); i++) {
+            percentiles.put("p" + Math.round(PERCENTILES.get(i) * 100), toBigDecimal(values.get(i)));
+        }
+        stats.setPercentiles(percentiles);
+        return stats;
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof Double number) {
+            return BigDecimal.valueOf(number);
+        }
+        return value == null ? null : new BigDecimal(value.toString());
+    }
+}
@@ -0,0 +1,92 @@
+package com.lukethep.service;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.repository.UserRepository;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service maintaining the {@link ProductSummary summaries} of products embedded in the documents of their owners.
+ * <p>
+ * Each change is applied with atomic single-document updates on the owners, after the product itself has been written,
+ * in the transaction of the product write: see {@link ProductService}. Bulk inserts are the exception, their summaries
+ * are added after each chunk is inserted.
+ */
+@Service
+public class ProductSummaryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSummaryService.class);
+
+    private final UserRepository userRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductSummaryService(UserRepository userRepository, ApplicationProperties applicationProperties) {
+        this.userRepository = userRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Add the summary of a new product to its owner.
+     *
+     * @param product the created product.
+     */
+    public void productCreated(Product product) {
+        productsCreated(List.of(product));
+    }
+
+    /**
+     * Add the summaries of new products to their owners, with one update per owner.
+     *
+     * @param products the created products.
+     */
+    public void productsCreated(Collection<Product> products) {
+        Map<String, List<ProductSummary>> summariesByOwner = products
+            .stream()
+            .filter(product -> product.getOwner() != null)
+            .collect(
+                Collectors.groupingBy(
+                    product -> product.getOwner().getId(),
+                    LinkedHashMap::new,
+                    Collectors.mapping(ProductSummary::of, Collectors.toList())
+                )
+            );
+        LOG.debug("Request to add the summaries of {} products to {} owners", products.size(), summariesByOwner.size());
+        summariesByOwner.forEach((ownerId, summaries) ->
+            userRepository.pushProductSummaries(ownerId, summaries, applicationProperties.getProductSummaries().getMaxSize())
+        );
+    }
+
+    /**
+     * Refresh the summary of an updated product on its owner, and remove it from a former owner.
+     *
+     * @param product the product, as stored after the update.
+     */
+    public void productUpdated(Product product) {
+        LOG.debug("Request to refresh the summary of Product : {}", product.getId());
+        String ownerId = product.getOwner() == null ? null : product.getOwner().getId();
+        userRepository.removeProductSummary(product.getId(), ownerId);
+        if (ownerId != null) {
+            int maxSize = applicationProperties.getProductSummaries().getMaxSize();
+            userRepository.saveProductSummary(ownerId, ProductSummary.of(product), maxSize);
+        }
+    }
+
+    /**
+     * Remove the summary of a deleted product from its owner.
+     *
+     * @param productId the id of the deleted product.
+     */
+    public void productDeleted(String productId) {
+        LOG.debug("Request to remove the summary of Product : {}", productId);
+        userRepository.removeProductSummary(productId, null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.lukethep.service;
+
+import com.hazelcast.map.EntryProcessor;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductChange;
+import java.time.Instant;
+import java.util.Map;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Updates a product in the {@link ProductWriteBehindService write-behind map}, on the member owning it.
+ * <p>
+ * Like the updates of the {@link com.lukethep.repository.ProductRepository}, the existence check, the version check and
+ * the write happen atomically, and the product is returned with the owner and price it had before.
+ */
+class ProductUpdateProcessor implements EntryProcessor<String, Product, ProductChange> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Product update;
+
+    private final Long expectedVersion;
+
+    private final boolean partial;
+
+    private final String auditor;
+
+    /**
+     * @param update the product holding the fields to write.
+     * @param expectedVersion the version the product must be at, or {@code null} to update it whatever its version.
+     * @param partial whether only the non-null name and price are written, instead of all the fields.
+     * @param auditor the user making the update.
+     */
+    ProductUpdateProcessor(Product update, Long expectedVersion, boolean partial, String auditor) {
+        this.update = update;
+        this.expectedVersion = expectedVersion;
+        this.partial = partial;
+        this.auditor = auditor;
+    }
+
+    @Override
+    public ProductChange process(Map.Entry<String, Product> entry) {
+        // Loaded from Mongo if the map does not hold it yet
+        Product product = entry.getValue();
+        if (product == null) {
+            return null;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new OptimisticLockingFailureException("Product " + entry.getKey() + " is not at version " + expectedVersion);
+        }
+        User previousOwner = product.getOwner();
+        ProductChange change = new ProductChange(product, previousOwner == null ? null : previousOwner.getId(), product.getPrice());
+        if (partial && update.getName() == null && update.getPrice() == null) {
+            return change;
+        }
+        if (!partial || update.getName() != null) {
+            product.setName(update.getName());
+        }
+        if (!partial || update.getPrice() != null) {
+            product.setPrice(update.getPrice());
+        }
+        if (!partial) {
+            product.setOwner(update.getOwner());
+        }
+        product.setVersion(product.getVersion() == null ? 1 : product.getVersion() + 1);
+        product.setLastModifiedDate(Instant.now());
+        product.setLastModifiedBy(auditor);
+        entry.setValue(product);
+        return change;
+    }
+}
@@ -0,0 +1,155 @@
+package com.lukethep.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service writing product updates behind, enabled by {@code application.write-behind.enabled}.
+ * <p>
+ * The Hazelcast map named {@value #MAP_NAME} then is the system of record for the products it holds: updates are
+ * applied to the map, and the {@link ProductMapStore} writes them to Mongo after {@code application.write-behind.write-delay-seconds},
+ * coalescing the updates of the same product in the meantime into a single write. Reads by id are served from the map
+ * too, but the other reads go to Mongo and only see an update once it has been written there, as do the derived data.
+ * <p>
+ * The number of updates waiting to be written by this member is published as the {@value #QUEUE_METER_NAME} gauge.
+ * Pending updates are written before the application shuts down.
+ */
+@Service
+// The map store must exist before the map is created, and write the pending updates before it is destroyed
+@DependsOn("productMapStore")
+public class ProductWriteBehindService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductWriteBehindService.class);
+
+    public static final String MAP_NAME = "product";
+
+    static final String QUEUE_METER_NAME = "product.write-behind.queue";
+
+    private final IMap<String, Product> map;
+
+    private final AuditorAware<String> auditorAware;
+
+    public ProductWriteBehindService(
+        HazelcastInstance hazelcastInstance,
+        AuditorAware<String> auditorAware,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.auditorAware = auditorAware;
+        if (applicationProperties.getWriteBehind().isEnabled()) {
+            this.map = hazelcastInstance.getMap(MAP_NAME);
+            Gauge.builder(QUEUE_METER_NAME, map, pending -> pending.getLocalMapStats().getDirtyEntryCount())
+                .description("Number of product updates waiting to be written to Mongo by this member")
+                .register(meterRegistry);
+        } else {
+            this.map = null;
+        }
+    }
+
+    /**
+     * @return whether product updates are written behind.
+     */
+    public boolean isEnabled() {
+        return map != null;
+    }
+
+    /**
+     * Replace the fields of a product in the map.
+     *
+     * @param product the product holding the id of the product to update and its new fields.
+     * @param expectedVersion the version the product must be at, or {@code null} to update it whatever its version.
+     * @return the updated product with its previous owner and price, or empty if no product has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the product is not at the expected version.
+     */
+    public Optional<ProductChange> update(Product product, Long expectedVersion) {
+        LOG.debug("Request to update Product behind : {}", product);
+        // The map holds the owners by id only, like the product cache
+        User owner = product.getOwner() == null ? null : new User().id(product.getOwner().getId());
+        Product update = new Product().name(product.getName()).price(product.getPrice()).owner(owner);
+        return execute(product.getId(), new ProductUpdateProcessor(update, expectedVersion, false, currentAuditor()));
+    }
+
+    /**
+     * Set the non-null name and price of a product in the map.
+     *
+     * @param product the product holding the id of the product to update and the fields to set.
+     * @param expectedVersion the version the product must be at, or {@code null} to update it whatever its version.
+     * @return the updated product with its previous owner and price, or empty if no product has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the product is not at the expected version.
+     */
+    public Optional<ProductChange> partialUpdate(Product product, Long expectedVersion) {
+        LOG.debug("Request to partially update Product behind : {}", product);
+        Product update = new Product().name(product.getName()).price(product.getPrice());
+        return execute(product.getId(), new ProductUpdateProcessor(update, expectedVersion, true, currentAuditor()));
+    }
+
+    /**
+     * Get a product from the map, loading it from Mongo if the map does not hold it.
+     *
+     * @param id the id of the product.
+     * @return the product, or empty if no product has this id.
+     */
+    public Optional<Product> findOne(String id) {
+        return Optional.ofNullable(map.get(id));
+    }
+
+    /**
+     * Remove a product from the map, once it has been deleted from Mongo.
+     *
+     * @param id the id of the product.
+     */
+    public void remove(String id) {
+        // Also replaces a pending update of the product, which is not written anymore
+        map.delete(id);
+    }
+
+    /**
+     * Evict a product from the map, e.g. after it has been written by another application, to load it again on access.
+     * <p>
+     * A pending update of the product is still written, unless the product has been written at a later version since.
+     *
+     * @param id the id of the product.
+     */
+    public void evict(String id) {
+        map.evict(id);
+    }
+
+    /**
+     * Evict all the products from the map, e.g. when the changes made to them are unknown.
+     */
+    public void evictAll() {
+        map.evictAll();
+    }
+
+    /**
+     * Write the pending updates to Mongo.
+     */
+    @PreDestroy
+    public void flush() {
+        if (isEnabled()) {
+            LOG.info("Writing {} pending product updates", map.getLocalMapStats().getDirtyEntryCount());
+            map.flush();
+        }
+    }
+
+    private Optional<ProductChange> execute(String id, ProductUpdateProcessor processor) {
+        return Optional.ofNullable(map.executeOnKey(id, processor));
+    }
+
+    private String currentAuditor() {
+        return auditorAware.getCurrentAuditor().orElse(null);
+    }
+}
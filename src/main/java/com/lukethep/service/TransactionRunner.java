@@ -0,0 +1,103 @@
+package com.lukethep.service;
+
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs units of work in a Mongo transaction, and runs them again when the transaction is aborted by a transient error.
+ * <p>
+ * Concurrent transactions writing the same document conflict, and Mongo aborts all of them but one with a
+ * {@value MongoException#TRANSIENT_TRANSACTION_ERROR_LABEL}: two writes on products of the same owner both update the
+ * summaries and the aggregates of the owner, for instance. An aborted transaction has written nothing, so its unit of
+ * work is run again from the start, after a short random backoff, up to {@value #MAX_ATTEMPTS} times in all. The retries
+ * are counted in the {@value #RETRIES_METER_NAME} counter.
+ * <p>
+ * A unit of work joining a transaction already in progress is not retried on its own: the whole transaction is aborted.
+ */
+class TransactionRunner {
+
+    static final String RETRIES_METER_NAME = "mongo.transaction.retries";
+
+    static final int MAX_ATTEMPTS = 5;
+
+    private static final long BACKOFF_MILLIS = 10;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter retries;
+
+    /**
+     * @param transactionManager the manager of the Mongo transactions.
+     * @param meterRegistry the registry to publish the number of retries to.
+     */
+    TransactionRunner(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retries = Counter.builder(RETRIES_METER_NAME)
+            .description("Mongo transactions run again after a transient error, e.g. a write conflict")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run a unit of work in a transaction, retrying it if the transaction is aborted by a transient error.
+     *
+     * @param unit the unit of work.
+     * @param <T> the type of the result.
+     * @return the result of the unit of work.
+     */
+    <T> T execute(Supplier<T> unit) {
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> unit.get());
+            } catch (RuntimeException e) {
+                if (joined || attempt >= MAX_ATTEMPTS || !isTransient(e)) {
+                    throw e;
+                }
+                retries.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Run a unit of work without result in a transaction, retrying it if the transaction is aborted by a transient error.
+     *
+     * @param unit the unit of work.
+     */
+    void run(Runnable unit) {
+        execute(() -> {
+            unit.run();
+            return null;
+        });
+    }
+
+    static boolean isTransient(Throwable e) {
+        // Translated by Spring to an exception of its own, depending on the operation and the error
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (
+                cause instanceof MongoException mongoException &&
+                mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            // Spreads the conflicting transactions apart
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a transaction", e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.lukethep.service;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.domain.VersionStamp;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Service for managing {@link User}s one by one.
+ * <p>
+ * Users are read by id through a cache, and evicted from it when they are written. The cache holds the products of a
+ * user by id only, and loads the user without resolving them: they are resolved on read from the product cache, and the
+ * products it misses from Mongo in a single query. Cached products likewise hold their owner by id only, so a write on
+ * a user never leaves its former fields in them.
+ */
+@Service
+public class UserService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserService.class);
+
+    private final UserRepository userRepository;
+
+    private final ProductRepository productRepository;
+
+    private final OwnerStatsService ownerStatsService;
+
+    private final TransactionRunner transactions;
+
+    private final EntityCache<User> cache;
+
+    private final Cache productCache;
+
+    public UserService(
+        UserRepository userRepository,
+        ProductRepository productRepository,
+        OwnerStatsService ownerStatsService,
+        PlatformTransactionManager transactionManager,
+        CacheManager cacheManager,
+        MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.ownerStatsService = ownerStatsService;
+        this.transactions = new TransactionRunner(transactionManager, meterRegistry);
+        this.cache = new EntityCache<>(cacheManager, User.class, meterRegistry);
+        this.productCache = cacheManager.getCache(Product.class.getName());
+    }
+
+    /**
+     * Create a user.
+     *
+     * @param user the user to create.
+     * @return the created user.
+     */
+    public User create(User user) {
+        LOG.debug("Request to save User : {}", user);
+        return userRepository.save(user);
+    }
+
+    /**
+     * Replace the fields of a user.
+     *
+     * @param user the user holding the id of the user to update and its new fields.
+     * @param expectedVersion the version the user must be at, or {@code null} to update it whatever its version.
+     * @return the updated user, or empty if no user has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the user is not at the expected version.
+     */
+    public Optional<User> update(User user, Long expectedVersion) {
+        LOG.debug("Request to update User : {}", user);
+        Optional<User> result = userRepository.update(user, expectedVersion);
+        cache.evict(user.getId());
+        return result;
+    }
+
+    /**
+     * Set the non-null fields of a user.
+     *
+     * @param user the user holding the id of the user to update and the fields to set.
+     * @param expectedVersion the version the user must be at, or {@code null} to update it whatever its version.
+     * @return the updated user, or empty if no user has this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the user is not at the expected version.
+     */
+    public Optional<User> partialUpdate(User user, Long expectedVersion) {
+        LOG.debug("Request to partially update User : {}", user);
+        Optional<User> result = userRepository.partialUpdate(user, expectedVersion);
+        cache.evict(user.getId());
+        return result;
+    }
+
+    /**
+     * Get a user, from the cache if it holds it.
+     *
+     * @param id the id of the user.
+     * @return the user, or empty if no user has this id.
+     */
+    public Optional<User> findOne(String id) {
+        LOG.debug("Request to get User : {}", id);
+        return cache.get(id, userRepository::findWithProductIdsById).map(this::withProducts);
+    }
+
+    /**
+     * Get a user as the owner of a product, from the cache if it holds it, without resolving its products.
+     *
+     * @param id the id of the user.
+     * @return the user, whose products may only hold their id, or empty if no user has this id.
+     */
+    Optional<User> findOwner(String id) {
+        LOG.debug("Request to get the owner User : {}", id);
+        return cache.get(id, userRepository::findWithProductIdsById);
+    }
+
+    /**
+     * Get the version stamp of a user, from the cache if it holds the user.
+     *
+     * @param id the id of the user.
+     * @return the stamp of the user, or empty if no user has this id.
+     */
+    public Optional<VersionStamp> findVersionStamp(String id) {
+        LOG.debug("Request to get the version stamp of User : {}", id);
+        return cache
+            .peek(id)
+            .map(user -> new VersionStamp(user.getVersion(), user.getLastModifiedDate()))
+            .or(() -> userRepository.findVersionStampById(id));
+    }
+
+    /**
+     * Delete a user, and the aggregates of its products.
+     *
+     * @param id the id of the user.
+     */
+    public void delete(String id) {
+        LOG.debug("Request to delete User : {}", id);
+        transactions.run(() -> {
+            userRepository.deleteById(id);
+            ownerStatsService.ownerDeleted(id);
+            cache.evict(id);
+        });
+    }
+
+    /**
+     * Evict a user from the cache, e.g. after a write on one of the products it references.
+     *
+     * @param id the id of the user; ignored if {@code null}.
+     */
+    public void evict(String id) {
+        cache.evict(id);
+    }
+
+    /**
+     * Evict all the users from the cache, e.g. when the changes made to them are unknown.
+     */
+    public void evictAll() {
+        cache.clear();
+    }
+
+    private User withProducts(User user) {
+        if (user.getProducts() == null || user.getProducts().isEmpty()) {
+            return user;
+        }
+        List<Product> products = new ArrayList<>(user.getProducts().size());
+        List<String> missing = new ArrayList<>();
+        for (Product product : user.getProducts()) {
+            Product cached = productCache.get(product.getId(), Product.class);
+            if (cached != null) {
+                products.add(cached);
+            } else {
+                missing.add(product.getId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Like the references read from Mongo, leave out the products which do not exist anymore
+            productRepository.findAllById(missing).forEach(products::add);
+        }
+        user.setProducts(new HashSet<>(products));
+        return user;
+    }
+}
@@ -0,0 +1,155 @@
+package com.lukethep.service.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Optional;
+import org.springdoc.core.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.*;
+
+/**
+ * Criteria class for the {@link com.lukethep.domain.Product} entity. This class is used
+ * in {@link com.lukethep.web.rest.ProductResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /products?price.greaterThan=5&name.contains=something&owner.equals=6543a1b2c3d4e5f601234567}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private StringFilter id;
+
+    private StringFilter name;
+
+    private BigDecimalFilter price;
+
+    private StringFilter owner;
+
+    public ProductCriteria() {}
+
+    public ProductCriteria(ProductCriteria other) {
+        this.id = other.optionalId().map(StringFilter::copy).orElse(null);
+        this.name = other.optionalName().map(StringFilter::copy).orElse(null);
+        this.price = other.optionalPrice().map(BigDecimalFilter::copy).orElse(null);
+        this.owner = other.optionalOwner().map(StringFilter::copy).orElse(null);
+    }
+
+    @Override
+    public ProductCriteria copy() {
+        return new ProductCriteria(this);
+    }
+
+    public StringFilter getId() {
+        return id;
+    }
+
+    public Optional<StringFilter> optionalId() {
+        return Optional.ofNullable(id);
+    }
+
+    public StringFilter id() {
+        if (id == null) {
+            setId(new StringFilter());
+        }
+        return id;
+    }
+
+    public void setId(StringFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getName() {
+        return name;
+    }
+
+    public Optional<StringFilter> optionalName() {
+        return Optional.ofNullable(name);
+    }
+
+    public StringFilter name() {
+        if (name == null) {
+            setName(new StringFilter());
+        }
+        return name;
+    }
+
+    public void setName(StringFilter name) {
+        this.name = name;
+    }
+
+    public BigDecimalFilter getPrice() {
+        return price;
+    }
+
+    public Optional<BigDecimalFilter> optionalPrice() {
+        return Optional.ofNullable(price);
+    }
+
+    public BigDecimalFilter price() {
+        if (price == null) {
+            setPrice(new BigDecimalFilter());
+        }
+        return price;
+    }
+
+    public void setPrice(BigDecimalFilter price) {
+        this.price = price;
+    }
+
+    public StringFilter getOwner() {
+        return owner;
+    }
+
+    public Optional<StringFilter> optionalOwner() {
+        return Optional.ofNullable(owner);
+    }
+
+    public StringFilter owner() {
+        if (owner == null) {
+            setOwner(new StringFilter());
+        }
+        return owner;
+    }
+
+    public void setOwner(StringFilter owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ProductCriteria that = (ProductCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(name, that.name) &&
+            Objects.equals(price, that.price) &&
+            Objects.equals(owner, that.owner)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, price, owner);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductCriteria{" +
+            optionalId().map(f -> "id=" + f + ", ").orElse("") +
+            optionalName().map(f -> "name=" + f + ", ").orElse("") +
+            optionalPrice().map(f -> "price=" + f + ", ").orElse("") +
+            optionalOwner().map(f -> "owner=" + f + ", ").orElse("") +
+        "}";
+    }
+}
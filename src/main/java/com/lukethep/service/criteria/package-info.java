@@ -0,0 +1,4 @@
+/**
+ * Criteria classes, used to filter entities from the request parameters.
+ */
+package com.lukethep.service.criteria;
@@ -0,0 +1,89 @@
+package com.lukethep.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO reporting the outcome of one item of a bulk request.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class BulkItemResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int index;
+
+    private String id;
+
+    private int status;
+
+    private String error;
+
+    public BulkItemResultDTO() {}
+
+    public BulkItemResultDTO(int index, String id, int status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BulkItemResultDTO that)) {
+            return false;
+        }
+        return index == that.index && status == that.status && Objects.equals(id, that.id) && Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, status, error);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkItemResultDTO{" +
+            "index=" + getIndex() +
+            ", id='" + getId() + "'" +
+            ", status=" + getStatus() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,79 @@
+package com.lukethep.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A DTO for one bucket of a price histogram: the number of products priced from {@code min}, included, to {@code max},
+ * excluded unless it is the last bucket.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class PriceBucketDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private BigDecimal min;
+
+    private BigDecimal max;
+
+    private long count;
+
+    public PriceBucketDTO() {}
+
+    public PriceBucketDTO(BigDecimal min, BigDecimal max, long count) {
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PriceBucketDTO that)) {
+            return false;
+        }
+        return count == that.count && Objects.equals(min, that.min) && Objects.equals(max, that.max);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(min, max, count);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceBucketDTO{" +
+            "min=" + getMin() +
+            ", max=" + getMax() +
+            ", count=" + getCount() +
+            "}";
+    }
+}
@@ -0,0 +1,141 @@
+package com.lukethep.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A DTO for the price statistics of a set of products: either the whole catalog, or the products of one owner.
+ * <p>
+ * The histogram is only computed over the whole catalog, and the statistics of a page of owners only when they are
+ * requested.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class PriceStatsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String ownerId;
+
+    private long count;
+
+    private BigDecimal average;
+
+    private BigDecimal min;
+
+    private BigDecimal max;
+
+    private Map<String, BigDecimal> percentiles;
+
+    private List<PriceBucketDTO> histogram;
+
+    private List<PriceStatsDTO> owners;
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getAverage() {
+        return average;
+    }
+
+    public void setAverage(BigDecimal average) {
+        this.average = average;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
+
+    public Map<String, BigDecimal> getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(Map<String, BigDecimal> percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    public List<PriceBucketDTO> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(List<PriceBucketDTO> histogram) {
+        this.histogram = histogram;
+    }
+
+    public List<PriceStatsDTO> getOwners() {
+        return owners;
+    }
+
+    public void setOwners(List<PriceStatsDTO> owners) {
+        this.owners = owners;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PriceStatsDTO that)) {
+            return false;
+        }
+        return (
+            count == that.count &&
+            Objects.equals(ownerId, that.ownerId) &&
+            Objects.equals(average, that.average) &&
+            Objects.equals(min, that.min) &&
+            Objects.equals(max, that.max) &&
+            Objects.equals(percentiles, that.percentiles) &&
+            Objects.equals(histogram, that.histogram) &&
+            Objects.equals(owners, that.owners)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ownerId, count, average, min, max, percentiles, histogram, owners);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PriceStatsDTO{" +
+            "ownerId='" + getOwnerId() + "'" +
+            ", count=" + getCount() +
+            ", average=" + getAverage() +
+            ", min=" + getMin() +
+            ", max=" + getMax() +
+            ", percentiles=" + getPercentiles() +
+            ", histogram=" + getHistogram() +
+            ", owners=" + getOwners() +
+            "}";
+    }
+}
@@ -0,0 +1,103 @@
+package com.lukethep.service.dto;
+
+import com.lukethep.domain.Product;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A DTO for a page of the changes of the products since a sync token.
+ * <p>
+ * The products created or updated are sent whole, the deleted ones by id. The token resumes the sync after this page;
+ * when {@code hasMore} is set, the next page can be asked for right away.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductChangesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Product> created = new ArrayList<>();
+
+    private List<Product> updated = new ArrayList<>();
+
+    private List<String> deleted = new ArrayList<>();
+
+    private String token;
+
+    private boolean hasMore;
+
+    public List<Product> getCreated() {
+        return created;
+    }
+
+    public void setCreated(List<Product> created) {
+        this.created = created;
+    }
+
+    public List<Product> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<Product> updated) {
+        this.updated = updated;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<String> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductChangesDTO that)) {
+            return false;
+        }
+        return (
+            hasMore == that.hasMore &&
+            Objects.equals(created, that.created) &&
+            Objects.equals(updated, that.updated) &&
+            Objects.equals(deleted, that.deleted) &&
+            Objects.equals(token, that.token)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(created, updated, deleted, token, hasMore);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductChangesDTO{" +
+            "created=" + getCreated().size() +
+            ", updated=" + getUpdated().size() +
+            ", deleted=" + getDeleted().size() +
+            ", token='" + getToken() + "'" +
+            ", hasMore=" + isHasMore() +
+            "}";
+    }
+}
@@ -0,0 +1,146 @@
+package com.lukethep.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A DTO for a change of a product, as sent on the product events feed.
+ * <p>
+ * The id of an event is the resume token of the change in the Mongo change stream, so it is the same on every member and
+ * can be sent back as a {@code Last-Event-ID}. A deleted product only has its id; a {@value #RESET} event has neither a
+ * product nor an id, and tells the subscriber that changes may have been missed. The previous owner of a product is
+ * only told when the change has taken the product away from it, by deleting it or giving it to another owner.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductEventDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String RESET = "reset";
+
+    private String id;
+
+    private String type;
+
+    private String productId;
+
+    private String ownerId;
+
+    private String previousOwnerId;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private Long version;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getPreviousOwnerId() {
+        return previousOwnerId;
+    }
+
+    public void setPreviousOwnerId(String previousOwnerId) {
+        this.previousOwnerId = previousOwnerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductEventDTO that)) {
+            return false;
+        }
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(type, that.type) &&
+            Objects.equals(productId, that.productId) &&
+            Objects.equals(ownerId, that.ownerId) &&
+            Objects.equals(previousOwnerId, that.previousOwnerId) &&
+            Objects.equals(name, that.name) &&
+            Objects.equals(price, that.price) &&
+            Objects.equals(version, that.version)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, type, productId, ownerId, previousOwnerId, name, price, version);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductEventDTO{" +
+            "id='" + getId() + "'" +
+            ", type='" + getType() + "'" +
+            ", productId='" + getProductId() + "'" +
+            ", ownerId='" + getOwnerId() + "'" +
+            ", previousOwnerId='" + getPreviousOwnerId() + "'" +
+            ", name='" + getName() + "'" +
+            ", price=" + getPrice() +
+            ", version=" + getVersion() +
+            "}";
+    }
+}
@@ -0,0 +1,110 @@
+package com.lukethep.service.dto;
+
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A DTO for the summary view of a {@link User}: the user with the summaries of its products, read from a single document.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class UserSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    private Long version;
+
+    private String name;
+
+    private String email;
+
+    private List<ProductSummary> productSummaries;
+
+    public UserSummaryDTO() {}
+
+    public UserSummaryDTO(User user) {
+        this.id = user.getId();
+        this.version = user.getVersion();
+        this.name = user.getName();
+        this.email = user.getEmail();
+        this.productSummaries = user.getProductSummaries() == null ? List.of() : user.getProductSummaries();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<ProductSummary> getProductSummaries() {
+        return productSummaries;
+    }
+
+    public void setProductSummaries(List<ProductSummary> productSummaries) {
+        this.productSummaries = productSummaries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserSummaryDTO that)) {
+            return false;
+        }
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(version, that.version) &&
+            Objects.equals(name, that.name) &&
+            Objects.equals(email, that.email) &&
+            Objects.equals(productSummaries, that.productSummaries)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, version, name, email, productSummaries);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserSummaryDTO{" +
+            "id='" + getId() + "'" +
+            ", version=" + getVersion() +
+            ", name='" + getName() + "'" +
+            ", email='" + getEmail() + "'" +
+            ", productSummaries=" + getProductSummaries() +
+            "}";
+    }
+}
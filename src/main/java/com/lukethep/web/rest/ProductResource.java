@@ -1,20 +1,58 @@
 package com.lukethep.web.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lukethep.config.ApplicationProperties;
 import com.lukethep.domain.Product;
+import com.lukethep.domain.VersionStamp;
 import com.lukethep.repository.ProductRepository;
+import com.lukethep.service.BulkInsertService;
+import com.lukethep.service.ProductChangesService;
+import com.lukethep.service.ProductEventService;
+import com.lukethep.service.ProductExportService;
+import com.lukethep.service.ProductQueryService;
+import com.lukethep.service.ProductService;
+import com.lukethep.service.ProductStatsService;
+import com.lukethep.service.criteria.ProductCriteria;
+import com.lukethep.service.dto.BulkItemResultDTO;
+import com.lukethep.service.dto.PriceStatsDTO;
+import com.lukethep.service.dto.ProductChangesDTO;
+import com.lukethep.service.dto.ProductEventDTO;
 import com.lukethep.web.rest.errors.BadRequestAlertException;
+import com.lukethep.web.util.CursorPaginationUtil;
+import com.lukethep.web.util.EntityTagUtil;
+import com.lukethep.web.util.FieldSelectionUtil;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -29,13 +67,55 @@ public class ProductResource {
 
     private static final String ENTITY_NAME = "jhipsterMongoMsProduct";
 
+    private static final Set<String> SELECTABLE_FIELDS = Set.of(
+        "id", "version", "name", "price", "owner", "createdBy", "createdDate", "lastModifiedBy", "lastModifiedDate"
+    );
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final ProductRepository productRepository;
 
-    public ProductResource(ProductRepository productRepository) {
+    private final ProductExportService productExportService;
+
+    private final ProductStatsService productStatsService;
+
+    private final ProductEventService productEventService;
+
+    private final ProductChangesService productChangesService;
+
+    private final ProductQueryService productQueryService;
+
+    private final ProductService productService;
+
+    private final BulkInsertService bulkInsertService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectMapper objectMapper;
+
+    public ProductResource(
+        ProductRepository productRepository,
+        ProductExportService productExportService,
+        ProductStatsService productStatsService,
+        ProductEventService productEventService,
+        ProductChangesService productChangesService,
+        ProductQueryService productQueryService,
+        ProductService productService,
+        BulkInsertService bulkInsertService,
+        ApplicationProperties applicationProperties,
+        ObjectMapper objectMapper
+    ) {
         this.productRepository = productRepository;
+        this.productQueryService = productQueryService;
+        this.productService = productService;
+        this.productExportService = productExportService;
+        this.productStatsService = productStatsService;
+        this.productEventService = productEventService;
+        this.productChangesService = productChangesService;
+        this.bulkInsertService = bulkInsertService;
+        this.applicationProperties = applicationProperties;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -51,26 +131,54 @@ public class ProductResource {
         if (product.getId() != null) {
             throw new BadRequestAlertException("A new product cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        product = productRepository.save(product);
+        product = productService.create(product);
         return ResponseEntity.created(new URI("/api/products/" + product.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, product.getId()))
             .body(product);
     }
 
+    /**
+     * {@code POST  /products/_bulk} : Create many products at once.
+     * <p>
+     * The body is either a JSON array or newline-delimited JSON. Each item is validated and written on its own, a failed
+     * item does not prevent the others from being created.
+     *
+     * @param body the products to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body one result per product, holding its new id
+     * or the reason why it was not created, or with status {@code 400 (Bad Request)} if the body is malformed or too large.
+     * @throws IOException if reading the body fails.
+     */
+    @PostMapping(value = "/_bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<List<BulkItemResultDTO>> createProducts(InputStream body) throws IOException {
+        LOG.debug("REST request to bulk save Products");
+        List<JsonNode> items;
+        try {
+            items = bulkInsertService.readItems(body);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestAlertException("Malformed bulk request", ENTITY_NAME, "bulkmalformed");
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "bulktoolarge");
+        }
+        return ResponseEntity.ok().body(productService.createAll(items));
+    }
+
     /**
      * {@code PUT  /products/:id} : Updates an existing product.
      *
      * @param id the id of the product to save.
      * @param product the product to update.
+     * @param ifMatch the entity tag the product must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated product,
      * or with status {@code 400 (Bad Request)} if the product is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the product has changed since {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the product couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
         @PathVariable(value = "id", required = false) final String id,
-        @Valid @RequestBody Product product
+        @Valid @RequestBody Product product,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         LOG.debug("REST request to update Product : {}, {}", id, product);
         if (product.getId() == null) {
@@ -80,14 +188,17 @@ public class ProductResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!productRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        product = productRepository.save(product);
+        Product result = productService
+            .update(product, expectedVersion(ifMatch))
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, product.getId()))
-            .body(product);
+            .headers(
+                EntityTagUtil.withEntityTag(
+                    HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId()),
+                    result.getVersion()
+                )
+            )
+            .body(result);
     }
 
     /**
@@ -95,16 +206,19 @@ public class ProductResource {
      *
      * @param id the id of the product to save.
      * @param product the product to update.
+     * @param ifMatch the entity tag the product must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated product,
      * or with status {@code 400 (Bad Request)} if the product is not valid,
      * or with status {@code 404 (Not Found)} if the product is not found,
+     * or with status {@code 412 (Precondition Failed)} if the product has changed since {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the product couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Product> partialUpdateProduct(
         @PathVariable(value = "id", required = false) final String id,
-        @NotNull @RequestBody Product product
+        @NotNull @RequestBody Product product,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         LOG.debug("REST request to partial update Product partially : {}, {}", id, product);
         if (product.getId() == null) {
@@ -114,52 +228,273 @@ public class ProductResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!productRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        Optional<Product> result = productService.partialUpdate(product, expectedVersion(ifMatch));
+        return result
+            .map(updated ->
+                ResponseEntity.ok()
+                    .headers(
+                        EntityTagUtil.withEntityTag(
+                            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, updated.getId()),
+                            updated.getVersion()
+                        )
+                    )
+                    .body(updated)
+            )
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        Optional<Product> result = productRepository
-            .findById(product.getId())
-            .map(existingProduct -> {
-                if (product.getName() != null) {
-                    existingProduct.setName(product.getName());
-                }
-                if (product.getPrice() != null) {
-                    existingProduct.setPrice(product.getPrice());
-                }
+    /**
+     * {@code GET  /products} : get a page of the products matching the criteria.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param sort the sort order, {@code property[,asc|desc]} on {@code id}, {@code name} or {@code price}; {@code id} by default.
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the cursor is invalid.
+     */
+    @GetMapping("")
+    public ResponseEntity<List<Product>> getAllProducts(
+        ProductCriteria criteria,
+        @RequestParam(name = CursorPaginationUtil.SORT_PARAMETER, required = false) String sort,
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get a page of Products by criteria : {}, sort : {}, after : {}", criteria, sort, after);
+        return getPage(criteria, sort, after, limit, null, Function.identity());
+    }
 
-                return existingProduct;
-            })
-            .map(productRepository::save);
+    /**
+     * {@code GET  /products?fields=} : get a page of the products matching the criteria, with only the requested fields.
+     *
+     * @param fields the comma-separated list of fields to return.
+     * @param criteria the criteria which the requested entities should match.
+     * @param sort the sort order, {@code property[,asc|desc]} on {@code id}, {@code name} or {@code price}; {@code id} by default.
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body,
+     * or with status {@code 400 (Bad Request)} if the sort order, the cursor or a field is invalid.
+     */
+    @GetMapping(value = "", params = FieldSelectionUtil.FIELDS_PARAMETER)
+    public ResponseEntity<List<ObjectNode>> getAllProductsWithFields(
+        @RequestParam(name = FieldSelectionUtil.FIELDS_PARAMETER) String fields,
+        ProductCriteria criteria,
+        @RequestParam(name = CursorPaginationUtil.SORT_PARAMETER, required = false) String sort,
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug(
+            "REST request to get a page of Products by criteria : {}, sort : {}, after : {}, fields : {}",
+            criteria,
+            sort,
+            after,
+            fields
+        );
+        Set<String> selectedFields = parseFields(fields);
+        return getPage(criteria, sort, after, limit, selectedFields, product ->
+            FieldSelectionUtil.selectFields(objectMapper, product, selectedFields)
+        );
+    }
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, product.getId())
+    /**
+     * {@code GET  /products/_export} : stream all the products, as newline-delimited JSON or CSV.
+     *
+     * @param format the export format, {@code ndjson} or {@code csv}.
+     * @param response the response the products are written to.
+     * @throws IOException if writing the response fails.
+     */
+    @GetMapping("/_export")
+    public void exportProducts(@RequestParam(name = "format", defaultValue = "ndjson") String format, HttpServletResponse response)
+        throws IOException {
+        LOG.debug("REST request to export all Products as {}", format);
+        ProductExportService.Format exportFormat;
+        try {
+            exportFormat = ProductExportService.Format.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unsupported export format", ENTITY_NAME, "formatinvalid");
+        }
+        response.setContentType(exportFormat.getMediaType().toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("products." + exportFormat.getExtension()).build().toString()
         );
+        productExportService.exportAll(exportFormat, response.getOutputStream());
     }
 
     /**
-     * {@code GET  /products} : get all the products.
+     * {@code GET  /products/_stats} : get the price statistics of the catalog.
+     * <p>
+     * The statistics are computed by the database and cached for {@code application.price-stats.time-to-live-seconds}.
+     * The statistics of the owners are paginated, ordered by owner id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
+     * @param groupBy {@code owner} to also get the statistics of the products of a page of owners.
+     * @param buckets the number of buckets of the price histogram, capped by {@code application.price-stats.max-buckets}.
+     * @param after the cursor of the next page of owners returned with the previous page, if any.
+     * @param limit the number of owners, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the statistics,
+     * or with status {@code 400 (Bad Request)} if the grouping, the number of buckets or the cursor is invalid.
      */
-    @GetMapping("")
-    public List<Product> getAllProducts() {
-        LOG.debug("REST request to get all Products");
-        return productRepository.findAll();
+    @GetMapping("/_stats")
+    public ResponseEntity<PriceStatsDTO> getProductStats(
+        @RequestParam(name = "groupBy", required = false) String groupBy,
+        @RequestParam(name = "buckets", defaultValue = "10") int buckets,
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get the price stats of Products, grouped by : {}, after : {}", groupBy, after);
+        if (groupBy != null && !"owner".equals(groupBy)) {
+            throw new BadRequestAlertException("Unsupported grouping", ENTITY_NAME, "groupbyinvalid");
+        }
+        if (buckets < 1 || buckets > applicationProperties.getPriceStats().getMaxBuckets()) {
+            throw new BadRequestAlertException("Invalid number of buckets", ENTITY_NAME, "bucketsinvalid");
+        }
+        PriceStatsDTO stats = productStatsService.getPriceStats(buckets);
+        if (groupBy == null) {
+            return ResponseEntity.ok().body(stats);
+        }
+
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        String afterOwnerId;
+        try {
+            afterOwnerId = after == null ? null : CursorPaginationUtil.decodeCursor(after).get(0);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        List<PriceStatsDTO> owners = productStatsService.getOwnerPriceStats(afterOwnerId, pageSize + 1);
+        String nextCursor = null;
+        if (owners.size() > pageSize) {
+            owners = owners.subList(0, pageSize);
+            nextCursor = CursorPaginationUtil.encodeCursor(owners.get(pageSize - 1).getOwnerId());
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            pageSize
+        );
+        // The cached statistics are shared, and left as they are
+        PriceStatsDTO grouped = new PriceStatsDTO();
+        grouped.setCount(stats.getCount());
+        grouped.setAverage(stats.getAverage());
+        grouped.setMin(stats.getMin());
+        grouped.setMax(stats.getMax());
+        grouped.setPercentiles(stats.getPercentiles());
+        grouped.setHistogram(stats.getHistogram());
+        grouped.setOwners(List.copyOf(owners));
+        return ResponseEntity.ok().headers(headers).body(grouped);
+    }
+
+    /**
+     * {@code GET  /products/_events} : follow the changes of the products as Server-Sent Events.
+     * <p>
+     * Each event is named after its type and carries the changed product; a {@code reset} event tells that changes may
+     * have been missed, and that the products have to be read again. A subscriber reading too slowly is disconnected, and
+     * the subscription is closed after {@code application.product-events.timeout-seconds}: in both cases the client resumes
+     * by sending the id of the last event it got.
+     *
+     * @param ownerId the id of the owner whose products to follow, including those deleted or given to another owner; all
+     * the products if absent.
+     * @param lastEventId the id of the last event received, to resume after it.
+     * @return the event stream.
+     * @throws ResponseStatusException with status {@code 503 (Service Unavailable)} if the product events are not served,
+     * as change streams are not enabled.
+     */
+    @GetMapping(value = "/_events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductEvents(
+        @RequestParam(name = "owner", required = false) String ownerId,
+        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        LOG.debug("REST request to follow the events of Products, owner : {}", ownerId);
+        if (!productEventService.isRunning()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Product events are not enabled");
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(applicationProperties.getProductEvents().getTimeoutSeconds()));
+        ProductEventService.Subscription subscription = productEventService.subscribe(ownerId, lastEventId, new EmitterSink(emitter));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    /**
+     * {@code GET  /products/_changes} : get the products created, updated and deleted since a sync token.
+     * <p>
+     * A client syncs from scratch without a token, then keeps the token of each response to get the following changes.
+     *
+     * @param since the token of the previous sync; all the products if absent.
+     * @param limit the maximum number of changes to return, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the changes and the next token,
+     * or with status {@code 400 (Bad Request)} if the token is invalid,
+     * or with status {@code 410 (Gone)} if the token is too old to resume from, and the client has to sync from scratch.
+     */
+    @GetMapping("/_changes")
+    public ResponseEntity<ProductChangesDTO> getProductChanges(
+        @RequestParam(name = "since", required = false) String since,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get the changes of Products since : {}", since);
+        ProductChangesService.SyncToken token;
+        try {
+            token = since == null ? null : ProductChangesService.SyncToken.parse(since);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid sync token", ENTITY_NAME, "tokeninvalid");
+        }
+        if (token != null && productChangesService.isExpired(token)) {
+            throw new ResponseStatusException(HttpStatus.GONE, "The sync token has expired, sync again from scratch");
+        }
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        return ResponseEntity.ok().body(productChangesService.getChanges(token, pageSize));
     }
 
     /**
      * {@code GET  /products/:id} : get the "id" product.
      *
+     * <p>
+     * A conditional request is answered from the version stamp of the product alone, so an unchanged product is neither loaded
+     * nor serialized.
+     *
      * @param id the id of the product to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
+     * @param request the current request, holding the {@code If-None-Match} and {@code If-Modified-Since} headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product,
+     * or with status {@code 304 (Not Modified)} if the product has not changed,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable("id") String id) {
+    public ResponseEntity<Product> getProduct(@PathVariable("id") String id, WebRequest request) {
         LOG.debug("REST request to get Product : {}", id);
-        Optional<Product> product = productRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(product);
+        if (EntityTagUtil.isConditionalGet(request)) {
+            VersionStamp stamp = productService
+                .findVersionStamp(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (EntityTagUtil.checkNotModified(request, stamp)) {
+                return null;
+            }
+        }
+        Optional<Product> product = productService.findOne(id);
+        return ResponseUtil.wrapOrNotFound(
+            product,
+            product.map(found -> EntityTagUtil.createValidatorHeaders(found.getVersion(), found.getLastModifiedDate())).orElse(null)
+        );
+    }
+
+    /**
+     * {@code GET  /products/:id?fields=} : get the "id" product, with only the requested fields.
+     *
+     * @param id the id of the product to retrieve.
+     * @param fields the comma-separated list of fields to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product,
+     * or with status {@code 400 (Bad Request)} if a field is invalid,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/{id}", params = FieldSelectionUtil.FIELDS_PARAMETER)
+    public ResponseEntity<ObjectNode> getProductWithFields(
+        @PathVariable("id") String id,
+        @RequestParam(name = FieldSelectionUtil.FIELDS_PARAMETER) String fields
+    ) {
+        LOG.debug("REST request to get Product : {} with fields : {}", id, fields);
+        Set<String> selectedFields = parseFields(fields);
+        Optional<Product> product = productRepository.findProjectedById(id, selectedFields);
+        return ResponseUtil.wrapOrNotFound(product.map(found -> FieldSelectionUtil.selectFields(objectMapper, found, selectedFields)));
     }
 
     /**
@@ -171,7 +506,81 @@ public class ProductResource {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable("id") String id) {
         LOG.debug("REST request to delete Product : {}", id);
-        productRepository.deleteById(id);
+        productService.delete(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
+
+    private <T> ResponseEntity<List<T>> getPage(
+        ProductCriteria criteria,
+        String sort,
+        String after,
+        Integer limit,
+        Set<String> fields,
+        Function<Product, T> mapper
+    ) {
+        Sort.Order order;
+        try {
+            order = CursorPaginationUtil.parseSortOrder(sort, ProductQueryService.SORTABLE_PROPERTIES, "id");
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "sortinvalid");
+        }
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        List<Product> products;
+        try {
+            List<String> afterValues = after == null ? null : CursorPaginationUtil.decodeCursor(after);
+            products = productQueryService.findByCriteria(criteria, order, afterValues, pageSize + 1, fields);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            nextCursor = CursorPaginationUtil.encodeCursor(
+                productQueryService.getCursorValues(products.get(pageSize - 1), order).toArray(String[]::new)
+            );
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            pageSize
+        );
+        return ResponseEntity.ok().headers(headers).body(products.stream().map(mapper).toList());
+    }
+
+    private static Long expectedVersion(String ifMatch) {
+        try {
+            return EntityTagUtil.parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
+            throw new OptimisticLockingFailureException(e.getMessage(), e);
+        }
+    }
+
+    private static Set<String> parseFields(String fields) {
+        try {
+            return FieldSelectionUtil.parseFields(fields, SELECTABLE_FIELDS);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "fieldsinvalid");
+        }
+    }
+
+    /**
+     * Writes the product events to a Server-Sent Events response.
+     */
+    private record EmitterSink(SseEmitter emitter) implements ProductEventService.Sink {
+        @Override
+        public void send(ProductEventDTO event) throws IOException {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON);
+            emitter.send(event.getId() != null ? builder.id(event.getId()) : builder);
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package com.lukethep.web.rest;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.repository.ReactiveProductRepository;
+import com.lukethep.web.rest.errors.BadRequestAlertException;
+import com.lukethep.web.util.CursorPaginationUtil;
+import com.lukethep.web.util.EntityTagUtil;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller reading {@link com.lukethep.domain.Product}s through the reactive Mongo driver, only enabled with
+ * {@code application.reactive.enabled}.
+ * <p>
+ * The responses are written asynchronously: no request thread waits on the database. Writes, cached reads and
+ * conditional requests are served by {@link ProductResource}.
+ */
+@RestController
+@RequestMapping("/api/reactive/products")
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+public class ReactiveProductResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveProductResource.class);
+
+    private static final String ENTITY_NAME = "jhipsterMongoMsProduct";
+
+    private final ReactiveProductRepository reactiveProductRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ReactiveProductResource(ReactiveProductRepository reactiveProductRepository, ApplicationProperties applicationProperties) {
+        this.reactiveProductRepository = reactiveProductRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * {@code GET  /reactive/products} : get a page of products, ordered by id.
+     *
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is invalid.
+     */
+    @GetMapping("")
+    public Mono<ResponseEntity<List<Product>>> getAllProducts(
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get a page of Products reactively after : {}", after);
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        String afterId = after == null ? null : decodeCursor(after);
+        // The current request is only bound to this thread
+        UriComponentsBuilder uriBuilder = ServletUriComponentsBuilder.fromCurrentRequest();
+        return reactiveProductRepository
+            .findPage(afterId, pageSize + 1)
+            .collectList()
+            .map(products -> {
+                List<Product> page = products;
+                String nextCursor = null;
+                if (page.size() > pageSize) {
+                    page = page.subList(0, pageSize);
+                    nextCursor = CursorPaginationUtil.encodeCursor(page.get(pageSize - 1).getId());
+                }
+                HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, nextCursor, pageSize);
+                return ResponseEntity.ok().headers(headers).body(page);
+            });
+    }
+
+    /**
+     * {@code GET  /reactive/products/_stream} : stream all the products, ordered by id, as newline-delimited JSON.
+     * <p>
+     * The products are read as the client consumes them: a slow client slows the reads down rather than having them queued.
+     *
+     * @return the products.
+     */
+    @GetMapping(value = "/_stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Product> streamProducts() {
+        LOG.debug("REST request to stream all Products");
+        return reactiveProductRepository.findAll();
+    }
+
+    /**
+     * {@code GET  /reactive/products/:id} : get the "id" product.
+     *
+     * @param id the id of the product to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Product>> getProduct(@PathVariable("id") String id) {
+        LOG.debug("REST request to get Product reactively : {}", id);
+        return reactiveProductRepository
+            .findById(id)
+            .map(found ->
+                ResponseEntity.ok().headers(EntityTagUtil.createValidatorHeaders(found.getVersion(), found.getLastModifiedDate())).body(found)
+            )
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private String decodeCursor(String cursor) {
+        try {
+            return CursorPaginationUtil.decodeCursor(cursor).get(0);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.lukethep.web.rest;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ReactiveUserRepository;
+import com.lukethep.web.rest.errors.BadRequestAlertException;
+import com.lukethep.web.util.CursorPaginationUtil;
+import com.lukethep.web.util.EntityTagUtil;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller reading {@link com.lukethep.domain.User}s through the reactive Mongo driver, only enabled with
+ * {@code application.reactive.enabled}.
+ * <p>
+ * The responses are written asynchronously: no request thread waits on the database. Writes, cached reads and
+ * conditional requests are served by {@link UserResource}.
+ */
+@RestController
+@RequestMapping("/api/reactive/users")
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+public class ReactiveUserResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveUserResource.class);
+
+    private static final String ENTITY_NAME = "jhipsterMongoMsUser";
+
+    private final ReactiveUserRepository reactiveUserRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ReactiveUserResource(ReactiveUserRepository reactiveUserRepository, ApplicationProperties applicationProperties) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * {@code GET  /reactive/users} : get a page of users, ordered by id.
+     *
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of users in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is invalid.
+     */
+    @GetMapping("")
+    public Mono<ResponseEntity<List<User>>> getAllUsers(
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get a page of Users reactively after : {}", after);
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        String afterId = after == null ? null : decodeCursor(after);
+        // The current request is only bound to this thread
+        UriComponentsBuilder uriBuilder = ServletUriComponentsBuilder.fromCurrentRequest();
+        return reactiveUserRepository
+            .findPage(afterId, pageSize + 1)
+            .collectList()
+            .map(users -> {
+                List<User> page = users;
+                String nextCursor = null;
+                if (page.size() > pageSize) {
+                    page = page.subList(0, pageSize);
+                    nextCursor = CursorPaginationUtil.encodeCursor(page.get(pageSize - 1).getId());
+                }
+                HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(uriBuilder, nextCursor, pageSize);
+                return ResponseEntity.ok().headers(headers).body(page);
+            });
+    }
+
+    /**
+     * {@code GET  /reactive/users/_stream} : stream all the users, ordered by id, as newline-delimited JSON.
+     * <p>
+     * The users are read as the client consumes them: a slow client slows the reads down rather than having them queued.
+     *
+     * @return the users.
+     */
+    @GetMapping(value = "/_stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<User> streamUsers() {
+        LOG.debug("REST request to stream all Users");
+        return reactiveUserRepository.findAll();
+    }
+
+    /**
+     * {@code GET  /reactive/users/:id} : get the "id" user.
+     *
+     * @param id the id of the user to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the user, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getUser(@PathVariable("id") String id) {
+        LOG.debug("REST request to get User reactively : {}", id);
+        return reactiveUserRepository
+            .findById(id)
+            .map(found ->
+                ResponseEntity.ok().headers(EntityTagUtil.createValidatorHeaders(found.getVersion(), found.getLastModifiedDate())).body(found)
+            )
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private String decodeCursor(String cursor) {
+        try {
+            return CursorPaginationUtil.decodeCursor(cursor).get(0);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
+}
@@ -1,20 +1,47 @@
 package com.lukethep.web.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.OwnerStats;
+import com.lukethep.domain.Product;
 import com.lukethep.domain.User;
+import com.lukethep.domain.VersionStamp;
+import com.lukethep.repository.ProductRepository;
 import com.lukethep.repository.UserRepository;
+import com.lukethep.service.BulkInsertService;
+import com.lukethep.service.OwnerStatsService;
+import com.lukethep.service.UserService;
+import com.lukethep.service.dto.BulkItemResultDTO;
+import com.lukethep.service.dto.UserSummaryDTO;
 import com.lukethep.web.rest.errors.BadRequestAlertException;
+import com.lukethep.web.util.CursorPaginationUtil;
+import com.lukethep.web.util.EntityTagUtil;
+import com.lukethep.web.util.FieldSelectionUtil;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -29,13 +56,45 @@ public class UserResource {
 
     private static final String ENTITY_NAME = "jhipsterMongoMsUser";
 
+    private static final Set<String> SELECTABLE_FIELDS = Set.of(
+        "id", "version", "name", "email", "products", "createdBy", "createdDate", "lastModifiedBy", "lastModifiedDate"
+    );
+
+    private static final Set<String> SUMMARY_FIELDS = Set.of("id", "version", "name", "email", "productSummaries");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final UserRepository userRepository;
 
-    public UserResource(UserRepository userRepository) {
+    private final UserService userService;
+
+    private final ProductRepository productRepository;
+
+    private final OwnerStatsService ownerStatsService;
+
+    private final BulkInsertService bulkInsertService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectMapper objectMapper;
+
+    public UserResource(
+        UserRepository userRepository,
+        UserService userService,
+        ProductRepository productRepository,
+        OwnerStatsService ownerStatsService,
+        BulkInsertService bulkInsertService,
+        ApplicationProperties applicationProperties,
+        ObjectMapper objectMapper
+    ) {
         this.userRepository = userRepository;
+        this.userService = userService;
+        this.productRepository = productRepository;
+        this.ownerStatsService = ownerStatsService;
+        this.bulkInsertService = bulkInsertService;
+        this.applicationProperties = applicationProperties;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -51,25 +110,55 @@ public class UserResource {
         if (user.getId() != null) {
             throw new BadRequestAlertException("A new user cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        user = userRepository.save(user);
+        user = userService.create(user);
         return ResponseEntity.created(new URI("/api/users/" + user.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, user.getId()))
             .body(user);
     }
 
+    /**
+     * {@code POST  /users/_bulk} : Create many users at once.
+     * <p>
+     * The body is either a JSON array or newline-delimited JSON. Each item is validated and written on its own, a failed
+     * item does not prevent the others from being created.
+     *
+     * @param body the users to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body one result per user, holding its new id
+     * or the reason why it was not created, or with status {@code 400 (Bad Request)} if the body is malformed or too large.
+     * @throws IOException if reading the body fails.
+     */
+    @PostMapping(value = "/_bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<List<BulkItemResultDTO>> createUsers(InputStream body) throws IOException {
+        LOG.debug("REST request to bulk save Users");
+        List<JsonNode> items;
+        try {
+            items = bulkInsertService.readItems(body);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestAlertException("Malformed bulk request", ENTITY_NAME, "bulkmalformed");
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "bulktoolarge");
+        }
+        return ResponseEntity.ok().body(bulkInsertService.insertAll(items, User.class));
+    }
+
     /**
      * {@code PUT  /users/:id} : Updates an existing user.
      *
      * @param id the id of the user to save.
      * @param user the user to update.
+     * @param ifMatch the entity tag the user must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated user,
      * or with status {@code 400 (Bad Request)} if the user is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the user has changed since {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the user couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable(value = "id", required = false) final String id, @Valid @RequestBody User user)
-        throws URISyntaxException {
+    public ResponseEntity<User> updateUser(
+        @PathVariable(value = "id", required = false) final String id,
+        @Valid @RequestBody User user,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) throws URISyntaxException {
         LOG.debug("REST request to update User : {}, {}", id, user);
         if (user.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -78,14 +167,17 @@ public class UserResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!userRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        user = userRepository.save(user);
+        User result = userService
+            .update(user, expectedVersion(ifMatch))
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, user.getId()))
-            .body(user);
+            .headers(
+                EntityTagUtil.withEntityTag(
+                    HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId()),
+                    result.getVersion()
+                )
+            )
+            .body(result);
     }
 
     /**
@@ -93,16 +185,19 @@ public class UserResource {
      *
      * @param id the id of the user to save.
      * @param user the user to update.
+     * @param ifMatch the entity tag the user must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated user,
      * or with status {@code 400 (Bad Request)} if the user is not valid,
      * or with status {@code 404 (Not Found)} if the user is not found,
+     * or with status {@code 412 (Precondition Failed)} if the user has changed since {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the user couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<User> partialUpdateUser(
         @PathVariable(value = "id", required = false) final String id,
-        @NotNull @RequestBody User user
+        @NotNull @RequestBody User user,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         LOG.debug("REST request to partial update User partially : {}, {}", id, user);
         if (user.getId() == null) {
@@ -112,49 +207,206 @@ public class UserResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!userRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<User> result = userRepository
-            .findById(user.getId())
-            .map(existingUser -> {
-                if (user.getName() != null) {
-                    existingUser.setName(user.getName());
-                }
-                if (user.getEmail() != null) {
-                    existingUser.setEmail(user.getEmail());
-                }
-
-                return existingUser;
-            })
-            .map(userRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, user.getId()));
+        Optional<User> result = userService.partialUpdate(user, expectedVersion(ifMatch));
+        return result
+            .map(updated ->
+                ResponseEntity.ok()
+                    .headers(
+                        EntityTagUtil.withEntityTag(
+                            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, updated.getId()),
+                            updated.getVersion()
+                        )
+                    )
+                    .body(updated)
+            )
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
-     * {@code GET  /users} : get all the users.
+     * {@code GET  /users} : get a page of users, ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of users in body.
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of users in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is invalid.
      */
     @GetMapping("")
-    public List<User> getAllUsers() {
-        LOG.debug("REST request to get all Users");
-        return userRepository.findAll();
+    public ResponseEntity<List<User>> getAllUsers(
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get a page of Users after : {}", after);
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        List<User> users = userRepository.findPage(after == null ? null : decodeCursor(after), pageSize + 1);
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = CursorPaginationUtil.encodeCursor(users.get(pageSize - 1).getId());
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            pageSize
+        );
+        return ResponseEntity.ok().headers(headers).body(users);
+    }
+
+    /**
+     * {@code GET  /users?fields=} : get a page of users, ordered by id, with only the requested fields.
+     *
+     * @param fields the comma-separated list of fields to return.
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of users in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or a field is invalid.
+     */
+    @GetMapping(value = "", params = FieldSelectionUtil.FIELDS_PARAMETER)
+    public ResponseEntity<List<ObjectNode>> getAllUsersWithFields(
+        @RequestParam(name = FieldSelectionUtil.FIELDS_PARAMETER) String fields,
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get a page of Users after : {} with fields : {}", after, fields);
+        Set<String> selectedFields = parseFields(fields);
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        String afterId = after == null ? null : decodeCursor(after);
+        List<User> users = userRepository.findProjectedPage(afterId, pageSize + 1, selectedFields);
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = CursorPaginationUtil.encodeCursor(users.get(pageSize - 1).getId());
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            pageSize
+        );
+        return ResponseEntity.ok()
+            .headers(headers)
+            .body(users.stream().map(user -> FieldSelectionUtil.selectFields(objectMapper, user, selectedFields)).toList());
     }
 
     /**
      * {@code GET  /users/:id} : get the "id" user.
      *
+     * <p>
+     * A conditional request is answered from the version stamp of the user alone, so an unchanged user is neither loaded
+     * nor serialized.
+     *
      * @param id the id of the user to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the user, or with status {@code 404 (Not Found)}.
+     * @param request the current request, holding the {@code If-None-Match} and {@code If-Modified-Since} headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the user,
+     * or with status {@code 304 (Not Modified)} if the user has not changed,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUser(@PathVariable("id") String id) {
+    public ResponseEntity<User> getUser(@PathVariable("id") String id, WebRequest request) {
         LOG.debug("REST request to get User : {}", id);
-        Optional<User> user = userRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(user);
+        if (EntityTagUtil.isConditionalGet(request)) {
+            VersionStamp stamp = userService
+                .findVersionStamp(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (EntityTagUtil.checkNotModified(request, stamp)) {
+                return null;
+            }
+        }
+        Optional<User> user = userService.findOne(id);
+        return ResponseUtil.wrapOrNotFound(
+            user,
+            user.map(found -> EntityTagUtil.createValidatorHeaders(found.getVersion(), found.getLastModifiedDate())).orElse(null)
+        );
+    }
+
+    /**
+     * {@code GET  /users/:id?fields=} : get the "id" user, with only the requested fields.
+     *
+     * @param id the id of the user to retrieve.
+     * @param fields the comma-separated list of fields to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the user,
+     * or with status {@code 400 (Bad Request)} if a field is invalid,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/{id}", params = FieldSelectionUtil.FIELDS_PARAMETER)
+    public ResponseEntity<ObjectNode> getUserWithFields(
+        @PathVariable("id") String id,
+        @RequestParam(name = FieldSelectionUtil.FIELDS_PARAMETER) String fields
+    ) {
+        LOG.debug("REST request to get User : {} with fields : {}", id, fields);
+        Set<String> selectedFields = parseFields(fields);
+        Optional<User> user = userRepository.findProjectedById(id, selectedFields);
+        return ResponseUtil.wrapOrNotFound(user.map(found -> FieldSelectionUtil.selectFields(objectMapper, found, selectedFields)));
+    }
+
+    /**
+     * {@code GET  /users/:id?view=summary} : get the "id" user with the summaries of its products.
+     * <p>
+     * The whole view is read from the user document, without resolving the referenced products.
+     *
+     * @param id the id of the user to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the user summary,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/{id}", params = { "view=summary", "!" + FieldSelectionUtil.FIELDS_PARAMETER })
+    public ResponseEntity<UserSummaryDTO> getUserSummary(@PathVariable("id") String id) {
+        LOG.debug("REST request to get the summary of User : {}", id);
+        return ResponseUtil.wrapOrNotFound(userRepository.findProjectedById(id, SUMMARY_FIELDS).map(UserSummaryDTO::new));
+    }
+
+    /**
+     * {@code GET  /users/:id/products} : get a page of the products of the "id" user, ordered by id.
+     * <p>
+     * The products are returned without their owner, which is the requested user.
+     *
+     * @param id the id of the user whose products to retrieve.
+     * @param after the cursor returned with the previous page, if any.
+     * @param limit the page size, capped by {@code application.pagination.max-limit}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is invalid, or with status {@code 404 (Not Found)} if there is no such user.
+     */
+    @GetMapping("/{id}/products")
+    public ResponseEntity<List<Product>> getUserProducts(
+        @PathVariable("id") String id,
+        @RequestParam(name = CursorPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CursorPaginationUtil.LIMIT_PARAMETER, required = false) Integer limit
+    ) {
+        LOG.debug("REST request to get a page of the Products of User : {} after : {}", id, after);
+        int pageSize = CursorPaginationUtil.resolveLimit(limit, applicationProperties.getPagination());
+        List<Product> products = productRepository.findPageByOwner(id, after == null ? null : decodeCursor(after), pageSize + 1);
+        // Only an empty page needs a second look, to tell a user without products from a missing user
+        if (products.isEmpty() && !userRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            nextCursor = CursorPaginationUtil.encodeCursor(products.get(pageSize - 1).getId());
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            pageSize
+        );
+        return ResponseEntity.ok().headers(headers).body(products);
+    }
+
+    /**
+     * {@code GET  /users/:id/stats} : get the aggregates of the products of the "id" user.
+     * <p>
+     * The aggregates are maintained on every product write, so they are read with a single lookup by id.
+     *
+     * @param id the id of the user.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the aggregates,
+     * or with status {@code 404 (Not Found)} if there is no such user.
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<OwnerStats> getUserStats(@PathVariable("id") String id) {
+        LOG.debug("REST request to get the stats of User : {}", id);
+        Optional<OwnerStats> stats = ownerStatsService.findByOwner(id);
+        // Only a miss needs a second look, to tell a user without products from a missing user
+        if (stats.isEmpty() && !userRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok().body(stats.orElseGet(() -> OwnerStats.empty(id)));
     }
 
     /**
@@ -166,7 +418,31 @@ public class UserResource {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable("id") String id) {
         LOG.debug("REST request to delete User : {}", id);
-        userRepository.deleteById(id);
+        userService.delete(id);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id)).build();
     }
+
+    private String decodeCursor(String cursor) {
+        try {
+            return CursorPaginationUtil.decodeCursor(cursor).get(0);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
+
+    private static Long expectedVersion(String ifMatch) {
+        try {
+            return EntityTagUtil.parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
+            throw new OptimisticLockingFailureException(e.getMessage(), e);
+        }
+    }
+
+    private static Set<String> parseFields(String fields) {
+        try {
+            return FieldSelectionUtil.parseFields(fields, SELECTABLE_FIELDS);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "fieldsinvalid");
+        }
+    }
 }
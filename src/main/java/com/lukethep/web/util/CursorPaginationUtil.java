@@ -0,0 +1,129 @@
+package com.lukethep.web.util;
+
+import com.lukethep.config.ApplicationProperties;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (cursor) pagination.
+ * <p>
+ * A cursor is an opaque token holding the sort key values of the last element of a page. Clients pass it back as the
+ * {@code after} query parameter to get the next page, so the server can seek to it with an indexed range query
+ * instead of skipping over all the previous pages.
+ */
+public final class CursorPaginationUtil {
+
+    public static final String HEADER_X_NEXT_CURSOR = "X-Next-Cursor";
+
+    public static final String AFTER_PARAMETER = "after";
+
+    public static final String LIMIT_PARAMETER = "limit";
+
+    public static final String SORT_PARAMETER = "sort";
+
+    private static final String SEPARATOR = ".";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorPaginationUtil() {}
+
+    /**
+     * Encode the sort key values of the last element of a page into an opaque cursor.
+     *
+     * @param values the sort key values, in sort order.
+     * @return the cursor.
+     */
+    public static String encodeCursor(String... values) {
+        List<String> parts = new ArrayList<>(values.length);
+        for (String value : values) {
+            parts.add(ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return String.join(SEPARATOR, parts);
+    }
+
+    /**
+     * Decode a cursor previously built by {@link #encodeCursor(String...)}.
+     *
+     * @param cursor the cursor sent by the client.
+     * @return the sort key values, in sort order.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static List<String> decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            throw new IllegalArgumentException("Empty cursor");
+        }
+        String[] parts = cursor.split("\\" + SEPARATOR, -1);
+        List<String> values = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            values.add(new String(DECODER.decode(part), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    /**
+     * Resolve the page size to use, applying the configured default and hard cap.
+     *
+     * @param limit the page size requested by the client, if any.
+     * @param pagination the pagination properties.
+     * @return the page size, between 1 and the configured maximum.
+     */
+    public static int resolveLimit(Integer limit, ApplicationProperties.Pagination pagination) {
+        if (limit == null) {
+            return Math.min(pagination.getDefaultLimit(), pagination.getMaxLimit());
+        }
+        return Math.max(1, Math.min(limit, pagination.getMaxLimit()));
+    }
+
+    /**
+     * Parse the sort order of a keyset-paginated request, in the {@code property[,asc|desc]} form.
+     *
+     * @param sort the sort order requested by the client, if any.
+     * @param sortableProperties the properties the entities can be sorted on.
+     * @param defaultProperty the property to sort on, ascending, when the client did not ask for one.
+     * @return the sort order.
+     * @throws IllegalArgumentException if the property cannot be sorted on or the direction is unknown.
+     */
+    public static Sort.Order parseSortOrder(String sort, Set<String> sortableProperties, String defaultProperty) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.Order.asc(defaultProperty);
+        }
+        String[] parts = sort.split(",", -1);
+        String property = parts[0].trim();
+        if (parts.length > 2 || !sortableProperties.contains(property)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        Sort.Direction direction = parts.length == 2 ? Sort.Direction.fromString(parts[1].trim()) : Sort.Direction.ASC;
+        return new Sort.Order(direction, property);
+    }
+
+    /**
+     * Generate the pagination headers of a cursor-paginated response.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param nextCursor the cursor of the next page, or {@code null} on the last page.
+     * @param limit the page size.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(UriComponentsBuilder uriBuilder, String nextCursor, int limit) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.add(HEADER_X_NEXT_CURSOR, nextCursor);
+            String link = uriBuilder
+                .replaceQueryParam(AFTER_PARAMETER, nextCursor)
+                .replaceQueryParam(LIMIT_PARAMETER, limit)
+                .toUriString()
+                .replace(",", "%2C")
+                .replace(";", "%3B");
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
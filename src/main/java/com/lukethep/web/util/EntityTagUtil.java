@@ -0,0 +1,107 @@
+package com.lukethep.web.util;
+
+import com.lukethep.domain.VersionStamp;
+import java.time.Instant;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Utility class for handling entity tags.
+ * <p>
+ * The entity tag of a document is its {@link org.springframework.data.annotation.Version version}, sent as a strong
+ * {@code ETag}. Clients send it back in {@code If-Match} to make an update conditional on the document being unchanged,
+ * and in {@code If-None-Match} to only get the document back when it has changed, along with {@code If-Modified-Since}
+ * for its {@code Last-Modified} date.
+ */
+public final class EntityTagUtil {
+
+    private static final String ANY = "*";
+
+    private EntityTagUtil() {}
+
+    /**
+     * @param version the version of a document.
+     * @return the strong entity tag of this version, or {@code null} if the document has no version.
+     */
+    public static String toEntityTag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Add the {@code ETag} header of the given version to the given headers, if there is a version.
+     *
+     * @param headers the headers of the response.
+     * @param version the version of the returned document.
+     * @return the given headers.
+     */
+    public static HttpHeaders withEntityTag(HttpHeaders headers, Long version) {
+        String entityTag = toEntityTag(version);
+        if (entityTag != null) {
+            headers.setETag(entityTag);
+        }
+        return headers;
+    }
+
+    /**
+     * Create the headers letting clients revalidate a document instead of downloading it again.
+     *
+     * @param version the version of the returned document.
+     * @param lastModifiedDate the last modification date of the returned document.
+     * @return the {@code ETag}, {@code Last-Modified} and {@code Cache-Control} headers.
+     */
+    public static HttpHeaders createValidatorHeaders(Long version, Instant lastModifiedDate) {
+        HttpHeaders headers = withEntityTag(new HttpHeaders(), version);
+        if (lastModifiedDate != null) {
+            headers.setLastModified(lastModifiedDate);
+        }
+        headers.setCacheControl(CacheControl.noCache());
+        return headers;
+    }
+
+    /**
+     * @param request the current request.
+     * @return whether the request only wants the document back if it has changed.
+     */
+    public static boolean isConditionalGet(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Check the conditional headers of the request against the stamp of the requested document. If the document has
+     * not changed, the response is set to {@code 304 (Not Modified)} with its validators, and must not be written.
+     *
+     * @param request the current request.
+     * @param stamp the stamp of the requested document.
+     * @return whether the document has not changed.
+     */
+    public static boolean checkNotModified(WebRequest request, VersionStamp stamp) {
+        if (stamp.version() == null && stamp.lastModifiedDate() == null) {
+            return false;
+        }
+        long lastModified = stamp.lastModifiedDate() == null ? -1 : stamp.lastModifiedDate().toEpochMilli();
+        return request.checkNotModified(toEntityTag(stamp.version()), lastModified);
+    }
+
+    /**
+     * Read the version a document is expected to be at from an {@code If-Match} header.
+     *
+     * @param ifMatch the value of the header, if any.
+     * @return the expected version, or {@code null} if the header is absent or matches any version.
+     * @throws IllegalArgumentException if the header is not a single strong entity tag of a version, which no document can match.
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String entityTag = ifMatch.trim();
+        if (entityTag.length() < 3 || !entityTag.startsWith("\"") || !entityTag.endsWith("\"")) {
+            throw new IllegalArgumentException("Not a strong entity tag: " + ifMatch);
+        }
+        try {
+            return Long.valueOf(entityTag.substring(1, entityTag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown entity tag: " + ifMatch, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.lukethep.web.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Utility class for handling sparse fieldsets.
+ * <p>
+ * Clients list the fields they need in the {@code fields} query parameter, e.g. {@code ?fields=id,price}. The fields
+ * become a Mongo projection, so unrequested fields are neither transferred nor mapped, and unrequested references are
+ * never resolved. The {@code id} is always returned, as cursors are built from it.
+ */
+public final class FieldSelectionUtil {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    private static final String ID_FIELD = "id";
+
+    private FieldSelectionUtil() {}
+
+    /**
+     * Parse the value of the {@code fields} query parameter.
+     *
+     * @param fields the comma-separated list of fields.
+     * @param selectableFields the fields which can be selected.
+     * @return the selected fields, the {@code id} first.
+     * @throws IllegalArgumentException if a field cannot be selected.
+     */
+    public static Set<String> parseFields(String fields, Set<String> selectableFields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(ID_FIELD);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!selectableFields.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    /**
+     * Serialize an entity read with a projection, keeping only the selected fields.
+     *
+     * @param objectMapper the mapper to serialize the entity with.
+     * @param entity the entity.
+     * @param fields the selected fields.
+     * @return the JSON representation of the selected fields.
+     */
+    public static ObjectNode selectFields(ObjectMapper objectMapper, Object entity, Set<String> fields) {
+        ObjectNode node = objectMapper.valueToTree(entity);
+        node.retain(fields);
+        return node;
+    }
+}
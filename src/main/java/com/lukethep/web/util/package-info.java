@@ -0,0 +1,4 @@
+/**
+ * Web utilities.
+ */
+package com.lukethep.web.util;
@@ -0,0 +1,64 @@
+package com.lukethep.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.lukethep.domain.Product;
+import java.math.BigDecimal;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Test class for the {@link Decimal128Converters}, as registered by {@link DatabaseConfiguration}.
+ */
+class Decimal128ConvertersTest {
+
+    private static MappingMongoConverter converter;
+
+    private static MongoMappingContext mappingContext;
+
+    @BeforeAll
+    public static void setupAll() {
+        MongoCustomConversions conversions = new DatabaseConfiguration().customConversions();
+        mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void priceIsWrittenAsDecimal128() {
+        Document document = new Document();
+
+        converter.write(new Product().name("name").price(new BigDecimal("12.50")), document);
+
+        assertThat(document.get("price")).isEqualTo(new Decimal128(new BigDecimal("12.50")));
+    }
+
+    @Test
+    void priceIsReadFromBothRepresentations() {
+        Product fromDecimal = converter.read(Product.class, new Document("price", new Decimal128(new BigDecimal("12.50"))));
+        Product fromString = converter.read(Product.class, new Document("price", "12.50"));
+
+        assertThat(fromDecimal.getPrice()).isEqualTo(new BigDecimal("12.50"));
+        assertThat(fromString.getPrice()).isEqualTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    void priceIsQueriedAsDecimal128() {
+        Query query = Query.query(where("price").gt(BigDecimal.TEN));
+
+        Document mapped = new QueryMapper(converter).getMappedObject(query.getQueryObject(), mappingContext.getPersistentEntity(Product.class));
+
+        assertThat(mapped).isEqualTo(new Document("price", new Document("$gt", new Decimal128(BigDecimal.TEN))));
+    }
+}
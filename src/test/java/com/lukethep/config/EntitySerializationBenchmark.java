@@ -0,0 +1,89 @@
+package com.lukethep.config;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark writing a product and reading it back from its Hazelcast form, with the {@link HazelcastCompactSerializers}
+ * against the Java serialization used before. The owner of the product has {@code products} products, which Java
+ * serialization writes along with it.
+ * <p>
+ * The size of the serialized product is reported as the {@code bytes} secondary result. Run with
+ * {@code ./mvnw -Pbenchmark test -Djmh.args=EntitySerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntitySerializationBenchmark {
+
+    @Param({ "compact", "java" })
+    private String serialization;
+
+    @Param({ "1", "100" })
+    private int products;
+
+    private InternalSerializationService serializationService;
+
+    private Product product;
+
+    private Data data;
+
+    @Setup
+    public void setup() {
+        serializationService = "compact".equals(serialization) ? SerializationServices.compact() : SerializationServices.java();
+        User owner = new User().id(new ObjectId().toHexString()).name("owner").email("owner@localhost");
+        for (int i = 0; i < products; i++) {
+            owner.addProducts(new Product().id(new ObjectId().toHexString()).name("product " + i).price(BigDecimal.valueOf(i, 2)));
+        }
+        product = owner.getProducts().iterator().next();
+        data = serializationService.toData(product);
+    }
+
+    @Benchmark
+    public Data write(Size size) {
+        Data written = serializationService.toData(product);
+        size.bytes = written.totalSize();
+        return written;
+    }
+
+    @Benchmark
+    public Product read() {
+        return serializationService.toObject(data);
+    }
+
+    /**
+     * Reports the size of the serialized product.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
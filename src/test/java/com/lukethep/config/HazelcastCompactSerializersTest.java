@@ -0,0 +1,89 @@
+package com.lukethep.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link HazelcastCompactSerializers}, as registered by {@link CacheConfiguration}.
+ */
+class HazelcastCompactSerializersTest {
+
+    private InternalSerializationService compact;
+
+    private User user;
+
+    private Product product;
+
+    @BeforeEach
+    public void setup() {
+        compact = SerializationServices.compact();
+        user = new User().id("u1").version(2L).name("owner").email("owner@localhost");
+        user.setCreatedBy("admin");
+        user.setCreatedDate(Instant.parse("2024-01-01T10:00:00.123456Z"));
+        product = new Product().id("p1").version(3L).name("product").price(new BigDecimal("12.50"));
+        user.addProducts(product);
+        user.addProducts(new Product().id("p2").name("other").price(BigDecimal.ONE));
+        user.setProductSummaries(List.of(ProductSummary.of(product)));
+    }
+
+    @Test
+    void productIsReadBackWithTheIdOfItsOwner() {
+        Product read = roundTrip(product);
+
+        assertThat(read).isNotSameAs(product);
+        assertThat(read.getId()).isEqualTo("p1");
+        assertThat(read.getVersion()).isEqualTo(3L);
+        assertThat(read.getName()).isEqualTo("product");
+        assertThat(read.getPrice()).isEqualTo(new BigDecimal("12.50"));
+        assertThat(read.getLastModifiedDate()).isEqualTo(product.getLastModifiedDate());
+        assertThat(read.getOwner().getId()).isEqualTo("u1");
+        // Resolved from the user cache on read
+        assertThat(read.getOwner().getEmail()).isNull();
+        assertThat(read.getOwner().getProducts()).isEmpty();
+    }
+
+    @Test
+    void userIsReadBackWithTheIdsOfItsProducts() {
+        User read = roundTrip(user);
+
+        assertThat(read.getName()).isEqualTo("owner");
+        assertThat(read.getCreatedBy()).isEqualTo("admin");
+        assertThat(read.getProducts()).extracting(Product::getId).containsExactlyInAnyOrder("p1", "p2");
+        assertThat(read.getProducts()).extracting(Product::getName).containsOnlyNulls();
+        assertThat(read.getProducts()).extracting(Product::getOwner).containsOnly(read);
+        assertThat(read.getProductSummaries()).extracting(ProductSummary::getPrice).containsExactly(new BigDecimal("12.50"));
+    }
+
+    @Test
+    void nullFieldsAreReadBackAsNull() {
+        Product read = roundTrip(new Product().id("p3"));
+
+        assertThat(read.getVersion()).isNull();
+        assertThat(read.getPrice()).isNull();
+        assertThat(read.getOwner()).isNull();
+        assertThat(roundTrip(new User().id("u2").products(null)).getProductSummaries()).isNull();
+    }
+
+    @Test
+    void compactIsSmallerThanJavaSerialization() {
+        InternalSerializationService java = SerializationServices.java();
+
+        assertThat(compact.toData(product).totalSize()).isLessThan(java.toData(product).totalSize());
+        assertThat(compact.toData(user).totalSize()).isLessThan(java.toData(user).totalSize());
+    }
+
+    private <T> T roundTrip(T entity) {
+        Data data = compact.toData(entity);
+        return compact.toObject(data);
+    }
+}
@@ -0,0 +1,60 @@
+package com.lukethep.config;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.serialization.impl.compact.Schema;
+import com.hazelcast.internal.serialization.impl.compact.SchemaService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hazelcast serialization services serializing the way a member does, without starting one.
+ */
+final class SerializationServices {
+
+    private SerializationServices() {}
+
+    /**
+     * @return a service serializing the domain entities with the {@link HazelcastCompactSerializers}.
+     */
+    static InternalSerializationService compact() {
+        SerializationConfig config = new SerializationConfig();
+        config.getCompactSerializationConfig().setSerializers(HazelcastCompactSerializers.all());
+        return build(config);
+    }
+
+    /**
+     * @return a service serializing the domain entities with Java serialization, as without the compact serializers.
+     */
+    static InternalSerializationService java() {
+        return build(new SerializationConfig());
+    }
+
+    private static InternalSerializationService build(SerializationConfig config) {
+        return new DefaultSerializationServiceBuilder().setConfig(config).setSchemaService(new LocalSchemaService()).build();
+    }
+
+    /**
+     * Keeps the schemas in memory, where a member would share them with the cluster.
+     */
+    private static final class LocalSchemaService implements SchemaService {
+
+        private final Map<Long, Schema> schemas = new ConcurrentHashMap<>();
+
+        @Override
+        public Schema get(long schemaId) {
+            return schemas.get(schemaId);
+        }
+
+        @Override
+        public void put(Schema schema) {
+            schemas.put(schema.getSchemaId(), schema);
+        }
+
+        @Override
+        public void putLocal(Schema schema) {
+            put(schema);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.lukethep.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.hazelcast.topic.ITopic;
+import com.lukethep.domain.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+class TwoTierCacheManagerTest {
+
+    private static final String DOMAIN_CACHE = "com.lukethep.domain.Product";
+
+    private ConcurrentMapCacheManager l2CacheManager;
+
+    private ITopic<TwoTierCacheManager.Invalidation> topic;
+
+    private MeterRegistry meterRegistry;
+
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        l2CacheManager = new ConcurrentMapCacheManager();
+        topic = mock(ITopic.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoTierCacheManager(
+            l2CacheManager,
+            name -> name.startsWith("com.lukethep.domain."),
+            new ApplicationProperties.LocalCache(),
+            topic,
+            SerializationServices.compact(),
+            meterRegistry
+        );
+    }
+
+    @Test
+    void testOnlyFilteredCachesGetAnL1Cache() {
+        assertThat(cacheManager.getCache(DOMAIN_CACHE)).isInstanceOf(TwoTierCache.class);
+        assertThat(cacheManager.getCache("productPriceStats")).isSameAs(l2CacheManager.getCache("productPriceStats"));
+    }
+
+    @Test
+    void testReadsAreServedFromL1() {
+        Cache cache = cacheManager.getCache(DOMAIN_CACHE);
+        l2CacheManager.getCache(DOMAIN_CACHE).put("id", "value");
+
+        assertThat(cache.get("id", String.class)).isEqualTo("value");
+        // Changed behind the back of the L1 cache, which keeps serving its own copy
+        l2CacheManager.getCache(DOMAIN_CACHE).put("id", "other");
+        assertThat(cache.get("id", String.class)).isEqualTo("value");
+
+        assertThat(lookups("l1", "hit")).isEqualTo(1);
+        assertThat(lookups("l2", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    void testEachReaderGetsACopy() {
+        Cache cache = cacheManager.getCache(DOMAIN_CACHE);
+        cache.put("id", new Product().id("id").name("name").price(BigDecimal.ONE));
+
+        Product read = cache.get("id", Product.class);
+        read.setName("changed");
+
+        Product other = cache.get("id", Product.class);
+        assertThat(other).isNotSameAs(read);
+        assertThat(other.getName()).isEqualTo("name");
+        assertThat(lookups("l1", "hit")).isEqualTo(2);
+    }
+
+    @Test
+    void testFillsAreNotPublished() {
+        Cache cache = cacheManager.getCache(DOMAIN_CACHE);
+
+        assertThat(cache.get("id", () -> "value")).isEqualTo("value");
+        assertThat(cache.putIfAbsent("other", "value")).isNull();
+
+        assertThat(l2CacheManager.getCache(DOMAIN_CACHE).get("id", String.class)).isEqualTo("value");
+        assertThat(cache.get("other", String.class)).isEqualTo("value");
+        assertThat(lookups("l1", "hit")).isEqualTo(1);
+        verify(topic, never()).publish(any());
+    }
+
+    @Test
+    void testEvictionIsPublished() {
+        Cache cache = cacheManager.getCache(DOMAIN_CACHE);
+        cache.put("id", "value");
+
+        cache.evict("id");
+
+        assertThat(cache.get("id")).isNull();
+        assertThat(l2CacheManager.getCache(DOMAIN_CACHE).get("id")).isNull();
+        ArgumentCaptor<TwoTierCacheManager.Invalidation> invalidation = ArgumentCaptor.forClass(TwoTierCacheManager.Invalidation.class);
+        verify(topic, times(2)).publish(invalidation.capture());
+        assertThat(invalidation.getValue().cacheName()).isEqualTo(DOMAIN_CACHE);
+        assertThat(invalidation.getValue().key()).isEqualTo("id");
+    }
+
+    @Test
+    void testInvalidationsOfOtherMembersAreApplied() {
+        Cache cache = cacheManager.getCache(DOMAIN_CACHE);
+        cache.put("id", "value");
+        l2CacheManager.getCache(DOMAIN_CACHE).put("id", "other");
+
+        cacheManager.receive(new TwoTierCacheManager.Invalidation(UUID.randomUUID(), DOMAIN_CACHE, "id"));
+
+        assertThat(cache.get("id", String.class)).isEqualTo("other");
+    }
+
+    @Test
+    void testOwnInvalidationsAreSkipped() {
+        Cache cache = cacheManager.getCache(DOMAIN_CACHE);
+        cache.put("id", "value");
+        ArgumentCaptor<TwoTierCacheManager.Invalidation> invalidation = ArgumentCaptor.forClass(TwoTierCacheManager.Invalidation.class);
+        verify(topic).publish(invalidation.capture());
+        l2CacheManager.getCache(DOMAIN_CACHE).put("id", "other");
+
+        cacheManager.receive(invalidation.getValue());
+
+        assertThat(cache.get("id", String.class)).isEqualTo("value");
+    }
+
+    private double lookups(String tier, String result) {
+        return meterRegistry.get(TwoTierCache.GETS_METER_NAME).tag("tier", tier).tag("result", result).counter().count();
+    }
+}
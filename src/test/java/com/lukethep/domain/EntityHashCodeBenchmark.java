@@ -0,0 +1,76 @@
+package com.lukethep.domain;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark loading the products of a large owner into {@link User#getProducts()}, with the id-based
+ * {@link Product#hashCode()} against the former constant one.
+ * <p>
+ * Run with {@code ./mvnw -Pbenchmark test -Djmh.args=EntityHashCodeBenchmark}, adding {@code -p size=50000} for a large owner:
+ * the constant hash takes minutes per operation there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntityHashCodeBenchmark {
+
+    @Param({ "1000", "10000" })
+    private int size;
+
+    private List<Product> products;
+
+    private List<Product> constantHashProducts;
+
+    @Setup
+    public void setup() {
+        products = new ArrayList<>(size);
+        constantHashProducts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = new ObjectId().toHexString();
+            products.add(new Product().id(id));
+            constantHashProducts.add(new ConstantHashProduct().id(id));
+        }
+    }
+
+    @Benchmark
+    public Set<Product> loadProducts() {
+        return new User().products(new HashSet<>(products)).getProducts();
+    }
+
+    @Benchmark
+    public Set<Product> loadConstantHashProducts() {
+        return new User().products(new HashSet<>(constantHashProducts)).getProducts();
+    }
+
+    /**
+     * A product hashed the way entities were before, every instance in the same bucket.
+     */
+    static class ConstantHashProduct extends Product {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int hashCode() {
+            return Product.class.hashCode();
+        }
+    }
+}
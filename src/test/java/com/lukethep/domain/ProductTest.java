@@ -23,6 +23,17 @@ class ProductTest {
         assertThat(product1).isNotEqualTo(product2);
     }
 
+    @Test
+    void hashCodeFollowsId() {
+        Product product1 = getProductSample1();
+        Product product2 = new Product();
+        assertThat(product2).hasSameHashCodeAs(new Product());
+
+        product2.setId(product1.getId());
+        assertThat(product2).hasSameHashCodeAs(product1);
+        assertThat(product1.hashCode()).isNotEqualTo(getProductSample2().hashCode());
+    }
+
     @Test
     void ownerTest() {
         Product product = getProductRandomSampleGenerator();
@@ -25,6 +25,17 @@ class UserTest {
         assertThat(user1).isNotEqualTo(user2);
     }
 
+    @Test
+    void hashCodeFollowsId() {
+        User user1 = getUserSample1();
+        User user2 = new User();
+        assertThat(user2).hasSameHashCodeAs(new User());
+
+        user2.setId(user1.getId());
+        assertThat(user2).hasSameHashCodeAs(user1);
+        assertThat(user1.hashCode()).isNotEqualTo(getUserSample2().hashCode());
+    }
+
     @Test
     void productsTest() {
         User user = getUserRandomSampleGenerator();
@@ -0,0 +1,146 @@
+package com.lukethep.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+
+/**
+ * Test class for the {@link BatchingDbRefResolver}.
+ */
+class BatchingDbRefResolverTest {
+
+    private final Map<String, MongoCollection<Document>> collections = new HashMap<>();
+
+    private BatchingDbRefResolver resolver;
+
+    private Document owner1;
+
+    private Document owner2;
+
+    private Document product1;
+
+    private Document product2;
+
+    private Document product3;
+
+    @BeforeEach
+    public void setup() {
+        owner1 = new Document("_id", new ObjectId());
+        owner2 = new Document("_id", new ObjectId());
+        product1 = new Document("_id", new ObjectId()).append("owner", ref("user", owner1));
+        product2 = new Document("_id", new ObjectId()).append("owner", ref("user", owner1));
+        product3 = new Document("_id", new ObjectId()).append("owner", ref("user", owner2));
+        owner1.append("products", List.of(ref("product", product1), ref("product", product2)));
+        owner2.append("products", List.of(ref("product", product3)));
+        givenCollection("user", owner1, owner2);
+        givenCollection("product", product1, product2, product3);
+
+        MongoDatabaseFactory mongoDatabaseFactory = mock(MongoDatabaseFactory.class);
+        when(mongoDatabaseFactory.getExceptionTranslator()).thenReturn(new MongoExceptionTranslator());
+        resolver = new BatchingDbRefResolver(mongoDatabaseFactory) {
+            @Override
+            protected MongoCollection<Document> getCollection(DBRef dbRef) {
+                return collections.get(dbRef.getCollectionName());
+            }
+        };
+    }
+
+    @Test
+    void testBulkFetchReadsEachDocumentOnce() {
+        List<DBRef> refs = List.of(ref("product", product1), ref("product", product2));
+
+        List<Document> documents = resolver.withIdentityMap(() -> {
+            resolver.bulkFetch(refs);
+            resolver.fetch(ref("product", product1));
+            return resolver.bulkFetch(refs);
+        });
+
+        assertThat(documents).containsExactly(product1, product2);
+        verify(collections.get("product"), times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testMissingDocumentsAreRemembered() {
+        List<DBRef> refs = List.of(new DBRef("product", new ObjectId()));
+
+        List<Document> documents = resolver.withIdentityMap(() -> {
+            resolver.bulkFetch(refs);
+            return resolver.bulkFetch(refs);
+        });
+
+        assertThat(documents).isEmpty();
+        verify(collections.get("product"), times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testPrefetchLoadsReachableReferencesInOneQueryPerLevel() {
+        resolver.withIdentityMap(() -> {
+            resolver.prefetch("product", List.of(product1, product3));
+            assertThat(resolver.bulkFetch(List.of(ref("user", owner1), ref("user", owner2)))).containsExactly(owner1, owner2);
+            assertThat(resolver.fetch(ref("product", product2))).isEqualTo(product2);
+            return null;
+        });
+
+        // The owners, then the products of the owners which were not part of the page
+        verify(collections.get("user"), times(1)).find(any(Bson.class));
+        verify(collections.get("product"), times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testWithoutIdentityMapEveryFetchReadsTheDatabase() {
+        List<DBRef> refs = List.of(ref("product", product1), ref("product", product2));
+
+        resolver.bulkFetch(refs);
+        List<Document> documents = resolver.bulkFetch(refs);
+
+        assertThat(documents).containsExactly(product1, product2);
+        verify(collections.get("product"), times(2)).find(any(Bson.class));
+    }
+
+    private static DBRef ref(String collection, Document document) {
+        return new DBRef(collection, document.get("_id"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenCollection(String name, Document... documents) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.find(any(Bson.class))).thenAnswer(invocation -> {
+            // Only the {_id: {$in: [...]}} filters of the resolvers are supported
+            List<ObjectId> ids = new ArrayList<>();
+            for (BsonValue id : invocation.<Bson>getArgument(0).toBsonDocument().getDocument("_id").getArray("$in")) {
+                ids.add(id.asObjectId().getValue());
+            }
+            FindIterable<Document> iterable = mock(FindIterable.class);
+            when(iterable.into(any())).thenAnswer(into -> {
+                List<Document> target = into.getArgument(0);
+                for (Document document : documents) {
+                    if (ids.contains(document.getObjectId("_id"))) {
+                        target.add(document);
+                    }
+                }
+                return target;
+            });
+            return iterable;
+        });
+        collections.put(name, collection);
+    }
+}
@@ -0,0 +1,139 @@
+package com.lukethep.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.domain.Product;
+import com.mongodb.DBRef;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.ReactiveFindOperation.FindWithQuery;
+import org.springframework.data.mongodb.core.ReactiveFindOperation.ReactiveFind;
+import org.springframework.data.mongodb.core.ReactiveFindOperation.TerminatingFind;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+/**
+ * Test class for the {@link ReactiveBatchingDbRefResolver}.
+ */
+class ReactiveBatchingDbRefResolverTest {
+
+    private final Map<String, List<Document>> collections = new HashMap<>();
+
+    private final List<String> queries = new ArrayList<>();
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    private Document owner1;
+
+    private Document owner2;
+
+    private Document product1;
+
+    private Document product2;
+
+    private Document product3;
+
+    @BeforeEach
+    public void setup() {
+        owner1 = new Document("_id", new ObjectId());
+        owner2 = new Document("_id", new ObjectId());
+        product1 = new Document("_id", new ObjectId()).append("owner", ref("user", owner1));
+        product2 = new Document("_id", new ObjectId()).append("owner", ref("user", owner1));
+        product3 = new Document("_id", new ObjectId()).append("owner", ref("user", owner2));
+        owner1.append("products", List.of(ref("product", product1), ref("product", product2)));
+        owner2.append("products", List.of(ref("product", product3)));
+        collections.put("user", List.of(owner1, owner2));
+        collections.put("product", List.of(product1, product2, product3));
+        reactiveMongoOperations = mock(ReactiveMongoOperations.class);
+        when(reactiveMongoOperations.getCollectionName(Product.class)).thenReturn("product");
+    }
+
+    @Test
+    void testFindAllLoadsReachableReferencesInOneQueryPerLevel() {
+        ReactiveBatchingDbRefResolver resolver = givenResolver(10, product1, product3);
+
+        List<Product> products = resolver.findAll(reactiveMongoOperations, new Query(), Product.class).collectList().block();
+
+        assertThat(products).extracting(Product::getId).containsExactly(id(product1), id(product3));
+        assertThat(products.get(0).getOwner().getId()).isEqualTo(id(owner1));
+        assertThat(products.get(0).getOwner().getProducts()).extracting(Product::getId).contains(id(product2));
+        assertThat(products.get(1).getOwner().getId()).isEqualTo(id(owner2));
+        // The owners, then the products of the owners which were not part of the page
+        assertThat(queries).containsExactly("user", "product");
+    }
+
+    @Test
+    void testFindAllOnlyReadsTheReferencesOfTheBatchesRequested() {
+        ReactiveBatchingDbRefResolver resolver = givenResolver(1, product1, product2, product3);
+
+        List<Product> products = resolver.findAll(reactiveMongoOperations, new Query(), Product.class).take(1).collectList().block();
+
+        assertThat(products).extracting(Product::getId).containsExactly(id(product1));
+        assertThat(queries).containsExactly("user", "product");
+    }
+
+    @Test
+    void testReferencesAreNotResolvedOutsideOfFindAll() {
+        ReactiveBatchingDbRefResolver resolver = givenResolver(10);
+
+        assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> resolver.fetch(ref("user", owner1)));
+        assertThat(queries).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReactiveBatchingDbRefResolver givenResolver(int batchSize, Document... page) {
+        MongoDatabaseFactory mongoDatabaseFactory = mock(MongoDatabaseFactory.class);
+        when(mongoDatabaseFactory.getExceptionTranslator()).thenReturn(new MongoExceptionTranslator());
+        ReactiveBatchingDbRefResolver resolver = new ReactiveBatchingDbRefResolver(
+            mongoDatabaseFactory,
+            mock(ReactiveMongoDatabaseFactory.class),
+            batchSize
+        ) {
+            @Override
+            protected Flux<Document> find(DBRef dbRef, List<Object> ids) {
+                queries.add(dbRef.getCollectionName());
+                return Flux.fromIterable(collections.get(dbRef.getCollectionName())).filter(document -> ids.contains(document.get("_id")));
+            }
+        };
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(resolver, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(reactiveMongoOperations.getConverter()).thenReturn(converter);
+        ReactiveFind<Product> find = mock(ReactiveFind.class);
+        FindWithQuery<Document> findDocuments = mock(FindWithQuery.class);
+        TerminatingFind<Document> terminatingFind = mock(TerminatingFind.class);
+        when(reactiveMongoOperations.query(Product.class)).thenReturn(find);
+        when(find.as(Document.class)).thenReturn(findDocuments);
+        when(findDocuments.matching(any(Query.class))).thenReturn(terminatingFind);
+        when(terminatingFind.all()).thenReturn(Flux.just(page));
+        return resolver;
+    }
+
+    private static DBRef ref(String collection, Document document) {
+        return new DBRef(collection, document.get("_id"));
+    }
+
+    private static String id(Document document) {
+        return document.getObjectId("_id").toHexString();
+    }
+}
@@ -0,0 +1,153 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.service.dto.BulkItemResultDTO;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+class BulkInsertServiceTests {
+
+    private static Validator validator;
+
+    private static MappingMongoConverter mongoConverter;
+
+    private BulkOperations bulkOperations;
+
+    private ApplicationProperties applicationProperties;
+
+    private BulkInsertService bulkInsertService;
+
+    @BeforeAll
+    public static void setupAll() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    }
+
+    @BeforeEach
+    public void setup() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(mongoConverter);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(eq(BulkMode.UNORDERED), eq(Product.class))).thenReturn(bulkOperations);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getBulk().setChunkSize(2);
+        applicationProperties.getBulk().setMaxItems(3);
+
+        bulkInsertService = new BulkInsertService(mongoTemplate, new ObjectMapper(), validator, applicationProperties);
+    }
+
+    @Test
+    void testReadItemsFromJsonArray() throws Exception {
+        List<JsonNode> items = bulkInsertService.readItems(body("[{\"name\":\"a\"},{\"name\":\"b\"}]"));
+
+        assertThat(items).extracting(item -> item.get("name").asText()).containsExactly("a", "b");
+    }
+
+    @Test
+    void testReadItemsFromNdjson() throws Exception {
+        List<JsonNode> items = bulkInsertService.readItems(body("{\"name\":\"a\"}\n{\"name\":\"b\"}\n"));
+
+        assertThat(items).extracting(item -> item.get("name").asText()).containsExactly("a", "b");
+    }
+
+    @Test
+    void testReadItemsRejectsTooManyItems() {
+        assertThatIllegalArgumentException().isThrownBy(() -> bulkInsertService.readItems(body("[{},{},{},{}]")));
+    }
+
+    @Test
+    void testInsertAllReportsEachItem() throws Exception {
+        List<JsonNode> items = bulkInsertService.readItems(
+            body("[{\"name\":\"a\",\"price\":1},{\"name\":\"b\"},{\"id\":\"x\",\"name\":\"c\",\"price\":3}]")
+        );
+
+        List<BulkItemResultDTO> results = bulkInsertService.insertAll(items, Product.class);
+
+        assertThat(results).extracting(BulkItemResultDTO::getIndex).containsExactly(0, 1, 2);
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsExactly(201, 400, 400);
+        assertThat(ObjectId.isValid(results.get(0).getId())).isTrue();
+        assertThat(results.get(1).getError()).isEqualTo("price: must not be null");
+        assertThat(results.get(2).getId()).isNull();
+        verify(bulkOperations, times(1)).insert(any(Object.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testInsertAllReportsInsertedEntities() throws Exception {
+        List<JsonNode> items = bulkInsertService.readItems(
+            body("[{\"name\":\"a\",\"price\":1},{\"name\":\"b\"},{\"name\":\"c\",\"price\":3}]")
+        );
+        List<Product> inserted = new ArrayList<>();
+
+        bulkInsertService.insertAll(items, Product.class, inserted::addAll);
+
+        assertThat(inserted).extracting(Product::getName).containsExactly("a", "c");
+        assertThat(inserted).extracting(Product::getId).doesNotContainNull();
+    }
+
+    @Test
+    void testInsertAllWritesInChunks() throws Exception {
+        applicationProperties.getBulk().setMaxItems(10);
+        List<JsonNode> items = bulkInsertService.readItems(body("{\"name\":\"a\",\"price\":1}\n".repeat(5)));
+
+        List<BulkItemResultDTO> results = bulkInsertService.insertAll(items, Product.class);
+
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsOnly(201);
+        assertThat(results).extracting(BulkItemResultDTO::getId).doesNotHaveDuplicates();
+        verify(bulkOperations, times(5)).insert(any(Object.class));
+        verify(bulkOperations, times(3)).execute();
+    }
+
+    @Test
+    void testInsertAllSkipsUnreadableItems() throws Exception {
+        List<JsonNode> items = bulkInsertService.readItems(body("[{\"name\":\"a\",\"price\":\"not a number\"}]"));
+
+        List<BulkItemResultDTO> results = bulkInsertService.insertAll(items, Product.class);
+
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsExactly(400);
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void testMalformedBodyIsRejected() {
+        assertThatExceptionOfType(JsonProcessingException.class).isThrownBy(() ->
+            bulkInsertService.readItems(body("[{\"name\":"))
+        );
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,141 @@
+package com.lukethep.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.repository.ChangeStreamTokenRepository;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class ChangeStreamInvalidationServiceTests {
+
+    private ProductService productService;
+
+    private UserService userService;
+
+    private ChangeStreamInvalidationService changeStreamInvalidationService;
+
+    @BeforeEach
+    public void setup() {
+        productService = mock(ProductService.class);
+        userService = mock(UserService.class);
+        changeStreamInvalidationService = new ChangeStreamInvalidationService(
+            mock(MongoTemplate.class),
+            mock(ChangeStreamTokenRepository.class),
+            productService,
+            userService,
+            new ApplicationProperties()
+        );
+    }
+
+    @Test
+    void testProductUpdateEvictsProductAndOwner() {
+        ObjectId productId = new ObjectId();
+        ObjectId ownerId = new ObjectId();
+        Document fullDocument = new Document("_id", productId).append("owner", new DBRef("user", ownerId));
+
+        changeStreamInvalidationService.invalidate(
+            ChangeStreamInvalidationService.PRODUCT_COLLECTION,
+            change(OperationType.UPDATE, productId, fullDocument, null)
+        );
+
+        verify(productService).evict(productId.toHexString());
+        verify(userService).evict(ownerId.toHexString());
+    }
+
+    @Test
+    void testProductDeleteEvictsProduct() {
+        ObjectId productId = new ObjectId();
+
+        changeStreamInvalidationService.invalidate(
+            ChangeStreamInvalidationService.PRODUCT_COLLECTION,
+            change(OperationType.DELETE, productId, null, null)
+        );
+
+        verify(productService).evict(productId.toHexString());
+        verify(productService, never()).evictAll();
+    }
+
+    @Test
+    void testProductMoveEvictsBothOwners() {
+        ObjectId productId = new ObjectId();
+        ObjectId formerOwnerId = new ObjectId();
+        ObjectId ownerId = new ObjectId();
+
+        changeStreamInvalidationService.invalidate(
+            ChangeStreamInvalidationService.PRODUCT_COLLECTION,
+            change(
+                OperationType.UPDATE,
+                productId,
+                new Document("_id", productId).append("owner", new DBRef("user", ownerId)),
+                new Document("_id", productId).append("owner", new DBRef("user", formerOwnerId))
+            )
+        );
+
+        verify(userService).evict(ownerId.toHexString());
+        verify(userService).evict(formerOwnerId.toHexString());
+    }
+
+    @Test
+    void testProductDeleteEvictsItsFormerOwner() {
+        ObjectId productId = new ObjectId();
+        ObjectId ownerId = new ObjectId();
+
+        changeStreamInvalidationService.invalidate(
+            ChangeStreamInvalidationService.PRODUCT_COLLECTION,
+            change(OperationType.DELETE, productId, null, new Document("_id", productId).append("owner", new DBRef("user", ownerId)))
+        );
+
+        verify(userService).evict(ownerId.toHexString());
+    }
+
+    @Test
+    void testUserReplaceEvictsUser() {
+        ObjectId userId = new ObjectId();
+
+        changeStreamInvalidationService.invalidate(
+            ChangeStreamInvalidationService.USER_COLLECTION,
+            change(OperationType.REPLACE, userId, new Document("_id", userId), null)
+        );
+
+        verify(userService).evict(userId.toHexString());
+        verify(productService, never()).evict(userId.toHexString());
+    }
+
+    @Test
+    void testDropEvictsEverything() {
+        changeStreamInvalidationService.invalidate(
+            ChangeStreamInvalidationService.PRODUCT_COLLECTION,
+            change(OperationType.DROP, null, null, null)
+        );
+
+        verify(productService).evictAll();
+        verify(userService).evictAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> change(
+        OperationType operationType,
+        ObjectId id,
+        Document fullDocument,
+        Document fullDocumentBeforeChange
+    ) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getOperationType()).thenReturn(operationType);
+        when(change.getDocumentKey()).thenReturn(id == null ? null : new BsonDocument("_id", new BsonObjectId(id)));
+        when(change.getFullDocument()).thenReturn(fullDocument);
+        when(change.getFullDocumentBeforeChange()).thenReturn(fullDocumentBeforeChange);
+        return change;
+    }
+}
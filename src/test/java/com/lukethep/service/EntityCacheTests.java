@@ -0,0 +1,153 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.LocalMapStats;
+import com.hazelcast.nearcache.NearCacheStats;
+import com.lukethep.domain.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class EntityCacheTests {
+
+    private static final String CACHE_NAME = Product.class.getName();
+
+    private LocalMapStats localMapStats;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        IMap<?, ?> map = mock(IMap.class);
+        localMapStats = mock(LocalMapStats.class);
+        when(map.getLocalMapStats()).thenReturn(localMapStats);
+        Cache cache = mock(Cache.class);
+        when(cache.getName()).thenReturn(CACHE_NAME);
+        when(cache.getNativeCache()).thenReturn(map);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+        meterRegistry = new SimpleMeterRegistry();
+
+        new EntityCache<>(cacheManager, Product.class, meterRegistry);
+    }
+
+    @Test
+    void testNearCacheHitsAreTold() {
+        NearCacheStats nearCacheStats = mock(NearCacheStats.class);
+        when(nearCacheStats.getHits()).thenReturn(7L);
+        when(nearCacheStats.getMisses()).thenReturn(3L);
+        when(localMapStats.getNearCacheStats()).thenReturn(nearCacheStats);
+
+        assertThat(nearCacheGets("hit")).isEqualTo(7);
+        assertThat(nearCacheGets("miss")).isEqualTo(3);
+    }
+
+    @Test
+    void testMapWithoutNearCacheHasNoHits() {
+        assertThat(nearCacheGets("hit")).isZero();
+        assertThat(nearCacheGets("miss")).isZero();
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        EntityCache<Product> entityCache = new EntityCache<>(new ConcurrentMapCacheManager(), Product.class, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Optional<Product>> first = CompletableFuture.supplyAsync(() ->
+            entityCache.get("id", id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return Optional.of(new Product().id(id));
+            })
+        );
+        await(loading);
+        CompletableFuture<Optional<Product>> second = CompletableFuture.supplyAsync(() ->
+            entityCache.get("id", id -> {
+                loads.incrementAndGet();
+                return Optional.of(new Product().id(id));
+            })
+        );
+        while (coalesced() == 0) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).map(Product::getId).contains("id");
+        assertThat(second.get(5, TimeUnit.SECONDS)).map(Product::getId).contains("id");
+        assertThat(loads).hasValue(1);
+        assertThat(coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        EntityCache<Product> entityCache = new EntityCache<>(new ConcurrentMapCacheManager(), Product.class, meterRegistry);
+
+        assertThatIllegalStateException().isThrownBy(() ->
+            entityCache.get("id", id -> {
+                throw new IllegalStateException("Database unavailable");
+            })
+        );
+
+        assertThat(entityCache.get("id", id -> Optional.of(new Product().id(id)))).isPresent();
+    }
+
+    @Test
+    void testEntityLoadedDuringTransactionIsEvictedOnCompletion() {
+        EntityCache<Product> entityCache = new EntityCache<>(new ConcurrentMapCacheManager(), Product.class, meterRegistry);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            entityCache.evict("id");
+            // A concurrent miss reads the entity before the transaction commits
+            entityCache.get("id", id -> Optional.of(new Product().id(id)));
+            assertThat(entityCache.peek("id")).isPresent();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED)
+            );
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(entityCache.peek("id")).isEmpty();
+    }
+
+    private double coalesced() {
+        return meterRegistry.get(EntityCache.COALESCED_METER_NAME).tag("cache", CACHE_NAME).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double nearCacheGets(String result) {
+        return meterRegistry
+            .get(EntityCache.NEAR_CACHE_GETS_METER_NAME)
+            .tag("cache", CACHE_NAME)
+            .tag("result", result)
+            .functionCounter()
+            .count();
+    }
+}
@@ -0,0 +1,142 @@
+package com.lukethep.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.cp.CPSubsystem;
+import com.hazelcast.cp.IAtomicLong;
+import com.hazelcast.cp.lock.FencedLock;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.OwnerStatsRepository;
+import com.lukethep.repository.ProductChange;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OwnerStatsServiceTests {
+
+    private OwnerStatsRepository ownerStatsRepository;
+
+    private FencedLock rebuildLock;
+
+    private IAtomicLong lastRebuildStart;
+
+    private OwnerStatsService ownerStatsService;
+
+    @BeforeEach
+    public void setup() {
+        ownerStatsRepository = mock(OwnerStatsRepository.class);
+        rebuildLock = mock(FencedLock.class);
+        lastRebuildStart = mock(IAtomicLong.class);
+        CPSubsystem cpSubsystem = mock(CPSubsystem.class);
+        when(cpSubsystem.getLock(OwnerStatsService.REBUILD_LOCK_NAME)).thenReturn(rebuildLock);
+        when(cpSubsystem.getAtomicLong(OwnerStatsService.REBUILD_LOCK_NAME)).thenReturn(lastRebuildStart);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.getCPSubsystem()).thenReturn(cpSubsystem);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getOwnerStats().setRebuildCron("0 30 3 * * *");
+
+        ownerStatsService = new OwnerStatsService(ownerStatsRepository, hazelcastInstance, applicationProperties);
+    }
+
+    @Test
+    void testProductsCreatedUpdatesOncePerOwner() {
+        User owner1 = new User().id("owner1");
+        User owner2 = new User().id("owner2");
+
+        ownerStatsService.productsCreated(
+            List.of(
+                product("id1", "3").owner(owner1),
+                product("id2", "5").owner(owner2),
+                product("id3", "1").owner(owner1),
+                product("id4", "7")
+            )
+        );
+
+        verify(ownerStatsRepository).addProducts("owner1", 2, new BigDecimal("4"), BigDecimal.ONE, new BigDecimal("3"));
+        verify(ownerStatsRepository).addProducts("owner2", 1, new BigDecimal("5"), new BigDecimal("5"), new BigDecimal("5"));
+    }
+
+    @Test
+    void testProductChangedMovesProductBetweenOwners() {
+        Product product = product("id1", "2").owner(new User().id("owner2"));
+
+        ownerStatsService.productChanged(new ProductChange(product, "owner1", BigDecimal.ONE));
+
+        verify(ownerStatsRepository).removeProduct("owner1", BigDecimal.ONE);
+        verify(ownerStatsRepository).addProducts("owner2", 1, new BigDecimal("2"), new BigDecimal("2"), new BigDecimal("2"));
+    }
+
+    @Test
+    void testProductChangedIgnoresUnchangedPrice() {
+        Product product = product("id1", "1.00").owner(new User().id("owner1"));
+
+        ownerStatsService.productChanged(new ProductChange(product, "owner1", BigDecimal.ONE));
+
+        verifyNoInteractions(ownerStatsRepository);
+    }
+
+    @Test
+    void testProductDeletedIsRemovedFromOwner() {
+        ownerStatsService.productChanged(new ProductChange(null, "owner1", BigDecimal.ONE));
+
+        verify(ownerStatsRepository).removeProduct("owner1", BigDecimal.ONE);
+        verify(ownerStatsRepository, never()).addProducts(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void testRebuildRunsOncePerSchedule() {
+        when(rebuildLock.tryLock()).thenReturn(true);
+        when(lastRebuildStart.get()).thenReturn(Instant.now().minus(2, ChronoUnit.DAYS).toEpochMilli());
+
+        ownerStatsService.rebuild();
+
+        verify(ownerStatsRepository).rebuild();
+        verify(lastRebuildStart).set(anyLong());
+        verify(rebuildLock).unlock();
+    }
+
+    @Test
+    void testRebuildIsSkippedWhileAnotherMemberRunsIt() {
+        when(rebuildLock.tryLock()).thenReturn(false);
+
+        ownerStatsService.rebuild();
+
+        verify(ownerStatsRepository, never()).rebuild();
+        verify(rebuildLock, never()).unlock();
+    }
+
+    @Test
+    void testRebuildIsSkippedOnceAnotherMemberRanItForTheSchedule() {
+        when(rebuildLock.tryLock()).thenReturn(true);
+        // A member whose clock is ahead has just rebuilt the stats
+        when(lastRebuildStart.get()).thenReturn(Instant.now().minusSeconds(2).toEpochMilli());
+
+        ownerStatsService.rebuild();
+
+        verify(ownerStatsRepository, never()).rebuild();
+        verify(rebuildLock).unlock();
+    }
+
+    @Test
+    void testOwnerDeletedRemovesItsStats() {
+        ownerStatsService.ownerDeleted("owner1");
+
+        verify(ownerStatsRepository).deleteById("owner1");
+    }
+
+    private static Product product(String id, String price) {
+        return new Product().id(id).name("name " + id).price(new BigDecimal(price));
+    }
+}
@@ -0,0 +1,122 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductTombstone;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.ProductTombstoneRepository;
+import com.lukethep.service.dto.ProductChangesDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+class ProductChangesServiceTests {
+
+    private static final Instant SINCE = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+
+    private ProductRepository productRepository;
+
+    private ProductTombstoneRepository productTombstoneRepository;
+
+    private MongoTemplate mongoTemplate;
+
+    private ProductChangesService productChangesService;
+
+    @BeforeEach
+    public void setup() {
+        productRepository = mock(ProductRepository.class);
+        productTombstoneRepository = mock(ProductTombstoneRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        productChangesService = new ProductChangesService(
+            productRepository,
+            productTombstoneRepository,
+            mongoTemplate,
+            new ApplicationProperties()
+        );
+    }
+
+    @Test
+    void testChangesAreMergedInDateOrder() {
+        Product updated = product(SINCE.minusSeconds(60), SINCE.plusSeconds(1));
+        Product created = product(SINCE.plusSeconds(2), SINCE.plusSeconds(3));
+        ProductTombstone deleted = new ProductTombstone().id(new ObjectId().toHexString()).deletedDate(SINCE.plusSeconds(2));
+        when(productRepository.findAll(any(Query.class))).thenReturn(List.of(updated, created));
+        when(mongoTemplate.find(any(Query.class), eq(ProductTombstone.class))).thenReturn(List.of(deleted));
+
+        ProductChangesDTO changes = productChangesService.getChanges(new ProductChangesService.SyncToken(SINCE, null), 2);
+
+        assertThat(changes.getUpdated()).containsExactly(updated);
+        assertThat(changes.getDeleted()).containsExactly(deleted.getId());
+        assertThat(changes.getCreated()).isEmpty();
+        assertThat(changes.isHasMore()).isTrue();
+        assertThat(ProductChangesService.SyncToken.parse(changes.getToken())).isEqualTo(
+            new ProductChangesService.SyncToken(deleted.getDeletedDate(), deleted.getId())
+        );
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(productRepository).findAll(query.capture());
+        assertThat(query.getValue().getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void testCaughtUpSyncResumesFromTheSettledDate() {
+        Product created = product(SINCE.plusSeconds(2), SINCE.plusSeconds(3));
+        when(productRepository.findAll(any(Query.class))).thenReturn(List.of(created));
+        when(mongoTemplate.find(any(Query.class), eq(ProductTombstone.class))).thenReturn(List.of());
+
+        ProductChangesDTO changes = productChangesService.getChanges(null, 10);
+
+        assertThat(changes.getCreated()).containsExactly(created);
+        assertThat(changes.isHasMore()).isFalse();
+        ProductChangesService.SyncToken token = ProductChangesService.SyncToken.parse(changes.getToken());
+        assertThat(token.id()).isNull();
+        assertThat(token.date()).isBetween(Instant.now().minusSeconds(10), Instant.now().minusSeconds(5));
+    }
+
+    @Test
+    void testSyncTokenRoundTrip() {
+        ProductChangesService.SyncToken token = new ProductChangesService.SyncToken(SINCE, new ObjectId().toHexString());
+
+        assertThat(ProductChangesService.SyncToken.parse(token.encode())).isEqualTo(token);
+        assertThatIllegalArgumentException().isThrownBy(() -> ProductChangesService.SyncToken.parse("not a token"));
+    }
+
+    @Test
+    void testOldTokensExpire() {
+        assertThat(productChangesService.isExpired(new ProductChangesService.SyncToken(SINCE, null))).isFalse();
+        assertThat(productChangesService.isExpired(new ProductChangesService.SyncToken(SINCE.minus(Duration.ofDays(31)), null))).isTrue();
+    }
+
+    @Test
+    void testDeletionLeavesATombstone() {
+        productChangesService.productDeleted("id1");
+
+        ArgumentCaptor<ProductTombstone> tombstone = ArgumentCaptor.forClass(ProductTombstone.class);
+        verify(productTombstoneRepository).save(tombstone.capture());
+        assertThat(tombstone.getValue().getId()).isEqualTo("id1");
+        assertThat(Duration.between(tombstone.getValue().getDeletedDate(), tombstone.getValue().getExpireDate())).isEqualTo(
+            Duration.ofDays(30)
+        );
+    }
+
+    private static Product product(Instant createdDate, Instant lastModifiedDate) {
+        Product product = new Product().id(new ObjectId().toHexString()).name("a");
+        product.setCreatedDate(createdDate);
+        product.setLastModifiedDate(lastModifiedDate);
+        return product;
+    }
+}
@@ -0,0 +1,285 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.service.dto.ProductEventDTO;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class ProductEventServiceTests {
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private ProductEventService productEventService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getProductEvents().setBufferSize(2);
+        applicationProperties.getProductEvents().setReplaySize(3);
+        productEventService = new ProductEventService(mock(MongoTemplate.class), applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        productEventService.shutdown();
+    }
+
+    @Test
+    void testSubscriberOnlyGetsTheEventsOfItsOwner() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        productEventService.subscribe("owner-a", null, sink);
+
+        productEventService.publish(event("1", "owner-b"));
+        productEventService.publish(event("2", "owner-a"));
+
+        assertThat(sink.next().getId()).isEqualTo("2");
+        assertThat(sink.events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testSubscriberGetsTheDeletesOfTheProductsOfItsOwner() throws Exception {
+        ObjectId productId = new ObjectId();
+        ObjectId ownerId = new ObjectId();
+        RecordingSink sink = new RecordingSink();
+        productEventService.subscribe(ownerId.toHexString(), null, sink);
+
+        // Deletes have no full document, only a pre-image
+        ProductEventDTO deleted = ProductEventService.toEvent(
+            change(OperationType.DELETE, productId, null, new Document("_id", productId).append("owner", new DBRef("user", ownerId)))
+        );
+        productEventService.publish(deleted);
+
+        ProductEventDTO event = sink.next();
+        assertThat(event.getType()).isEqualTo(ProductEventDTO.DELETED);
+        assertThat(event.getProductId()).isEqualTo(productId.toHexString());
+        assertThat(event.getOwnerId()).isNull();
+        assertThat(event.getPreviousOwnerId()).isEqualTo(ownerId.toHexString());
+    }
+
+    @Test
+    void testSubscribersOfBothOwnersGetTheMoveOfAProduct() throws Exception {
+        ObjectId productId = new ObjectId();
+        ObjectId formerOwnerId = new ObjectId();
+        ObjectId ownerId = new ObjectId();
+        RecordingSink formerOwnerSink = new RecordingSink();
+        RecordingSink ownerSink = new RecordingSink();
+        RecordingSink otherSink = new RecordingSink();
+        productEventService.subscribe(formerOwnerId.toHexString(), null, formerOwnerSink);
+        productEventService.subscribe(ownerId.toHexString(), null, ownerSink);
+        productEventService.subscribe("other-owner", null, otherSink);
+
+        ProductEventDTO moved = ProductEventService.toEvent(
+            change(
+                OperationType.UPDATE,
+                productId,
+                new Document("_id", productId).append("owner", new DBRef("user", ownerId)),
+                new Document("_id", productId).append("owner", new DBRef("user", formerOwnerId))
+            )
+        );
+        productEventService.publish(moved);
+
+        assertThat(formerOwnerSink.next().getPreviousOwnerId()).isEqualTo(formerOwnerId.toHexString());
+        assertThat(ownerSink.next().getOwnerId()).isEqualTo(ownerId.toHexString());
+        assertThat(otherSink.events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testResumingSubscriberGetsTheEventsAfterItsLastEvent() throws Exception {
+        productEventService.publish(event("1", "owner-a"));
+        productEventService.publish(event("2", "owner-a"));
+        productEventService.publish(event("3", "owner-a"));
+        applicationProperties.getProductEvents().setBufferSize(3);
+        RecordingSink sink = new RecordingSink();
+
+        productEventService.subscribe(null, "1", sink);
+        productEventService.publish(event("4", "owner-a"));
+
+        assertThat(List.of(sink.next(), sink.next(), sink.next())).extracting(ProductEventDTO::getId).containsExactly("2", "3", "4");
+    }
+
+    @Test
+    void testSubscriberResumingFromAForgottenEventGetsAReset() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            productEventService.publish(event(String.valueOf(i), "owner-a"));
+        }
+        RecordingSink sink = new RecordingSink();
+
+        productEventService.subscribe(null, "1", sink);
+
+        assertThat(sink.next().getType()).isEqualTo(ProductEventDTO.RESET);
+        assertThat(sink.events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testSlowSubscriberIsDropped() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slowSink = new RecordingSink() {
+            @Override
+            public void send(ProductEventDTO event) {
+                sending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ProductEventService.Subscription slow = productEventService.subscribe(null, null, slowSink);
+
+        productEventService.publish(event("1", "owner-a"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i <= 4; i++) {
+            productEventService.publish(event(String.valueOf(i), "owner-a"));
+        }
+        release.countDown();
+
+        assertThat(slow.isClosed()).isTrue();
+        assertThat(slowSink.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get(ProductEventService.DROPPED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ProductEventService.SUBSCRIBERS_METER_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void testStalledSubscriberIsDroppedWithoutHoldingBackTheOthers() throws Exception {
+        productEventService.shutdown();
+        applicationProperties.getProductEvents().setSenderThreads(1);
+        applicationProperties.getProductEvents().setSendTimeoutSeconds(1);
+        productEventService = new ProductEventService(mock(MongoTemplate.class), applicationProperties, meterRegistry);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink stalledSink = new RecordingSink() {
+            @Override
+            public void send(ProductEventDTO event) {
+                sending.countDown();
+                // A write which is not even stopped by an interruption
+                boolean released = false;
+                while (!released) {
+                    try {
+                        released = release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // Keeps blocking
+                    }
+                }
+            }
+        };
+        ProductEventService.Subscription stalled = productEventService.subscribe(null, null, stalledSink);
+        productEventService.publish(event("1", "owner-a"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The only sender is stuck writing to the stalled subscriber
+        RecordingSink sink = new RecordingSink();
+        productEventService.subscribe(null, null, sink);
+        productEventService.publish(event("2", "owner-a"));
+
+        assertThat(sink.next().getId()).isEqualTo("2");
+        assertThat(stalled.isClosed()).isTrue();
+        assertThat(meterRegistry.get(ProductEventService.DROPPED_METER_NAME).counter().count()).isEqualTo(1);
+        release.countDown();
+        assertThat(stalledSink.closed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testToEventReadsTheChangedProduct() {
+        ObjectId productId = new ObjectId();
+        ObjectId ownerId = new ObjectId();
+        Document fullDocument = new Document("_id", productId)
+            .append("name", "a")
+            .append("price", new Decimal128(new BigDecimal("9.99")))
+            .append("version", 3L)
+            .append("owner", new DBRef("user", ownerId));
+
+        ProductEventDTO event = ProductEventService.toEvent(change(OperationType.UPDATE, productId, fullDocument));
+
+        assertThat(event.getId()).isEqualTo("token");
+        assertThat(event.getType()).isEqualTo(ProductEventDTO.UPDATED);
+        assertThat(event.getProductId()).isEqualTo(productId.toHexString());
+        assertThat(event.getOwnerId()).isEqualTo(ownerId.toHexString());
+        assertThat(event.getName()).isEqualTo("a");
+        assertThat(event.getPrice()).isEqualByComparingTo("9.99");
+        assertThat(event.getVersion()).isEqualTo(3L);
+        assertThat(event.getPreviousOwnerId()).isNull();
+        assertThat(ProductEventService.toEvent(change(OperationType.DROP, null, null))).isNull();
+    }
+
+    private static ProductEventDTO event(String id, String ownerId) {
+        ProductEventDTO event = new ProductEventDTO();
+        event.setId(id);
+        event.setType(ProductEventDTO.UPDATED);
+        event.setProductId("product-" + id);
+        event.setOwnerId(ownerId);
+        return event;
+    }
+
+    private static ChangeStreamDocument<Document> change(OperationType operationType, ObjectId id, Document fullDocument) {
+        return change(operationType, id, fullDocument, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> change(
+        OperationType operationType,
+        ObjectId id,
+        Document fullDocument,
+        Document fullDocumentBeforeChange
+    ) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getOperationType()).thenReturn(operationType);
+        when(change.getResumeToken()).thenReturn(new BsonDocument("_data", new BsonString("token")));
+        when(change.getDocumentKey()).thenReturn(id == null ? null : new BsonDocument("_id", new BsonObjectId(id)));
+        when(change.getFullDocument()).thenReturn(fullDocument);
+        when(change.getFullDocumentBeforeChange()).thenReturn(fullDocumentBeforeChange);
+        return change;
+    }
+
+    private static class RecordingSink implements ProductEventService.Sink {
+
+        final BlockingQueue<ProductEventDTO> events = new LinkedBlockingQueue<>();
+
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(ProductEventDTO event) {
+            events.add(event);
+        }
+
+        @Override
+        public void heartbeat() {}
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        ProductEventDTO next() throws InterruptedException {
+            ProductEventDTO event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).isNotNull();
+            return event;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+class ProductExportServiceTests {
+
+    private static final ObjectId OWNER_ID = new ObjectId();
+
+    private MongoTemplate mongoTemplate;
+
+    private MeterRegistry meterRegistry;
+
+    private ProductExportService productExportService;
+
+    @BeforeEach
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("product");
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getExport().setBatchSize(2);
+
+        productExportService = new ProductExportService(mongoTemplate, new ObjectMapper(), applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void testExportAsNdjson() throws Exception {
+        givenProducts(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = productExportService.exportAll(ProductExportService.Format.NDJSON, out);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).containsExactly(
+            "{\"id\":\"id0\",\"name\":\"name0\",\"price\":0.50,\"owner\":\"" + OWNER_ID + "\"}",
+            "{\"id\":\"id1\",\"name\":\"name1\",\"price\":1.50,\"owner\":\"" + OWNER_ID + "\"}",
+            "{\"id\":\"id2\",\"name\":\"name2\",\"price\":2.50,\"owner\":null}"
+        );
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("}\n");
+    }
+
+    @Test
+    void testExportAsCsv() throws Exception {
+        givenProducts(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productExportService.exportAll(ProductExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).containsExactly(
+            "id,name,price,owner",
+            "id0,name0,0.50," + OWNER_ID,
+            "id1,name1,1.50," + OWNER_ID
+        );
+    }
+
+    @Test
+    void testExportMetersAreRecorded() throws Exception {
+        givenProducts(5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productExportService.exportAll(ProductExportService.Format.NDJSON, out);
+
+        assertThat(meterRegistry.get(ProductExportService.ROWS_METER_NAME).tag("format", "ndjson").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get(ProductExportService.BYTES_METER_NAME).tag("format", "ndjson").counter().count()).isEqualTo(
+            out.size()
+        );
+        assertThat(meterRegistry.get(ProductExportService.DURATION_METER_NAME).timer().count()).isEqualTo(1);
+    }
+
+    private void givenProducts(int count) {
+        Stream<Document> documents = IntStream.range(0, count).mapToObj(i ->
+            new Document("_id", "id" + i)
+                .append("name", "name" + i)
+                // Prices may be stored either as strings or as Decimal128
+                .append("price", i % 2 == 0 ? i + ".50" : new Decimal128(new BigDecimal(i + ".50")))
+                .append("owner", i < 2 ? new DBRef("user", OWNER_ID) : null)
+        );
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("product"))).thenReturn(documents);
+    }
+}
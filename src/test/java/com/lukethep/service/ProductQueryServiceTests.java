@@ -0,0 +1,128 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.lukethep.domain.Product;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.service.criteria.ProductCriteria;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+
+class ProductQueryServiceTests {
+
+    private static final String OWNER_ID = new ObjectId().toHexString();
+
+    private ProductRepository productRepository;
+
+    private ProductQueryService productQueryService;
+
+    @BeforeEach
+    public void setup() {
+        productRepository = mock(ProductRepository.class);
+        productQueryService = new ProductQueryService(productRepository);
+    }
+
+    @Test
+    void testNoCriteriaReadsByIdOrder() {
+        Query query = find(new ProductCriteria(), Sort.Order.asc("id"), null, null);
+
+        assertThat(query.getQueryObject()).isEmpty();
+        assertThat(query.getSortObject()).isEqualTo(new Document("id", 1));
+        assertThat(query.getLimit()).isEqualTo(11);
+    }
+
+    @Test
+    void testAllFiltersMustMatch() {
+        ProductCriteria criteria = new ProductCriteria();
+        criteria.price().setGreaterThan(BigDecimal.TEN);
+        criteria.name().setContains("a.b");
+        criteria.owner().setEquals(OWNER_ID);
+
+        Query query = find(criteria, Sort.Order.asc("id"), null, null);
+
+        List<?> filters = query.getQueryObject().getList("$and", Object.class);
+        assertThat(filters).hasSize(3);
+        Pattern name = ((Document) filters.get(0)).get("name", Pattern.class);
+        assertThat(name.pattern()).isEqualTo(Pattern.quote("a.b"));
+        assertThat(name.flags() & Pattern.CASE_INSENSITIVE).isNotZero();
+        assertThat(filters.get(1)).isEqualTo(new Document("price", new Document("$gt", BigDecimal.TEN)));
+        // Owners are DBRefs, whose ids are stored as ObjectIds
+        assertThat(filters.get(2)).isEqualTo(new Document("owner.$id", new ObjectId(OWNER_ID)));
+    }
+
+    @Test
+    void testKeysetOnSortPropertyThenId() {
+        Query query = find(new ProductCriteria(), Sort.Order.desc("price"), List.of("12.50", "id1"), null);
+
+        assertThat(query.getSortObject()).isEqualTo(new Document("price", -1).append("id", -1));
+        Document keyset = (Document) query.getQueryObject().getList("$and", Object.class).get(0);
+        assertThat(keyset.getList("$or", Document.class)).containsExactly(
+            new Document("price", new Document("$lt", new BigDecimal("12.50"))),
+            // Products without price come last in descending order
+            new Document("price", null),
+            new Document(
+                "$and",
+                List.of(new Document("price", new BigDecimal("12.50")), new Document("id", new Document("$lt", "id1")))
+            )
+        );
+    }
+
+    @Test
+    void testKeysetAfterAProductWithoutPrice() {
+        Product product = new Product().id("id1").name("name");
+        List<String> after = productQueryService.getCursorValues(product, Sort.Order.asc("price"));
+        assertThat(after).containsExactly("", "id1");
+
+        Query query = find(new ProductCriteria(), Sort.Order.asc("price"), after, null);
+
+        // Products without price come first in ascending order, then all those with one
+        Document keyset = (Document) query.getQueryObject().getList("$and", Object.class).get(0);
+        assertThat(keyset.getList("$or", Document.class)).containsExactly(
+            new Document("price", new Document("$ne", null)),
+            new Document("$and", List.of(new Document("price", null), new Document("id", new Document("$gt", "id1"))))
+        );
+    }
+
+    @Test
+    void testProjectionKeepsSortProperty() {
+        Query query = find(new ProductCriteria(), Sort.Order.asc("name"), null, Set.of("id", "price"));
+
+        assertThat(query.getFieldsObject()).isEqualTo(new Document("id", 1).append("price", 1).append("name", 1));
+    }
+
+    @Test
+    void testCursorMustMatchSortOrder() {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> productQueryService.findByCriteria(null, Sort.Order.asc("price"), List.of("id1"), 10, null));
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> productQueryService.findByCriteria(null, Sort.Order.asc("price"), List.of("cheap", "id1"), 10, null));
+    }
+
+    @Test
+    void testCursorValues() {
+        Product product = new Product().id("id1").name("name").price(new BigDecimal("1.50"));
+
+        assertThat(productQueryService.getCursorValues(product, Sort.Order.asc("id"))).containsExactly("id1");
+        assertThat(productQueryService.getCursorValues(product, Sort.Order.asc("name"))).containsExactly("name", "id1");
+        assertThat(productQueryService.getCursorValues(product, Sort.Order.desc("price"))).containsExactly("1.50", "id1");
+    }
+
+    private Query find(ProductCriteria criteria, Sort.Order order, List<String> after, Set<String> fields) {
+        productQueryService.findByCriteria(criteria, order, after, 11, fields);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(productRepository).findAll(query.capture());
+        return query.getValue();
+    }
+}
@@ -0,0 +1,137 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.domain.VersionStamp;
+import com.lukethep.repository.ProductChange;
+import com.lukethep.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ProductServiceTests {
+
+    private ProductRepository productRepository;
+
+    private UserService userService;
+
+    private CacheManager cacheManager;
+
+    private MeterRegistry meterRegistry;
+
+    private ProductService productService;
+
+    @BeforeEach
+    public void setup() {
+        productRepository = mock(ProductRepository.class);
+        userService = mock(UserService.class);
+        cacheManager = new ConcurrentMapCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+
+        productService = new ProductService(
+            productRepository,
+            userService,
+            mock(ProductSummaryService.class),
+            mock(OwnerStatsService.class),
+            mock(BulkInsertService.class),
+            mock(ProductWriteBehindService.class),
+            mock(ProductChangesService.class),
+            mock(PlatformTransactionManager.class),
+            cacheManager,
+            meterRegistry
+        );
+    }
+
+    @Test
+    void testFindOneIsCached() {
+        when(productRepository.findById("id1")).thenReturn(Optional.of(product()));
+
+        assertThat(productService.findOne("id1")).contains(product());
+        assertThat(productService.findOne("id1")).contains(product());
+
+        verify(productRepository, times(1)).findById("id1");
+        assertThat(lookups("hit")).isEqualTo(1);
+        assertThat(lookups("miss")).isEqualTo(1);
+        assertThat(meterRegistry.get(EntityCache.HIT_RATIO_METER_NAME).gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testOwnerIsReadFromTheUserCache() {
+        User owner = new User().id("owner1").name("owner");
+        when(productRepository.findById("id1")).thenReturn(Optional.of(product().owner(new User().id("owner1"))));
+        when(userService.findOwner("owner1")).thenReturn(Optional.of(owner));
+
+        assertThat(productService.findOne("id1")).map(Product::getOwner).containsSame(owner);
+    }
+
+    @Test
+    void testMissingProductIsNotCached() {
+        when(productRepository.findById("id1")).thenReturn(Optional.empty());
+
+        assertThat(productService.findOne("id1")).isEmpty();
+        assertThat(productService.findOne("id1")).isEmpty();
+
+        verify(productRepository, times(2)).findById("id1");
+    }
+
+    @Test
+    void testVersionStampIsReadFromCachedProduct() {
+        Product product = product();
+        when(productRepository.findById("id1")).thenReturn(Optional.of(product));
+        productService.findOne("id1");
+
+        assertThat(productService.findVersionStamp("id1")).contains(new VersionStamp(3L, product.getLastModifiedDate()));
+
+        verify(productRepository, never()).findVersionStampById("id1");
+    }
+
+    @Test
+    void testUpdateEvictsProductAndOwners() {
+        when(productRepository.findById("id1")).thenReturn(Optional.of(product()));
+        productService.findOne("id1");
+        Product updated = product().owner(new User().id("owner2"));
+        when(productRepository.update(updated, null)).thenReturn(Optional.of(new ProductChange(updated, "owner1", BigDecimal.ONE)));
+        // The repository only returns the id of the owner
+        User owner = new User().id("owner2").name("owner");
+        when(userService.findOwner("owner2")).thenReturn(Optional.of(owner));
+
+        assertThat(productService.update(updated, null)).contains(updated).map(Product::getOwner).containsSame(owner);
+
+        assertThat(cacheManager.getCache(Product.class.getName()).get("id1")).isNull();
+        verify(userService).evict("owner1");
+        verify(userService).evict("owner2");
+    }
+
+    @Test
+    void testDeleteEvictsProduct() {
+        when(productRepository.findById("id1")).thenReturn(Optional.of(product()));
+        productService.findOne("id1");
+        when(productRepository.findAndDeleteById("id1")).thenReturn(Optional.of(new ProductChange(null, "owner1", BigDecimal.ONE)));
+
+        productService.delete("id1");
+
+        assertThat(cacheManager.getCache(Product.class.getName()).get("id1")).isNull();
+        verify(userService).evict("owner1");
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get(EntityCache.GETS_METER_NAME).tag("cache", Product.class.getName()).tag("result", result).counter().count();
+    }
+
+    private static Product product() {
+        return new Product().id("id1").name("name").price(BigDecimal.ONE).version(3L);
+    }
+}
@@ -0,0 +1,125 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.domain.Product;
+import com.lukethep.service.dto.PriceBucketDTO;
+import com.lukethep.service.dto.PriceStatsDTO;
+import java.math.BigDecimal;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+class ProductStatsServiceTests {
+
+    private static final ObjectId OWNER_ID = new ObjectId();
+
+    private MongoTemplate mongoTemplate;
+
+    private ProductStatsService productStatsService;
+
+    @BeforeEach
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("product");
+
+        productStatsService = new ProductStatsService(mongoTemplate);
+    }
+
+    @Test
+    void testPriceStatsAreReadFromFacets() {
+        ArgumentCaptor<Aggregation> aggregation = givenResult(
+            new Document("summary", List.of(group(null))).append(
+                "histogram",
+                List.of(bucket("1.00", "3.00", 2), bucket("3.00", "5.00", 1))
+            )
+        );
+
+        PriceStatsDTO stats = productStatsService.getPriceStats(2);
+
+        assertThat(stats.getCount()).isEqualTo(3);
+        assertThat(stats.getAverage()).isEqualByComparingTo("2.50");
+        assertThat(stats.getMin()).isEqualByComparingTo("1.00");
+        assertThat(stats.getMax()).isEqualByComparingTo("5.00");
+        assertThat(stats.getPercentiles()).containsOnlyKeys("p50", "p90", "p95", "p99");
+        assertThat(stats.getPercentiles().get("p50")).isEqualByComparingTo("1.5");
+        assertThat(stats.getHistogram()).containsExactly(
+            new PriceBucketDTO(new BigDecimal("1.00"), new BigDecimal("3.00"), 2),
+            new PriceBucketDTO(new BigDecimal("3.00"), new BigDecimal("5.00"), 1)
+        );
+        assertThat(stats.getOwnerId()).isNull();
+        assertThat(stats.getOwners()).isNull();
+        // The owners are never grouped in the single result document of the facets
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document facets = pipeline.get(2).get("$facet", Document.class);
+        assertThat(facets).containsOnlyKeys("summary", "histogram");
+        // The legacy string prices sort above the numbers, and would be taken for the highest price
+        assertThat(pipeline.get(0)).isEqualTo(new Document("$match", new Document("price", new Document("$type", "number"))));
+    }
+
+    @Test
+    void testPriceStatsOfEmptyCatalog() {
+        givenResult(new Document("summary", List.of()).append("histogram", List.of()));
+
+        PriceStatsDTO stats = productStatsService.getPriceStats(10);
+
+        assertThat(stats.getCount()).isZero();
+        assertThat(stats.getAverage()).isNull();
+        assertThat(stats.getPercentiles()).isEmpty();
+        assertThat(stats.getHistogram()).isEmpty();
+        assertThat(stats.getOwners()).isNull();
+    }
+
+    @Test
+    void testOwnerPriceStatsArePaged() {
+        ObjectId afterOwnerId = new ObjectId();
+        ArgumentCaptor<Aggregation> aggregation = givenResult(group(OWNER_ID));
+
+        List<PriceStatsDTO> owners = productStatsService.getOwnerPriceStats(afterOwnerId.toHexString(), 21);
+
+        assertThat(owners).singleElement().satisfies(owner -> {
+            assertThat(owner.getOwnerId()).isEqualTo(OWNER_ID.toHexString());
+            assertThat(owner.getCount()).isEqualTo(3);
+            assertThat(owner.getHistogram()).isNull();
+        });
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline.get(0).get("$match", Document.class).get("owner.$id", Document.class)).containsEntry("$gt", afterOwnerId);
+        assertThat(pipeline.get(0).get("$match", Document.class).get("price", Document.class)).containsEntry("$type", "number");
+        assertThat(pipeline.get(pipeline.size() - 1)).isEqualTo(new Document("$limit", 21));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<Aggregation> givenResult(Document result) {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoTemplate.aggregate(aggregation.capture(), eq("product"), eq(Document.class))).thenReturn(
+            new AggregationResults<>(List.of(result), new Document())
+        );
+        return aggregation;
+    }
+
+    private static Document group(Object id) {
+        return new Document("_id", id)
+            .append("count", 3)
+            .append("average", new Decimal128(new BigDecimal("2.50")))
+            .append("min", new Decimal128(new BigDecimal("1.00")))
+            .append("max", new Decimal128(new BigDecimal("5.00")))
+            .append("percentiles", List.of(1.5, 4.5, 5.0, 5.0));
+    }
+
+    private static Document bucket(String min, String max, int count) {
+        return new Document(
+            "_id",
+            new Document("min", new Decimal128(new BigDecimal(min))).append("max", new Decimal128(new BigDecimal(max)))
+        ).append("count", count);
+    }
+}
@@ -0,0 +1,94 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import com.lukethep.repository.UserRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductSummaryServiceTests {
+
+    private static final int MAX_SIZE = 3;
+
+    private UserRepository userRepository;
+
+    private ProductSummaryService productSummaryService;
+
+    @BeforeEach
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProductSummaries().setMaxSize(MAX_SIZE);
+
+        productSummaryService = new ProductSummaryService(userRepository, applicationProperties);
+    }
+
+    @Test
+    void testProductsCreatedPushesOncePerOwner() {
+        User owner1 = new User().id("owner1");
+        User owner2 = new User().id("owner2");
+        Product product1 = product("id1").owner(owner1);
+        Product product2 = product("id2").owner(owner2);
+        Product product3 = product("id3").owner(owner1);
+
+        productSummaryService.productsCreated(List.of(product1, product2, product3, product("id4")));
+
+        verify(userRepository).pushProductSummaries(
+            "owner1",
+            List.of(ProductSummary.of(product1), ProductSummary.of(product3)),
+            MAX_SIZE
+        );
+        verify(userRepository).pushProductSummaries("owner2", List.of(ProductSummary.of(product2)), MAX_SIZE);
+    }
+
+    @Test
+    void testProductUpdatedMovesSummaryToOwner() {
+        Product product = product("id1").owner(new User().id("owner1"));
+
+        productSummaryService.productUpdated(product);
+
+        verify(userRepository).removeProductSummary("id1", "owner1");
+        verify(userRepository).saveProductSummary("owner1", ProductSummary.of(product), MAX_SIZE);
+    }
+
+    @Test
+    void testProductWithoutOwnerHasNoSummary() {
+        productSummaryService.productCreated(product("id1"));
+        productSummaryService.productUpdated(product("id1"));
+
+        verify(userRepository, never()).pushProductSummaries(any(), anyList(), anyInt());
+        verify(userRepository).removeProductSummary("id1", null);
+        verify(userRepository, never()).saveProductSummary(any(), any(), anyInt());
+    }
+
+    @Test
+    void testProductDeletedRemovesSummary() {
+        productSummaryService.productDeleted("id1");
+
+        verify(userRepository).removeProductSummary(eq("id1"), eq(null));
+    }
+
+    @Test
+    void testSummaryCopiesProductFields() {
+        ProductSummary summary = ProductSummary.of(product("id1"));
+
+        assertThat(summary).isEqualTo(new ProductSummary().id("id1").name("name id1").price(BigDecimal.ONE));
+    }
+
+    private static Product product(String id) {
+        return new Product().id(id).name("name " + id).price(BigDecimal.ONE);
+    }
+}
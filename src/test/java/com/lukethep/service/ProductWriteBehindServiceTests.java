@@ -0,0 +1,193 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.lukethep.config.ApplicationProperties;
+import com.lukethep.config.CacheConfiguration;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductChange;
+import com.lukethep.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.mock.env.MockEnvironment;
+import tech.jhipster.config.JHipsterConstants;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Test class for the {@link ProductWriteBehindService}, against a Hazelcast member configured by the
+ * {@link CacheConfiguration}.
+ */
+class ProductWriteBehindServiceTests {
+
+    private static ProductRepository productRepository;
+
+    private static ProductSummaryService productSummaryService;
+
+    private static MeterRegistry meterRegistry;
+
+    private static HazelcastInstance hazelcastInstance;
+
+    private ProductWriteBehindService writeBehindService;
+
+    @BeforeAll
+    public static void setupAll() {
+        productRepository = mock(ProductRepository.class);
+        productSummaryService = mock(ProductSummaryService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ProductMapStore productMapStore = new ProductMapStore(
+            productRepository,
+            mock(UserService.class),
+            productSummaryService,
+            mock(OwnerStatsService.class),
+            meterRegistry
+        );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWriteBehind().setEnabled(true);
+        // Only the explicit flushes write
+        applicationProperties.getWriteBehind().setWriteDelaySeconds(3600);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("productMapStore", productMapStore);
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT);
+        hazelcastInstance = new CacheConfiguration(environment).hazelcastInstance(
+            new JHipsterProperties(),
+            applicationProperties,
+            beanFactory.getBeanProvider(ProductMapStore.class)
+        );
+    }
+
+    @AfterAll
+    public static void tearDownAll() {
+        hazelcastInstance.shutdown();
+    }
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWriteBehind().setEnabled(true);
+        writeBehindService = new ProductWriteBehindService(
+            hazelcastInstance,
+            Optional::empty,
+            applicationProperties,
+            meterRegistry
+        );
+        hazelcastInstance.getMap(ProductWriteBehindService.MAP_NAME).clear();
+        clearInvocations(productRepository, productSummaryService);
+    }
+
+    @Test
+    void testUpdatesAreCoalescedAndWrittenBehind() {
+        when(productRepository.findById("id1")).thenReturn(Optional.of(product("id1", 0L, "1.00")));
+        when(productRepository.replaceAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Product> products = invocation.getArgument(0);
+            return products.stream().map(product -> new ProductChange(product, null, new BigDecimal("1.00"))).toList();
+        });
+        long flushes = meterRegistry.get(ProductMapStore.FLUSH_METER_NAME).timer().count();
+
+        writeBehindService.partialUpdate(new Product().id("id1").price(new BigDecimal("2.00")), null);
+        Optional<ProductChange> change = writeBehindService.partialUpdate(new Product().id("id1").price(new BigDecimal("3.00")), 1L);
+
+        assertThat(change).map(ProductChange::previousPrice).contains(new BigDecimal("2.00"));
+        assertThat(writeBehindService.findOne("id1")).map(Product::getVersion).contains(2L);
+        verify(productRepository, never()).replaceAll(anyCollection());
+
+        writeBehindService.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Product>> written = ArgumentCaptor.forClass(Collection.class);
+        verify(productRepository, times(1)).replaceAll(written.capture());
+        assertThat(written.getValue()).extracting(Product::getPrice).containsExactly(new BigDecimal("3.00"));
+        verify(productSummaryService).productUpdated(any(Product.class));
+        assertThat(meterRegistry.get(ProductMapStore.FLUSH_METER_NAME).timer().count()).isEqualTo(flushes + 1);
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        when(productRepository.findById("id2")).thenReturn(Optional.of(product("id2", 5L, "1.00")));
+
+        assertThatExceptionOfType(OptimisticLockingFailureException.class).isThrownBy(() ->
+            writeBehindService.update(product("id2", null, "2.00"), 4L)
+        );
+        assertThat(writeBehindService.findOne("id2")).map(Product::getPrice).contains(new BigDecimal("1.00"));
+    }
+
+    @Test
+    void testMissingProductIsNotUpdated() {
+        when(productRepository.findById("id3")).thenReturn(Optional.empty());
+
+        assertThat(writeBehindService.update(product("id3", null, "2.00"), null)).isEmpty();
+        assertThat(writeBehindService.findOne("id3")).isEmpty();
+    }
+
+    @Test
+    void testRemovedProductIsNotWritten() {
+        when(productRepository.findById("id4")).thenReturn(Optional.of(product("id4", 0L, "1.00")));
+        writeBehindService.partialUpdate(new Product().id("id4").name("renamed"), null);
+
+        writeBehindService.remove("id4");
+        writeBehindService.flush();
+
+        verify(productRepository, never()).replaceAll(anyCollection());
+    }
+
+    @Test
+    void testUpdateOfAProductChangedMeanwhileIsCounted() {
+        when(productRepository.findById("id5")).thenReturn(Optional.of(product("id5", 0L, "1.00")));
+        // Written by someone else since it was loaded
+        when(productRepository.replaceAll(anyCollection())).thenReturn(List.of());
+        double skipped = meterRegistry.get(ProductMapStore.SKIPPED_METER_NAME).counter().count();
+
+        writeBehindService.partialUpdate(new Product().id("id5").name("renamed"), null);
+        writeBehindService.flush();
+
+        assertThat(meterRegistry.get(ProductMapStore.SKIPPED_METER_NAME).counter().count()).isEqualTo(skipped + 1);
+        verify(productSummaryService, never()).productUpdated(any(Product.class));
+    }
+
+    @Test
+    void testUnknownOwnerIsKeptByReference() {
+        when(productRepository.findById("id6")).thenReturn(Optional.of(product("id6", 0L, "1.00")));
+
+        writeBehindService.update(product("id6", null, "2.00").owner(new User().id("unknown")), null);
+
+        assertThat(writeBehindService.findOne("id6")).map(Product::getOwner).map(User::getId).contains("unknown");
+    }
+
+    @Test
+    void testEvictedProductIsLoadedAgain() {
+        when(productRepository.findById("id7")).thenReturn(Optional.of(product("id7", 0L, "1.00")));
+        writeBehindService.findOne("id7");
+
+        when(productRepository.findById("id7")).thenReturn(Optional.of(product("id7", 1L, "2.00")));
+        writeBehindService.evict("id7");
+
+        assertThat(writeBehindService.findOne("id7")).map(Product::getVersion).contains(1L);
+        verify(productRepository, times(2)).findById("id7");
+    }
+
+    private static Product product(String id, Long version, String price) {
+        return new Product().id(id).version(version).name("product").price(new BigDecimal(price));
+    }
+}
@@ -0,0 +1,86 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class TransactionRunnerTests {
+
+    private MeterRegistry meterRegistry;
+
+    private TransactionRunner transactions;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactions = new TransactionRunner(mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    void testWriteConflictsAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = transactions.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new MongoTransactionException("Write conflict", writeConflict());
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get(TransactionRunner.RETRIES_METER_NAME).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testRetriesAreBounded() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatExceptionOfType(MongoTransactionException.class).isThrownBy(() ->
+            transactions.run(() -> {
+                attempts.incrementAndGet();
+                throw new MongoTransactionException("Write conflict", writeConflict());
+            })
+        );
+
+        assertThat(attempts).hasValue(TransactionRunner.MAX_ATTEMPTS);
+    }
+
+    @Test
+    void testOtherErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() ->
+            transactions.run(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("Not transient", new MongoException("Not labelled"));
+            })
+        );
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    private static MongoException writeConflict() {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+            .append("code", new BsonInt32(112))
+            .append("codeName", new BsonString("WriteConflict"))
+            .append("errorLabels", new BsonArray(List.of(new BsonString(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL))));
+        return new MongoCommandException(response, new ServerAddress());
+    }
+}
@@ -0,0 +1,125 @@
+package com.lukethep.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class UserServiceTests {
+
+    private UserRepository userRepository;
+
+    private ProductRepository productRepository;
+
+    private CacheManager cacheManager;
+
+    private OwnerStatsService ownerStatsService;
+
+    private UserService userService;
+
+    @BeforeEach
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        productRepository = mock(ProductRepository.class);
+        cacheManager = new ConcurrentMapCacheManager();
+        ownerStatsService = mock(OwnerStatsService.class);
+
+        userService = new UserService(
+            userRepository,
+            productRepository,
+            ownerStatsService,
+            mock(PlatformTransactionManager.class),
+            cacheManager,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void testWritesEvictUser() {
+        User user = new User().id("id1").name("name").email("email");
+        when(userRepository.findWithProductIdsById("id1")).thenReturn(Optional.of(user));
+        when(userRepository.partialUpdate(user, null)).thenReturn(Optional.of(user));
+
+        userService.findOne("id1");
+        userService.findOne("id1");
+        userService.partialUpdate(user, null);
+        userService.findOne("id1");
+        userService.delete("id1");
+        userService.findOne("id1");
+
+        verify(userRepository, times(3)).findWithProductIdsById("id1");
+    }
+
+    @Test
+    void testProductsAreReadFromTheProductCacheOrElseAtOnce() {
+        // As read for the user cache
+        User user = new User().id("id1").name("name");
+        user.addProducts(new Product().id("p1"));
+        user.addProducts(new Product().id("p2"));
+        user.addProducts(new Product().id("deleted"));
+        when(userRepository.findWithProductIdsById("id1")).thenReturn(Optional.of(user));
+        cacheManager.getCache(Product.class.getName()).put("p1", new Product().id("p1").name("cached"));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(new Product().id("p2").name("loaded")));
+
+        User read = userService.findOne("id1").orElseThrow();
+
+        assertThat(read.getProducts()).extracting(Product::getName).containsExactlyInAnyOrder("cached", "loaded");
+        assertThat(read.getProducts()).extracting(Product::getOwner).containsOnly(read);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<String>> loaded = ArgumentCaptor.forClass(Iterable.class);
+        verify(productRepository).findAllById(loaded.capture());
+        assertThat(loaded.getValue()).containsExactlyInAnyOrder("p2", "deleted");
+    }
+
+    @Test
+    void testProductsReadTheOwnerWrittenSinceTheyWereCached() {
+        ProductService productService = new ProductService(
+            productRepository,
+            userService,
+            mock(ProductSummaryService.class),
+            mock(OwnerStatsService.class),
+            mock(BulkInsertService.class),
+            mock(ProductWriteBehindService.class),
+            mock(ProductChangesService.class),
+            mock(PlatformTransactionManager.class),
+            cacheManager,
+            new SimpleMeterRegistry()
+        );
+        User owner = new User().id("id1").name("name");
+        when(userRepository.findWithProductIdsById("id1")).thenReturn(Optional.of(owner));
+        when(productRepository.findById("p1")).thenReturn(Optional.of(new Product().id("p1").owner(owner)));
+        productService.findOne("p1");
+
+        User renamed = new User().id("id1").name("renamed");
+        when(userRepository.partialUpdate(renamed, null)).thenReturn(Optional.of(renamed));
+        when(userRepository.findWithProductIdsById("id1")).thenReturn(Optional.of(renamed));
+        userService.partialUpdate(renamed, null);
+
+        assertThat(productService.findOne("p1")).map(Product::getOwner).map(User::getName).contains("renamed");
+        verify(productRepository, times(1)).findById("p1");
+    }
+
+    @Test
+    void testDeleteRemovesTheStatsOfTheUser() {
+        userService.delete("id1");
+
+        verify(userRepository).deleteById("id1");
+        verify(ownerStatsService).ownerDeleted("id1");
+    }
+}
@@ -4,21 +4,52 @@ import static com.lukethep.domain.ProductAsserts.*;
 import static com.lukethep.web.rest.TestUtil.createUpdateProxyForBean;
 import static com.lukethep.web.rest.TestUtil.sameNumber;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.lukethep.IntegrationTest;
+import com.lukethep.domain.OwnerStats;
 import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
+import com.lukethep.domain.User;
+import com.lukethep.repository.OwnerStatsRepository;
 import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.UserRepository;
+import com.lukethep.web.util.CursorPaginationUtil;
+import com.mongodb.DBRef;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -46,6 +77,15 @@ class ProductResourceIT {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OwnerStatsRepository ownerStatsRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private MockMvc restProductMockMvc;
 
@@ -123,6 +163,43 @@ class ProductResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createProductsInBulk() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+        Product invalidProduct = createEntity().name(null);
+        String body = om.writeValueAsString(product) + "\n" + om.writeValueAsString(invalidProduct) + "\n";
+
+        // Each item gets its own result, a failed item does not prevent the others from being created
+        String firstId = JsonPath.read(
+            restProductMockMvc
+                .perform(post(ENTITY_API_URL + "/_bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$.[0].status").value(201))
+                .andExpect(jsonPath("$.[1].status").value(400))
+                .andExpect(jsonPath("$.[1].id").isEmpty())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(),
+            "$.[0].id"
+        );
+
+        insertedProduct = productRepository.findById(firstId).orElseThrow();
+        assertIncrementedRepositoryCount(databaseSizeBeforeCreate);
+        assertProductUpdatableFieldsEquals(product, insertedProduct);
+    }
+
+    @Test
+    void createProductsInBulkWithMalformedBody() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+
+        restProductMockMvc
+            .perform(post(ENTITY_API_URL + "/_bulk").contentType(MediaType.APPLICATION_JSON).content("[" + om.writeValueAsString(product)))
+            .andExpect(status().isBadRequest());
+
+        assertSameRepositoryCount(databaseSizeBeforeCreate);
+    }
+
     @Test
     void checkNameIsRequired() throws Exception {
         long databaseSizeBeforeTest = getRepositoryCount();
@@ -160,7 +237,7 @@ class ProductResourceIT {
 
         // Get all the productList
         restProductMockMvc
-            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .perform(get(ENTITY_API_URL + "?limit=1000"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(product.getId())))
@@ -168,6 +245,212 @@ class ProductResourceIT {
             .andExpect(jsonPath("$.[*].price").value(hasItem(sameNumber(DEFAULT_PRICE))));
     }
 
+    @Test
+    void getAllProductsWithCursor() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+        Product secondProduct = productRepository.save(createEntity());
+
+        try {
+            // The cursor of a page ending on the first product leads to the second one
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "?limit=1&after=" + CursorPaginationUtil.encodeCursor(product.getId())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id").value(secondProduct.getId()));
+
+            // A full page announces the next one
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().exists(CursorPaginationUtil.HEADER_X_NEXT_CURSOR))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+        } finally {
+            productRepository.delete(secondProduct);
+        }
+    }
+
+    @Test
+    void getAllProductsWithInvalidCursor() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "?after=not*a*cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllProductsWithFields() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=price&limit=1000"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(product.getId())))
+            .andExpect(jsonPath("$.[*].price").value(hasItem(sameNumber(DEFAULT_PRICE))))
+            .andExpect(jsonPath("$.[*].name").isEmpty());
+    }
+
+    @Test
+    void getAllProductsWithUnknownField() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "?fields=id,unknown")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllProductsByNameContainsSomething() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        defaultProductFiltering("name.contains=" + DEFAULT_NAME.substring(2).toLowerCase(), "name.contains=" + UPDATED_NAME);
+    }
+
+    @Test
+    void getAllProductsByPriceIsGreaterThanSomething() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        defaultProductFiltering("price.greaterThan=" + DEFAULT_PRICE.subtract(BigDecimal.ONE), "price.greaterThan=" + DEFAULT_PRICE);
+    }
+
+    @Test
+    void getAllProductsByOwnerIsEqualToSomething() throws Exception {
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        try {
+            insertedProduct = productRepository.save(product.owner(owner));
+
+            defaultProductFiltering("owner.equals=" + owner.getId(), "owner.equals=" + new ObjectId().toHexString());
+        } finally {
+            userRepository.delete(owner);
+        }
+    }
+
+    @Test
+    void getAllProductsSortedByPriceWithCursor() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+        Product cheaperProduct = productRepository.save(createEntity().price(DEFAULT_PRICE.subtract(BigDecimal.ONE)));
+
+        try {
+            // Descending prices: the cursor of a page ending on the first product leads to the cheaper one
+            String cursor = CursorPaginationUtil.encodeCursor(DEFAULT_PRICE.toPlainString(), insertedProduct.getId());
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=price,desc&name.equals=" + DEFAULT_NAME + "&limit=1000&after=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(hasItem(cheaperProduct.getId())))
+                .andExpect(jsonPath("$.[*].id").value(not(hasItem(insertedProduct.getId()))));
+        } finally {
+            productRepository.delete(cheaperProduct);
+        }
+    }
+
+    @Test
+    void getAllProductsSortedByPriceWithCursorPastAProductWithoutPrice() throws Exception {
+        // Initialize the database, with a legacy product stored without price
+        String name = UUID.randomUUID().toString();
+        insertedProduct = productRepository.save(createEntity().name(name));
+        String collectionName = mongoTemplate.getCollectionName(Product.class);
+        Document withoutPrice = new Document("name", name);
+        mongoTemplate.insert(withoutPrice, collectionName);
+        String withoutPriceId = String.valueOf(withoutPrice.get("_id"));
+
+        try {
+            // Ascending prices: the product without price comes first, and the cursor after it leads to the other one
+            String cursor = restProductMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=price,asc&name.equals=" + name + "&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id").value(withoutPriceId))
+                .andReturn()
+                .getResponse()
+                .getHeader(CursorPaginationUtil.HEADER_X_NEXT_CURSOR);
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=price,asc&name.equals=" + name + "&limit=1&after=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id").value(insertedProduct.getId()));
+
+            // Descending prices: the product without price comes last
+            cursor = CursorPaginationUtil.encodeCursor(DEFAULT_PRICE.toPlainString(), insertedProduct.getId());
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=price,desc&name.equals=" + name + "&after=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id").value(withoutPriceId));
+        } finally {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(withoutPrice.get("_id"))), collectionName);
+        }
+    }
+
+    @Test
+    void getAllProductsWithUnsupportedSort() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "?sort=owner,asc")).andExpect(status().isBadRequest());
+    }
+
+    private void defaultProductFiltering(String shouldBeFound, String shouldNotBeFound) throws Exception {
+        defaultProductShouldBeFound(shouldBeFound);
+        defaultProductShouldNotBeFound(shouldNotBeFound);
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultProductShouldBeFound(String filter) throws Exception {
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?limit=1000&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(product.getId())))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
+            .andExpect(jsonPath("$.[*].price").value(hasItem(sameNumber(DEFAULT_PRICE))));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultProductShouldNotBeFound(String filter) throws Exception {
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "?limit=1000&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(product.getId()))));
+    }
+
+    @Test
+    void exportProductsAsNdjson() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        String body = restProductMockMvc
+            .perform(get(ENTITY_API_URL + "/_export"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertThat(body.lines()).anySatisfy(line -> {
+            Product exported = om.readValue(line, Product.class);
+            assertThat(exported.getId()).isEqualTo(product.getId());
+            assertProductUpdatableFieldsEquals(exported, product);
+        });
+    }
+
+    @Test
+    void exportProductsAsCsv() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL + "/_export?format=csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(content().string(startsWith("id,name,price,owner\n")))
+            .andExpect(content().string(containsString(product.getId() + "," + DEFAULT_NAME + ",")));
+    }
+
+    @Test
+    void exportProductsWithUnsupportedFormat() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "/_export?format=xml")).andExpect(status().isBadRequest());
+    }
+
     @Test
     void getProduct() throws Exception {
         // Initialize the database
@@ -177,18 +460,101 @@ class ProductResourceIT {
         restProductMockMvc
             .perform(get(ENTITY_API_URL_ID, product.getId()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + insertedProduct.getVersion() + "\""))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.id").value(product.getId()))
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
             .andExpect(jsonPath("$.price").value(sameNumber(DEFAULT_PRICE)));
     }
 
+    @Test
+    void getProductWithMatchingIfNoneMatch() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+        String eTag = "\"" + insertedProduct.getVersion() + "\"";
+
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID, product.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void getProductWithStaleIfNoneMatch() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        restProductMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID, product.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + (insertedProduct.getVersion() + 1) + "\"")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + insertedProduct.getVersion() + "\""))
+            .andExpect(jsonPath("$.id").value(product.getId()));
+    }
+
+    @Test
+    void getProductWithIfModifiedSince() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+        HttpHeaders conditions = new HttpHeaders();
+        conditions.setIfModifiedSince(insertedProduct.getLastModifiedDate().plusSeconds(1));
+
+        restProductMockMvc.perform(get(ENTITY_API_URL_ID, product.getId()).headers(conditions)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getNonExistingProductConditionally() throws Exception {
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getProductWithFields() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID, product.getId()).param("fields", "price"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(product.getId()))
+            .andExpect(jsonPath("$.price").value(sameNumber(DEFAULT_PRICE)))
+            .andExpect(jsonPath("$.name").doesNotExist());
+    }
+
     @Test
     void getNonExistingProduct() throws Exception {
         // Get the product
         restProductMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    void getProductIsCachedUntilWritten() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+        restProductMockMvc.perform(get(ENTITY_API_URL_ID, product.getId())).andExpect(status().isOk());
+
+        // A write bypassing the service is not seen
+        productRepository.save(productRepository.findById(product.getId()).orElseThrow().name(UPDATED_NAME));
+        restProductMockMvc.perform(get(ENTITY_API_URL_ID, product.getId())).andExpect(jsonPath("$.name").value(DEFAULT_NAME));
+
+        // A write through the API evicts the product
+        restProductMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, product.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(om.writeValueAsBytes(new Product().id(product.getId()).price(UPDATED_PRICE)))
+            )
+            .andExpect(status().isOk());
+        restProductMockMvc
+            .perform(get(ENTITY_API_URL_ID, product.getId()))
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME))
+            .andExpect(jsonPath("$.price").value(sameNumber(UPDATED_PRICE)));
+    }
+
     @Test
     void putExistingProduct() throws Exception {
         // Initialize the database
@@ -213,6 +579,48 @@ class ProductResourceIT {
         assertPersistedProductToMatchAllProperties(updatedProduct);
     }
 
+    @Test
+    void putExistingProductWithIfMatch() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        Product updatedProduct = productRepository.findById(product.getId()).orElseThrow();
+        updatedProduct.name(UPDATED_NAME).price(UPDATED_PRICE);
+
+        restProductMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedProduct.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + updatedProduct.getVersion() + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedProduct))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (updatedProduct.getVersion() + 1) + "\""));
+
+        assertPersistedProductToMatchAllProperties(updatedProduct);
+    }
+
+    @Test
+    void putExistingProductWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        insertedProduct = productRepository.save(product);
+
+        Product updatedProduct = productRepository.findById(product.getId()).orElseThrow();
+        updatedProduct.name(UPDATED_NAME).price(UPDATED_PRICE);
+
+        restProductMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedProduct.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (updatedProduct.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedProduct))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // The product is left untouched
+        assertPersistedProductToMatchAllProperties(insertedProduct);
+    }
+
     @Test
     void putNonExistingProduct() throws Exception {
         long databaseSizeBeforeUpdate = getRepositoryCount();
@@ -318,12 +726,11 @@ class ProductResourceIT {
         long databaseSizeBeforeUpdate = getRepositoryCount();
         product.setId(UUID.randomUUID().toString());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restProductMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, product.getId()).contentType("application/merge-patch+json").content(om.writeValueAsBytes(product))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the Product in the database
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
@@ -377,6 +784,273 @@ class ProductResourceIT {
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
     }
 
+    @Test
+    void productSummariesFollowProductWrites() throws Exception {
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        try {
+            // Create the product
+            Product created = om.readValue(
+                restProductMockMvc
+                    .perform(
+                        post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(product.owner(owner)))
+                    )
+                    .andExpect(status().isCreated())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(),
+                Product.class
+            );
+            insertedProduct = created;
+            assertThat(userRepository.findById(owner.getId()).orElseThrow().getProductSummaries())
+                .extracting(ProductSummary::getId, ProductSummary::getName)
+                .containsExactly(tuple(created.getId(), DEFAULT_NAME));
+
+            // Rename it
+            restProductMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, created.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(om.writeValueAsBytes(new Product().id(created.getId()).name(UPDATED_NAME)))
+                )
+                .andExpect(status().isOk());
+            assertThat(userRepository.findById(owner.getId()).orElseThrow().getProductSummaries())
+                .extracting(ProductSummary::getId, ProductSummary::getName)
+                .containsExactly(tuple(created.getId(), UPDATED_NAME));
+
+            // Delete it
+            restProductMockMvc.perform(delete(ENTITY_API_URL_ID, created.getId())).andExpect(status().isNoContent());
+            insertedProduct = null;
+            assertThat(userRepository.findById(owner.getId()).orElseThrow().getProductSummaries()).isEmpty();
+        } finally {
+            userRepository.delete(owner);
+        }
+    }
+
+    @Test
+    void getProductStats() throws Exception {
+        // Initialize the database
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        insertedProduct = productRepository.save(product.owner(owner));
+
+        try {
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "/_stats?groupBy=owner&buckets=3"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.count").value(greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.percentiles.p50").isNumber())
+                .andExpect(jsonPath("$.histogram").isNotEmpty())
+                .andExpect(jsonPath("$.owners[?(@.ownerId == '" + owner.getId() + "')].count").value(hasItem(1)))
+                .andExpect(jsonPath("$.owners[?(@.ownerId == '" + owner.getId() + "')].max").value(hasItem(sameNumber(DEFAULT_PRICE))));
+
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "/_stats?groupBy=owner&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owners.length()").value(1));
+        } finally {
+            userRepository.delete(owner);
+        }
+    }
+
+    @Test
+    void getProductStatsSkipsUnreadablePrices() throws Exception {
+        // Initialize the database
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        insertedProduct = productRepository.save(product.owner(owner));
+        // A legacy price the migration could not convert, left as a string
+        String collectionName = mongoTemplate.getCollectionName(Product.class);
+        Document unreadable = new Document("name", DEFAULT_NAME)
+            .append("price", "n/a")
+            .append("unreadable_price", true)
+            .append("owner", new DBRef(mongoTemplate.getCollectionName(User.class), new ObjectId(owner.getId())));
+        mongoTemplate.insert(unreadable, collectionName);
+
+        try {
+            restProductMockMvc
+                .perform(get(ENTITY_API_URL + "/_stats?groupBy=owner&buckets=4&limit=1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owners[?(@.ownerId == '" + owner.getId() + "')].count").value(hasItem(1)))
+                .andExpect(jsonPath("$.owners[?(@.ownerId == '" + owner.getId() + "')].max").value(hasItem(sameNumber(DEFAULT_PRICE))));
+
+            ownerStatsRepository.rebuild();
+            assertOwnerStats(owner, 1, DEFAULT_PRICE, DEFAULT_PRICE, DEFAULT_PRICE);
+        } finally {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(unreadable.get("_id"))), collectionName);
+            ownerStatsRepository.deleteAll();
+            userRepository.delete(owner);
+        }
+    }
+
+    @Test
+    void getProductStatsWithInvalidParameters() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "/_stats?groupBy=name")).andExpect(status().isBadRequest());
+        restProductMockMvc.perform(get(ENTITY_API_URL + "/_stats?buckets=0")).andExpect(status().isBadRequest());
+        restProductMockMvc.perform(get(ENTITY_API_URL + "/_stats?groupBy=owner&after=%25")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void ownerStatsFollowProductWrites() throws Exception {
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        User otherOwner = userRepository.save(UserResourceIT.createEntity());
+        Product cheaperProduct = productRepository.save(createEntity().price(DEFAULT_PRICE.subtract(BigDecimal.ONE)).owner(owner));
+        ownerStatsRepository.addProducts(owner.getId(), 1, cheaperProduct.getPrice(), cheaperProduct.getPrice(), cheaperProduct.getPrice());
+        try {
+            // Create the product
+            Product created = om.readValue(
+                restProductMockMvc
+                    .perform(
+                        post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(om.writeValueAsBytes(product.owner(owner)))
+                    )
+                    .andExpect(status().isCreated())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(),
+                Product.class
+            );
+            insertedProduct = created;
+            assertOwnerStats(owner, 2, DEFAULT_PRICE.add(cheaperProduct.getPrice()), cheaperProduct.getPrice(), DEFAULT_PRICE);
+
+            // Raise its price
+            restProductMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, created.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(om.writeValueAsBytes(new Product().id(created.getId()).price(UPDATED_PRICE)))
+                )
+                .andExpect(status().isOk());
+            assertOwnerStats(owner, 2, UPDATED_PRICE.add(cheaperProduct.getPrice()), cheaperProduct.getPrice(), UPDATED_PRICE);
+
+            // Give it to another owner
+            restProductMockMvc
+                .perform(
+                    put(ENTITY_API_URL_ID, created.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsBytes(createUpdatedEntity().id(created.getId()).owner(otherOwner)))
+                )
+                .andExpect(status().isOk());
+            assertOwnerStats(owner, 1, cheaperProduct.getPrice(), cheaperProduct.getPrice(), cheaperProduct.getPrice());
+            assertOwnerStats(otherOwner, 1, UPDATED_PRICE, UPDATED_PRICE, UPDATED_PRICE);
+
+            // Delete it
+            restProductMockMvc.perform(delete(ENTITY_API_URL_ID, created.getId())).andExpect(status().isNoContent());
+            insertedProduct = null;
+            assertThat(ownerStatsRepository.findById(otherOwner.getId())).isEmpty();
+
+            // A rebuild finds the same aggregates
+            OwnerStats maintained = ownerStatsRepository.findById(owner.getId()).orElseThrow();
+            ownerStatsRepository.rebuild();
+            assertThat(ownerStatsRepository.findById(owner.getId())).contains(maintained);
+        } finally {
+            productRepository.delete(cheaperProduct);
+            ownerStatsRepository.deleteAll();
+            userRepository.deleteAll(List.of(owner, otherOwner));
+        }
+    }
+
+    @Test
+    void ownerStatsRebuildOnlyReplacesTheStaleAggregatesOfExistingOwners() {
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        User recentOwner = userRepository.save(UserResourceIT.createEntity());
+        User deletedOwner = userRepository.save(UserResourceIT.createEntity());
+        List<Product> products = productRepository.saveAll(
+            List.of(createEntity().owner(owner), createEntity().owner(recentOwner), createEntity().owner(deletedOwner))
+        );
+        userRepository.delete(deletedOwner);
+        try {
+            // Drifted aggregates, of which only those of the owner were written long before the rebuild
+            ownerStatsRepository.addProducts(owner.getId(), 5, UPDATED_PRICE, UPDATED_PRICE, UPDATED_PRICE);
+            ownerStatsRepository.addProducts(deletedOwner.getId(), 5, UPDATED_PRICE, UPDATED_PRICE, UPDATED_PRICE);
+            mongoTemplate.updateMulti(
+                new Query(),
+                new Update().set("last_modified_date", Date.from(Instant.now().minus(Duration.ofHours(1)))),
+                OwnerStats.class
+            );
+            ownerStatsRepository.addProducts(recentOwner.getId(), 5, UPDATED_PRICE, UPDATED_PRICE, UPDATED_PRICE);
+
+            ownerStatsRepository.rebuild();
+
+            assertOwnerStats(owner, 1, DEFAULT_PRICE, DEFAULT_PRICE, DEFAULT_PRICE);
+            // Possibly written concurrently with the rebuild, left for the next one
+            assertOwnerStats(recentOwner, 5, UPDATED_PRICE, UPDATED_PRICE, UPDATED_PRICE);
+            assertThat(ownerStatsRepository.findById(deletedOwner.getId())).isEmpty();
+        } finally {
+            productRepository.deleteAll(products);
+            ownerStatsRepository.deleteAll();
+            userRepository.deleteAll(List.of(owner, recentOwner));
+        }
+    }
+
+    @Test
+    void concurrentPatchesOfProductsOfOneOwnerAllSucceed() throws Exception {
+        User owner = userRepository.save(UserResourceIT.createEntity());
+        List<Product> created = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                created.add(
+                    om.readValue(
+                        restProductMockMvc
+                            .perform(
+                                post(ENTITY_API_URL)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(om.writeValueAsBytes(createEntity().owner(owner)))
+                            )
+                            .andExpect(status().isCreated())
+                            .andReturn()
+                            .getResponse()
+                            .getContentAsString(),
+                        Product.class
+                    )
+                );
+            }
+
+            // Both write the summaries and the aggregates of the owner in their transactions, which conflict
+            for (int round = 1; round <= 10; round++) {
+                BigDecimal price = BigDecimal.valueOf(round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> statuses = new ArrayList<>();
+                for (Product patched : created) {
+                    statuses.add(
+                        executor.submit(() -> {
+                            start.await();
+                            return restProductMockMvc
+                                .perform(
+                                    patch(ENTITY_API_URL_ID, patched.getId())
+                                        .with(user("user"))
+                                        .contentType("application/merge-patch+json")
+                                        .content(om.writeValueAsBytes(new Product().id(patched.getId()).price(price)))
+                                )
+                                .andReturn()
+                                .getResponse()
+                                .getStatus();
+                        })
+                    );
+                }
+                start.countDown();
+                for (Future<Integer> status : statuses) {
+                    assertThat(status.get(30, TimeUnit.SECONDS)).isEqualTo(200);
+                }
+                assertOwnerStats(owner, 2, price.add(price), price, price);
+            }
+            assertThat(userRepository.findById(owner.getId()).orElseThrow().getProductSummaries())
+                .extracting(ProductSummary::getPrice)
+                .allSatisfy(price -> assertThat(price).isEqualByComparingTo(BigDecimal.TEN));
+        } finally {
+            executor.shutdownNow();
+            productRepository.deleteAll(created);
+            ownerStatsRepository.deleteById(owner.getId());
+            userRepository.delete(owner);
+        }
+    }
+
+    private void assertOwnerStats(User owner, long productCount, BigDecimal totalPrice, BigDecimal minPrice, BigDecimal maxPrice) {
+        OwnerStats stats = ownerStatsRepository.findById(owner.getId()).orElseThrow();
+        assertThat(stats.getProductCount()).isEqualTo(productCount);
+        assertThat(stats.getTotalPrice()).isEqualByComparingTo(totalPrice);
+        assertThat(stats.getMinPrice()).isEqualByComparingTo(minPrice);
+        assertThat(stats.getMaxPrice()).isEqualByComparingTo(maxPrice);
+    }
+
     protected long getRepositoryCount() {
         return productRepository.count();
     }
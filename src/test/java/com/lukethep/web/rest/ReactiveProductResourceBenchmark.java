@@ -0,0 +1,146 @@
+package com.lukethep.web.rest;
+
+import com.lukethep.JhipsterMongoMsApp;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.UserRepository;
+import com.lukethep.security.jwt.JwtAuthenticationTestUtils;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Benchmark reading pages of products over HTTP from {@code /api/products}, served by Spring MVC and the synchronous
+ * driver, against {@code /api/reactive/products}, served by the {@link ReactiveProductResource} and the reactive driver.
+ * <p>
+ * The application is started in the benchmark JVM with the {@code dev} profile and {@code workerThreads} Undertow worker
+ * threads, and requested by 64 concurrent clients. The JVM only sees {@value #CORES} processors, so the throughput per
+ * core is the score divided by {@value #CORES}; the clients share these processors with the server, the same way on
+ * both paths.
+ * <p>
+ * Reads the Mongo database the {@code dev} profile starts with Docker Compose, or the one of the
+ * {@code benchmark.mongodb.uri} system property: the products read are added to it, and removed afterwards. Run with
+ * {@code ./mvnw -Pbenchmark test -Djmh.args=ReactiveProductResourceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(64)
+@Fork(value = 1, jvmArgsAppend = "-XX:ActiveProcessorCount=" + ReactiveProductResourceBenchmark.CORES)
+public class ReactiveProductResourceBenchmark {
+
+    static final int CORES = 2;
+
+    private static final int USERS = 10;
+
+    private static final int PRODUCTS_PER_USER = 100;
+
+    private static final String PAGE_QUERY = "?limit=20";
+
+    @Param({ "16", "200" })
+    private int workerThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private final List<User> users = new ArrayList<>();
+
+    private final List<Product> products = new ArrayList<>();
+
+    private HttpClient httpClient;
+
+    private URI mvcUri;
+
+    private URI reactiveUri;
+
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        List<String> args = new ArrayList<>(
+            List.of("--server.port=0", "--server.undertow.threads.worker=" + workerThreads, "--application.reactive.enabled=true")
+        );
+        String mongoUri = System.getProperty("benchmark.mongodb.uri");
+        if (mongoUri != null) {
+            // Docker Compose would override the URI with the database it starts
+            args.add("--spring.docker.compose.enabled=false");
+            args.add("--spring.data.mongodb.uri=" + mongoUri);
+        }
+        context = new SpringApplicationBuilder(JhipsterMongoMsApp.class).profiles("dev").run(args.toArray(String[]::new));
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(new User().name("benchmark " + i).email("benchmark" + i + "@localhost"));
+            List<Product> owned = new ArrayList<>();
+            for (int j = 0; j < PRODUCTS_PER_USER; j++) {
+                owned.add(new Product().name("benchmark " + i + "-" + j).price(BigDecimal.valueOf(j, 2)).owner(user));
+            }
+            products.addAll(productRepository.saveAll(owned));
+            users.add(userRepository.save(user.products(new HashSet<>(owned))));
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        mvcUri = URI.create("http://localhost:" + port + "/api/products" + PAGE_QUERY);
+        reactiveUri = URI.create("http://localhost:" + port + "/api/reactive/products" + PAGE_QUERY);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @Setup(Level.Iteration)
+    public void authenticate() {
+        // Tokens are only valid for a minute
+        String secret = context.getEnvironment().getRequiredProperty("jhipster.security.authentication.jwt.base64-secret");
+        authorization = JwtAuthenticationTestUtils.BEARER + JwtAuthenticationTestUtils.createValidToken(secret);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.getBean(ProductRepository.class).deleteAll(products);
+        context.getBean(UserRepository.class).deleteAll(users);
+        context.close();
+    }
+
+    @Benchmark
+    public int mvc() throws Exception {
+        return get(mvcUri);
+    }
+
+    @Benchmark
+    public int reactive() throws Exception {
+        return get(reactiveUri);
+    }
+
+    private int get(URI uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).header(HttpHeaders.AUTHORIZATION, authorization).GET().build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + uri + " answered " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
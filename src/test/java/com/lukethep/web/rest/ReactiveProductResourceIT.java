@@ -0,0 +1,137 @@
+package com.lukethep.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lukethep.IntegrationTest;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.UserRepository;
+import com.lukethep.web.util.CursorPaginationUtil;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Integration tests for the {@link ReactiveProductResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(properties = "application.reactive.enabled=true")
+class ReactiveProductResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/reactive/products";
+    private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MockMvc restProductMockMvc;
+
+    private User owner;
+
+    private Product product;
+
+    private Product secondProduct;
+
+    @BeforeEach
+    public void initTest() {
+        owner = userRepository.save(UserResourceIT.createEntity());
+        product = productRepository.save(ProductResourceIT.createEntity().owner(owner));
+        secondProduct = productRepository.save(ProductResourceIT.createEntity().owner(owner));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        productRepository.deleteAll(List.of(product, secondProduct));
+        userRepository.delete(owner);
+    }
+
+    @Test
+    void getAllProductsWithCursor() throws Exception {
+        // The cursor of a page ending on the first product leads to the second one
+        restProductMockMvc
+            .perform(asyncDispatch(perform(get(ENTITY_API_URL + "?limit=1&after=" + CursorPaginationUtil.encodeCursor(product.getId())))))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(secondProduct.getId()))
+            .andExpect(jsonPath("$.[0].owner.name").value(owner.getName()));
+
+        // A full page announces the next one
+        restProductMockMvc
+            .perform(asyncDispatch(perform(get(ENTITY_API_URL + "?limit=1"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().exists(CursorPaginationUtil.HEADER_X_NEXT_CURSOR))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+    }
+
+    @Test
+    void getAllProductsWithInvalidCursor() throws Exception {
+        restProductMockMvc.perform(get(ENTITY_API_URL + "?after=not*a*cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamProducts() throws Exception {
+        MvcResult result = perform(get(ENTITY_API_URL + "/_stream").accept(MediaType.APPLICATION_NDJSON));
+        // Waits for the stream to complete
+        result.getAsyncResult();
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.APPLICATION_NDJSON_VALUE);
+        List<String> ids = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            Product streamed = om.readValue(line, Product.class);
+            ids.add(streamed.getId());
+            if (streamed.getId().equals(product.getId())) {
+                assertThat(streamed.getOwner().getName()).isEqualTo(owner.getName());
+            }
+        }
+        assertThat(ids).containsSubsequence(product.getId(), secondProduct.getId()).isSorted();
+    }
+
+    @Test
+    void getProduct() throws Exception {
+        restProductMockMvc
+            .perform(asyncDispatch(perform(get(ENTITY_API_URL_ID, product.getId()))))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.id").value(product.getId()))
+            .andExpect(jsonPath("$.name").value(product.getName()))
+            .andExpect(jsonPath("$.owner.id").value(owner.getId()));
+    }
+
+    @Test
+    void getNonExistingProduct() throws Exception {
+        restProductMockMvc.perform(asyncDispatch(perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)))).andExpect(status().isNotFound());
+    }
+
+    private MvcResult perform(RequestBuilder requestBuilder) throws Exception {
+        // The reactive responses are written asynchronously
+        return restProductMockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+    }
+}
@@ -0,0 +1,139 @@
+package com.lukethep.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lukethep.IntegrationTest;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.User;
+import com.lukethep.repository.ProductRepository;
+import com.lukethep.repository.UserRepository;
+import com.lukethep.web.util.CursorPaginationUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Integration tests for the {@link ReactiveUserResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(properties = "application.reactive.enabled=true")
+class ReactiveUserResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/reactive/users";
+    private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MockMvc restUserMockMvc;
+
+    private User user;
+
+    private User secondUser;
+
+    private Product product;
+
+    @BeforeEach
+    public void initTest() {
+        user = userRepository.save(UserResourceIT.createEntity());
+        secondUser = userRepository.save(UserResourceIT.createEntity());
+        product = productRepository.save(ProductResourceIT.createEntity().owner(user));
+        user = userRepository.save(user.products(new HashSet<>(Set.of(product))));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        productRepository.delete(product);
+        userRepository.deleteAll(List.of(user, secondUser));
+    }
+
+    @Test
+    void getAllUsersWithCursor() throws Exception {
+        // The cursor of a page ending on the first user leads to the second one
+        restUserMockMvc
+            .perform(asyncDispatch(perform(get(ENTITY_API_URL + "?limit=1&after=" + CursorPaginationUtil.encodeCursor(user.getId())))))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(secondUser.getId()));
+
+        // A full page announces the next one
+        restUserMockMvc
+            .perform(asyncDispatch(perform(get(ENTITY_API_URL + "?limit=1"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().exists(CursorPaginationUtil.HEADER_X_NEXT_CURSOR))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+    }
+
+    @Test
+    void getAllUsersWithInvalidCursor() throws Exception {
+        restUserMockMvc.perform(get(ENTITY_API_URL + "?after=not*a*cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamUsers() throws Exception {
+        MvcResult result = perform(get(ENTITY_API_URL + "/_stream").accept(MediaType.APPLICATION_NDJSON));
+        // Waits for the stream to complete
+        result.getAsyncResult();
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.APPLICATION_NDJSON_VALUE);
+        List<String> ids = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            User streamed = om.readValue(line, User.class);
+            ids.add(streamed.getId());
+            if (streamed.getId().equals(user.getId())) {
+                assertThat(streamed.getProducts()).extracting(Product::getName).containsExactly(product.getName());
+            }
+        }
+        assertThat(ids).containsSubsequence(user.getId(), secondUser.getId()).isSorted();
+    }
+
+    @Test
+    void getUser() throws Exception {
+        restUserMockMvc
+            .perform(asyncDispatch(perform(get(ENTITY_API_URL_ID, user.getId()))))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.id").value(user.getId()))
+            .andExpect(jsonPath("$.name").value(user.getName()))
+            .andExpect(jsonPath("$.products.[0].id").value(product.getId()));
+    }
+
+    @Test
+    void getNonExistingUser() throws Exception {
+        restUserMockMvc.perform(asyncDispatch(perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)))).andExpect(status().isNotFound());
+    }
+
+    private MvcResult perform(RequestBuilder requestBuilder) throws Exception {
+        // The reactive responses are written asynchronously
+        return restUserMockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+    }
+}
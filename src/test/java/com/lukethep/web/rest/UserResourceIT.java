@@ -3,20 +3,31 @@ package com.lukethep.web.rest;
 import static com.lukethep.domain.UserAsserts.*;
 import static com.lukethep.web.rest.TestUtil.createUpdateProxyForBean;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.lukethep.IntegrationTest;
+import com.lukethep.domain.OwnerStats;
+import com.lukethep.domain.Product;
+import com.lukethep.domain.ProductSummary;
 import com.lukethep.domain.User;
+import com.lukethep.repository.OwnerStatsRepository;
+import com.lukethep.repository.ProductRepository;
 import com.lukethep.repository.UserRepository;
+import com.lukethep.web.util.CursorPaginationUtil;
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -44,6 +55,12 @@ class UserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OwnerStatsRepository ownerStatsRepository;
+
     @Autowired
     private MockMvc restUserMockMvc;
 
@@ -121,6 +138,43 @@ class UserResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createUsersInBulk() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+        User invalidUser = createEntity().name(null);
+        String body = om.writeValueAsString(user) + "\n" + om.writeValueAsString(invalidUser) + "\n";
+
+        // Each item gets its own result, a failed item does not prevent the others from being created
+        String firstId = JsonPath.read(
+            restUserMockMvc
+                .perform(post(ENTITY_API_URL + "/_bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$.[0].status").value(201))
+                .andExpect(jsonPath("$.[1].status").value(400))
+                .andExpect(jsonPath("$.[1].id").isEmpty())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(),
+            "$.[0].id"
+        );
+
+        insertedUser = userRepository.findById(firstId).orElseThrow();
+        assertIncrementedRepositoryCount(databaseSizeBeforeCreate);
+        assertUserUpdatableFieldsEquals(user, insertedUser);
+    }
+
+    @Test
+    void createUsersInBulkWithMalformedBody() throws Exception {
+        long databaseSizeBeforeCreate = getRepositoryCount();
+
+        restUserMockMvc
+            .perform(post(ENTITY_API_URL + "/_bulk").contentType(MediaType.APPLICATION_JSON).content("[" + om.writeValueAsString(user)))
+            .andExpect(status().isBadRequest());
+
+        assertSameRepositoryCount(databaseSizeBeforeCreate);
+    }
+
     @Test
     void checkNameIsRequired() throws Exception {
         long databaseSizeBeforeTest = getRepositoryCount();
@@ -158,7 +212,7 @@ class UserResourceIT {
 
         // Get all the userList
         restUserMockMvc
-            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .perform(get(ENTITY_API_URL + "?limit=1000"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(user.getId())))
@@ -166,6 +220,56 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].email").value(hasItem(DEFAULT_EMAIL)));
     }
 
+    @Test
+    void getAllUsersWithCursor() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+        User secondUser = userRepository.save(createEntity());
+
+        try {
+            // The cursor of a page ending on the first user leads to the second one
+            restUserMockMvc
+                .perform(get(ENTITY_API_URL + "?limit=1&after=" + CursorPaginationUtil.encodeCursor(user.getId())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id").value(secondUser.getId()));
+
+            // A full page announces the next one
+            restUserMockMvc
+                .perform(get(ENTITY_API_URL + "?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().exists(CursorPaginationUtil.HEADER_X_NEXT_CURSOR))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+        } finally {
+            userRepository.delete(secondUser);
+        }
+    }
+
+    @Test
+    void getAllUsersWithInvalidCursor() throws Exception {
+        restUserMockMvc.perform(get(ENTITY_API_URL + "?after=not*a*cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllUsersWithFields() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=email&limit=1000"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(user.getId())))
+            .andExpect(jsonPath("$.[*].email").value(hasItem(DEFAULT_EMAIL)))
+            .andExpect(jsonPath("$.[*].name").isEmpty());
+    }
+
+    @Test
+    void getAllUsersWithUnknownField() throws Exception {
+        restUserMockMvc.perform(get(ENTITY_API_URL + "?fields=id,unknown")).andExpect(status().isBadRequest());
+    }
+
     @Test
     void getUser() throws Exception {
         // Initialize the database
@@ -175,12 +279,221 @@ class UserResourceIT {
         restUserMockMvc
             .perform(get(ENTITY_API_URL_ID, user.getId()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + insertedUser.getVersion() + "\""))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.id").value(user.getId()))
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
             .andExpect(jsonPath("$.email").value(DEFAULT_EMAIL));
     }
 
+    @Test
+    void getUserWithItsProducts() throws Exception {
+        // Initialize the database
+        userRepository.save(user);
+        Product product = productRepository.save(ProductResourceIT.createEntity().owner(user));
+        user.addProducts(product);
+        insertedUser = userRepository.save(user);
+
+        try {
+            // The products are resolved by the service, the cached user only holds their ids
+            restUserMockMvc
+                .perform(get(ENTITY_API_URL_ID, user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.products.[0].id").value(product.getId()))
+                .andExpect(jsonPath("$.products.[0].name").value(product.getName()));
+        } finally {
+            productRepository.delete(product);
+        }
+    }
+
+    @Test
+    void getUserWithMatchingIfNoneMatch() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+        String eTag = "\"" + insertedUser.getVersion() + "\"";
+
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID, user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void getUserWithStaleIfNoneMatch() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        restUserMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID, user.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + (insertedUser.getVersion() + 1) + "\"")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + insertedUser.getVersion() + "\""))
+            .andExpect(jsonPath("$.id").value(user.getId()));
+    }
+
+    @Test
+    void getUserWithIfModifiedSince() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+        HttpHeaders conditions = new HttpHeaders();
+        conditions.setIfModifiedSince(insertedUser.getLastModifiedDate().plusSeconds(1));
+
+        restUserMockMvc.perform(get(ENTITY_API_URL_ID, user.getId()).headers(conditions)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getNonExistingUserConditionally() throws Exception {
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getUserWithFields() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID, user.getId()).param("fields", "email"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(user.getId()))
+            .andExpect(jsonPath("$.email").value(DEFAULT_EMAIL))
+            .andExpect(jsonPath("$.name").doesNotExist());
+    }
+
+    @Test
+    void getUserSummary() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(
+            user.productSummaries(List.of(new ProductSummary().id("product1").name(DEFAULT_NAME).price(BigDecimal.TEN)))
+        );
+
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID + "?view=summary", user.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(user.getId()))
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.productSummaries.[0].id").value("product1"))
+            .andExpect(jsonPath("$.productSummaries.[0].price").value(10))
+            .andExpect(jsonPath("$.products").doesNotExist());
+
+        // The summaries are only part of the summary view
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID, user.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.productSummaries").doesNotExist());
+    }
+
+    @Test
+    void getNonExistingUserSummary() throws Exception {
+        restUserMockMvc.perform(get(ENTITY_API_URL_ID + "?view=summary", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getUserStats() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+        ownerStatsRepository.save(
+            new OwnerStats()
+                .id(user.getId())
+                .productCount(2)
+                .totalPrice(BigDecimal.TEN)
+                .minPrice(BigDecimal.ONE)
+                .maxPrice(BigDecimal.valueOf(9))
+        );
+
+        try {
+            restUserMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/stats", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.id").value(user.getId()))
+                .andExpect(jsonPath("$.productCount").value(2))
+                .andExpect(jsonPath("$.totalPrice").value(10))
+                .andExpect(jsonPath("$.minPrice").value(1))
+                .andExpect(jsonPath("$.maxPrice").value(9));
+        } finally {
+            ownerStatsRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    void getStatsOfUserWithoutProducts() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/stats", user.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.productCount").value(0))
+            .andExpect(jsonPath("$.totalPrice").value(0))
+            .andExpect(jsonPath("$.minPrice").isEmpty());
+    }
+
+    @Test
+    void getStatsOfNonExistingUser() throws Exception {
+        restUserMockMvc.perform(get(ENTITY_API_URL_ID + "/stats", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getUserProducts() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+        User otherUser = userRepository.save(createEntity());
+        List<Product> products = productRepository.saveAll(
+            List.of(
+                ProductResourceIT.createEntity().owner(user),
+                ProductResourceIT.createEntity().owner(user),
+                ProductResourceIT.createEntity().owner(otherUser)
+            )
+        );
+
+        try {
+            // Only the products of the user, without their owner
+            restUserMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/products?limit=1", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id").value(products.get(0).getId()))
+                .andExpect(jsonPath("$.[0].owner").doesNotExist())
+                .andExpect(header().exists(CursorPaginationUtil.HEADER_X_NEXT_CURSOR));
+
+            restUserMockMvc
+                .perform(
+                    get(ENTITY_API_URL_ID + "/products?after=" + CursorPaginationUtil.encodeCursor(products.get(0).getId()), user.getId())
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id").value(products.get(1).getId()))
+                .andExpect(header().doesNotExist(CursorPaginationUtil.HEADER_X_NEXT_CURSOR));
+        } finally {
+            productRepository.deleteAll(products);
+            userRepository.delete(otherUser);
+        }
+    }
+
+    @Test
+    void getProductsOfUserWithoutProducts() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        restUserMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/products", user.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void getProductsOfNonExistingUser() throws Exception {
+        restUserMockMvc.perform(get(ENTITY_API_URL_ID + "/products", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
     @Test
     void getNonExistingUser() throws Exception {
         // Get the user
@@ -211,6 +524,48 @@ class UserResourceIT {
         assertPersistedUserToMatchAllProperties(updatedUser);
     }
 
+    @Test
+    void putExistingUserWithIfMatch() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        User updatedUser = userRepository.findById(user.getId()).orElseThrow();
+        updatedUser.name(UPDATED_NAME).email(UPDATED_EMAIL);
+
+        restUserMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedUser.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + updatedUser.getVersion() + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedUser))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (updatedUser.getVersion() + 1) + "\""));
+
+        assertPersistedUserToMatchAllProperties(updatedUser);
+    }
+
+    @Test
+    void putExistingUserWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        insertedUser = userRepository.save(user);
+
+        User updatedUser = userRepository.findById(user.getId()).orElseThrow();
+        updatedUser.name(UPDATED_NAME).email(UPDATED_EMAIL);
+
+        restUserMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedUser.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (updatedUser.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(om.writeValueAsBytes(updatedUser))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // The user is left untouched
+        assertPersistedUserToMatchAllProperties(insertedUser);
+    }
+
     @Test
     void putNonExistingUser() throws Exception {
         long databaseSizeBeforeUpdate = getRepositoryCount();
@@ -316,10 +671,9 @@ class UserResourceIT {
         long databaseSizeBeforeUpdate = getRepositoryCount();
         user.setId(UUID.randomUUID().toString());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restUserMockMvc
             .perform(patch(ENTITY_API_URL_ID, user.getId()).contentType("application/merge-patch+json").content(om.writeValueAsBytes(user)))
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the User in the database
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
@@ -0,0 +1,86 @@
+package com.lukethep.web.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.lukethep.config.ApplicationProperties;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Test class for the {@link CursorPaginationUtil} utility class.
+ */
+class CursorPaginationUtilTest {
+
+    private static final String BASE_URL = "/api/products";
+
+    @Test
+    void cursorRoundTrip() {
+        String cursor = CursorPaginationUtil.encodeCursor("12.50", "6543a1b2c3d4e5f601234567");
+        assertThat(CursorPaginationUtil.decodeCursor(cursor)).containsExactly("12.50", "6543a1b2c3d4e5f601234567");
+    }
+
+    @Test
+    void cursorIsOpaqueAndUrlSafe() {
+        String cursor = CursorPaginationUtil.encodeCursor("a/b+c=d,e;f");
+        assertThat(cursor).doesNotContain("/", "+", "=", ",", ";");
+        assertThat(CursorPaginationUtil.decodeCursor(cursor)).containsExactly("a/b+c=d,e;f");
+    }
+
+    @Test
+    void decodeRejectsMalformedCursor() {
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPaginationUtil.decodeCursor("not*base64"));
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPaginationUtil.decodeCursor(""));
+    }
+
+    @Test
+    void resolveLimitAppliesDefaultAndCap() {
+        ApplicationProperties.Pagination pagination = new ApplicationProperties.Pagination();
+        pagination.setDefaultLimit(20);
+        pagination.setMaxLimit(100);
+
+        assertThat(CursorPaginationUtil.resolveLimit(null, pagination)).isEqualTo(20);
+        assertThat(CursorPaginationUtil.resolveLimit(50, pagination)).isEqualTo(50);
+        assertThat(CursorPaginationUtil.resolveLimit(100_000, pagination)).isEqualTo(100);
+        assertThat(CursorPaginationUtil.resolveLimit(0, pagination)).isEqualTo(1);
+    }
+
+    @Test
+    void generateCursorPaginationHttpHeadersTest() {
+        String cursor = CursorPaginationUtil.encodeCursor("id5");
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            UriComponentsBuilder.fromUriString(BASE_URL).queryParam("after", "old"),
+            cursor,
+            10
+        );
+        assertThat(headers.getFirst(CursorPaginationUtil.HEADER_X_NEXT_CURSOR)).isEqualTo(cursor);
+        assertThat(headers.getFirst(HttpHeaders.LINK)).isEqualTo("<" + BASE_URL + "?after=" + cursor + "&limit=10>; rel=\"next\"");
+    }
+
+    @Test
+    void lastPageHasNoPaginationHeaders() {
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(UriComponentsBuilder.fromUriString(BASE_URL), null, 10);
+        assertThat(headers).isEmpty();
+    }
+
+    @Test
+    void sortOrderDefaultsToAscendingProperty() {
+        assertThat(CursorPaginationUtil.parseSortOrder(null, Set.of("id", "price"), "id")).isEqualTo(Sort.Order.asc("id"));
+        assertThat(CursorPaginationUtil.parseSortOrder("price", Set.of("id", "price"), "id")).isEqualTo(Sort.Order.asc("price"));
+    }
+
+    @Test
+    void sortOrderIsParsed() {
+        assertThat(CursorPaginationUtil.parseSortOrder("price,desc", Set.of("id", "price"), "id")).isEqualTo(Sort.Order.desc("price"));
+    }
+
+    @Test
+    void sortOrderMustBeSupported() {
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPaginationUtil.parseSortOrder("owner,asc", Set.of("id"), "id"));
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPaginationUtil.parseSortOrder("id,sideways", Set.of("id"), "id"));
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPaginationUtil.parseSortOrder("id,asc,desc", Set.of("id"), "id"));
+    }
+}
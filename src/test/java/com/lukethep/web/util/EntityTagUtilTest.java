@@ -0,0 +1,99 @@
+package com.lukethep.web.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.lukethep.domain.VersionStamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Test class for the {@link EntityTagUtil} utility class.
+ */
+class EntityTagUtilTest {
+
+    @Test
+    void entityTagIsStrong() {
+        assertThat(EntityTagUtil.toEntityTag(3L)).isEqualTo("\"3\"");
+        assertThat(EntityTagUtil.toEntityTag(null)).isNull();
+    }
+
+    @Test
+    void entityTagHeaderIsOnlySetForVersionedDocuments() {
+        assertThat(EntityTagUtil.withEntityTag(new HttpHeaders(), 3L).getETag()).isEqualTo("\"3\"");
+        assertThat(EntityTagUtil.withEntityTag(new HttpHeaders(), null).containsKey(HttpHeaders.ETAG)).isFalse();
+    }
+
+    @Test
+    void ifMatchRoundTrip() {
+        assertThat(EntityTagUtil.parseIfMatch(EntityTagUtil.toEntityTag(42L))).isEqualTo(42L);
+    }
+
+    @Test
+    void ifMatchAnyOrAbsentExpectsNoVersion() {
+        assertThat(EntityTagUtil.parseIfMatch(null)).isNull();
+        assertThat(EntityTagUtil.parseIfMatch("")).isNull();
+        assertThat(EntityTagUtil.parseIfMatch(" * ")).isNull();
+    }
+
+    @Test
+    void ifMatchMustBeAStrongVersionTag() {
+        assertThatIllegalArgumentException().isThrownBy(() -> EntityTagUtil.parseIfMatch("W/\"1\""));
+        assertThatIllegalArgumentException().isThrownBy(() -> EntityTagUtil.parseIfMatch("1"));
+        assertThatIllegalArgumentException().isThrownBy(() -> EntityTagUtil.parseIfMatch("\"abc\""));
+        assertThatIllegalArgumentException().isThrownBy(() -> EntityTagUtil.parseIfMatch("\"1\", \"2\""));
+    }
+
+    @Test
+    void validatorHeadersAskClientsToRevalidate() {
+        Instant lastModifiedDate = Instant.parse("2024-05-01T10:15:30Z");
+
+        HttpHeaders headers = EntityTagUtil.createValidatorHeaders(3L, lastModifiedDate);
+
+        assertThat(headers.getETag()).isEqualTo("\"3\"");
+        assertThat(headers.getLastModified()).isEqualTo(lastModifiedDate.toEpochMilli());
+        assertThat(headers.getCacheControl()).isEqualTo("no-cache");
+    }
+
+    @Test
+    void unchangedDocumentIsNotModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+        assertThat(EntityTagUtil.isConditionalGet(webRequest)).isTrue();
+        assertThat(EntityTagUtil.checkNotModified(webRequest, new VersionStamp(3L, Instant.now()))).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"3\"");
+    }
+
+    @Test
+    void changedDocumentIsModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+
+        assertThat(EntityTagUtil.checkNotModified(webRequest, new VersionStamp(4L, Instant.now()))).isFalse();
+    }
+
+    @Test
+    void unstampedDocumentIsAlwaysModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+        ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+
+        assertThat(EntityTagUtil.checkNotModified(webRequest, new VersionStamp(null, null))).isFalse();
+    }
+
+    @Test
+    void unconditionalGetIsDetected() {
+        ServletWebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/products/1"));
+
+        assertThat(EntityTagUtil.isConditionalGet(webRequest)).isFalse();
+    }
+}
@@ -0,0 +1,40 @@
+package com.lukethep.web.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lukethep.domain.Product;
+import java.math.BigDecimal;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link FieldSelectionUtil} utility class.
+ */
+class FieldSelectionUtilTest {
+
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("id", "name", "price");
+
+    @Test
+    void idIsAlwaysSelected() {
+        assertThat(FieldSelectionUtil.parseFields("price", SELECTABLE_FIELDS)).containsExactly("id", "price");
+        assertThat(FieldSelectionUtil.parseFields(" name , ,id,price", SELECTABLE_FIELDS)).containsExactly("id", "name", "price");
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> FieldSelectionUtil.parseFields("price,owner", SELECTABLE_FIELDS));
+    }
+
+    @Test
+    void onlySelectedFieldsAreSerialized() {
+        Product product = new Product().id("1").name("name").price(BigDecimal.ONE);
+
+        ObjectNode node = FieldSelectionUtil.selectFields(new ObjectMapper().findAndRegisterModules(), product, Set.of("id", "price"));
+
+        assertThat(node.properties()).extracting(entry -> entry.getKey()).containsExactlyInAnyOrder("id", "price");
+        assertThat(node.get("price").decimalValue()).isEqualByComparingTo(BigDecimal.ONE);
+    }
+}